@@ -0,0 +1,94 @@
+package org.minesweeper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Helpers that set up the games the benchmarks run on. Board sizes are given
+ * as "WIDTHxHEIGHT" strings so they can be passed as a single JMH parameter.
+ */
+final class BenchmarkFixtures {
+    private BenchmarkFixtures() {
+    }
+
+    static int width(String size) {
+        return Integer.parseInt(size.substring(0, size.indexOf('x')));
+    }
+
+    static int height(String size) {
+        return Integer.parseInt(size.substring(size.indexOf('x') + 1));
+    }
+
+    /**
+     * Gets the number of mines that gives a board roughly the given density,
+     * leaving room for the safe area around the first turn.
+     *
+     * @param size    The size of the board.
+     * @param density The fraction of tiles with mines.
+     * @return The mine count.
+     */
+    static int mineCount(String size, double density) {
+        long tiles = (long) width(size) * height(size);
+        return (int) Math.max(1, Math.min(tiles - 9, Math.round(tiles * density)));
+    }
+
+    /**
+     * Creates a game that has not been played yet.
+     *
+     * @param size    The size of the board.
+     * @param density The fraction of tiles with mines.
+     * @param seed    The seed the mines are generated from.
+     * @return The new game.
+     */
+    static Minesweeper newGame(String size, double density, long seed) {
+        return new Minesweeper(width(size), height(size), mineCount(size, density), seed);
+    }
+
+    /**
+     * Creates a game whose first turn has been played in the middle of the board,
+     * with a flag on some of the mines.
+     *
+     * @param size    The size of the board.
+     * @param density The fraction of tiles with mines.
+     * @param seed    The seed the mines are generated from.
+     * @return The game in progress.
+     */
+    static Minesweeper openedGame(String size, double density, long seed) {
+        Minesweeper game = newGame(size, density, seed);
+        game.playTurn(game.getGridHeight() / 2, game.getGridWidth() / 2);
+
+        Board board = game.getBoard();
+        for (int index = 0; index < board.size(); index += 7) {
+            if (board.hasMine(index)) {
+                board.toggleFlag(index);
+            }
+        }
+        return game;
+    }
+
+    /**
+     * Writes a game in the legacy CSV save format, which stores one comma
+     * separated token per tile.
+     *
+     * @param game The game to save.
+     * @param path The path of the save file.
+     * @throws IOException If the file cannot be written.
+     */
+    static void writeLegacySave(Minesweeper game, Path path) throws IOException {
+        Board board = game.getBoard();
+        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
+            writer.write(
+                    board.getWidth() + "," + board.getHeight() + "," + game.getMineCount() + ",\n"
+            );
+            for (int i = 0; i < board.getHeight(); i++) {
+                for (int j = 0; j < board.getWidth(); j++) {
+                    writer.write(board.cellToString(board.index(i, j)));
+                    writer.write(',');
+                }
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.minesweeper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the benchmarks with the GC profiler and writes the results as JSON to
+ * {@value #RESULT_FILE}, so the allocation rate is always reported and results
+ * can be compared between builds. Any other JMH command line options are
+ * passed through, and options given on the command line take precedence.
+ */
+public final class BenchmarkMain {
+    static final String RESULT_FILE = "target/jmh-result.json";
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-prof")) {
+            options.addAll(List.of("-prof", "gc"));
+        }
+        if (!options.contains("-rf")) {
+            options.addAll(List.of("-rf", "json"));
+        }
+        if (!options.contains("-rff")) {
+            options.addAll(List.of("-rff", RESULT_FILE));
+        }
+        org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+    }
+}
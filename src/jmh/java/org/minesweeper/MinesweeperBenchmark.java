@@ -0,0 +1,118 @@
+package org.minesweeper;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the game model: the first turn, mine generation, clue numbers and
+ * the flood fill. Every invocation needs a fresh board, so the fixtures reset
+ * the board before each invocation and the reset is left out of the timing.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class MinesweeperBenchmark {
+
+    /**
+     * A game of each size and mine density, which is played from the middle of
+     * the board.
+     */
+    @State(Scope.Thread)
+    public abstract static class Fixture {
+        @Param({ "9x9", "16x16", "30x16", "1000x1000", "10000x10000" })
+        public String size;
+
+        @Param({ "0.12", "0.2" })
+        public double density;
+
+        Minesweeper game;
+        int row, column;
+        long seed;
+
+        @Setup(Level.Trial)
+        public void createGame() {
+            game = BenchmarkFixtures.newGame(size, density, seed);
+            row = game.getGridHeight() / 2;
+            column = game.getGridWidth() / 2;
+        }
+    }
+
+    /**
+     * A game before its first turn, with a new seed every invocation.
+     */
+    @State(Scope.Thread)
+    public static class NewGame extends Fixture {
+        @Setup(Level.Invocation)
+        public void resetGame() {
+            game.reset(++seed);
+        }
+    }
+
+    /**
+     * A game whose mines and clue numbers have been generated but which has no
+     * uncovered tiles yet.
+     */
+    @State(Scope.Thread)
+    public static class MinedGame extends Fixture {
+        @Setup(Level.Invocation)
+        public void placeMines() {
+            game.reset(++seed);
+            game.randomMineMap(row, column);
+        }
+    }
+
+    /**
+     * A game with mines but no clue numbers, along with the positions of its
+     * mines.
+     */
+    @State(Scope.Thread)
+    public static class MinePositions extends Fixture {
+        int[][] mines;
+
+        @Setup(Level.Trial)
+        public void findMines() {
+            game.randomMineMap(row, column);
+            Board board = game.getBoard();
+            mines = new int[game.getMineCount()][];
+            for (int index = 0, k = 0; index < board.size(); index++) {
+                if (board.hasMine(index)) {
+                    mines[k++] = new int[] { board.row(index), board.column(index) };
+                }
+            }
+        }
+
+        @Setup(Level.Invocation)
+        public void clearClueNumbers() {
+            game.reset(seed);
+            Board board = game.getBoard();
+            for (int[] mine : mines) {
+                board.placeMine(board.index(mine[0], mine[1]));
+            }
+        }
+    }
+
+    @Benchmark
+    public GameState playFirstTurn(NewGame state) {
+        return state.game.playTurn(state.row, state.column);
+    }
+
+    @Benchmark
+    public Board randomMineMap(NewGame state) {
+        state.game.randomMineMap(state.row, state.column);
+        return state.game.getBoard();
+    }
+
+    @Benchmark
+    public Board generateClueNumbers(MinePositions state) {
+        state.game.generateClueNumbers(state.mines);
+        return state.game.getBoard();
+    }
+
+    @Benchmark
+    public int[] uncoverTile(MinedGame state) {
+        return state.game.uncoverTile(state.row, state.column);
+    }
+}
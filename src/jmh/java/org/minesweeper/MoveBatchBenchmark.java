@@ -0,0 +1,70 @@
+package org.minesweeper;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a bot that knows where the mines are finishing a game, playing its
+ * moves one call at a time against playing them as one batch. The bot flags
+ * every mine and uncovers every safe tile in order, most of which are already
+ * uncovered by earlier openings by the time they are played, as with replays.
+ * Every invocation plays on a fresh copy of the same game, which takes
+ * constant time, so the move count is the same for both.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class MoveBatchBenchmark {
+    @Param({ "30x16", "1000x1000" })
+    public String size;
+
+    private Minesweeper opened;
+    private int[] moves;
+    private Minesweeper game;
+
+    @Setup(Level.Trial)
+    public void createMoves() {
+        opened = BenchmarkFixtures.openedGame(size, 0.12, 1L);
+        Board board = opened.getBoard();
+        IntList list = new IntList();
+        for (int cell = 0; cell < board.size(); cell++) {
+            if (board.isCovered(cell) && !board.hasFlag(cell)) {
+                int type = board.hasMine(cell) ? Minesweeper.FLAG : Minesweeper.REVEAL;
+                list.add(Minesweeper.encodeMove(type, cell));
+            }
+        }
+        moves = list.toArray();
+    }
+
+    @Setup(Level.Invocation)
+    public void copyGame() {
+        game = opened.fork();
+    }
+
+    @Benchmark
+    public GameState playOneByOne() {
+        Board board = game.getBoard();
+        GameState state = GameState.IN_PROGRESS;
+        for (int move : moves) {
+            int cell = move & (1 << 30) - 1;
+            if (move >>> 30 == Minesweeper.FLAG) {
+                game.toggleTileFlag(board.row(cell), board.column(cell));
+            } else {
+                state = game.playTurn(board.row(cell), board.column(cell));
+                if (state == GameState.WON || state == GameState.LOST) {
+                    break;
+                }
+            }
+        }
+        return state;
+    }
+
+    @Benchmark
+    public Minesweeper.BatchResult playBatch() {
+        return game.playMoves(moves);
+    }
+}
@@ -0,0 +1,64 @@
+package org.minesweeper;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks saving a game in the binary save format and loading it from both
+ * the binary and the legacy CSV save formats. Saves are forced to disk, so the
+ * save benchmark includes the cost of the file system sync.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Thread)
+public class PersistenceBenchmark {
+    @Param({ "9x9", "16x16", "30x16", "1000x1000", "10000x10000" })
+    public String size;
+
+    @Param({ "0.12", "0.2" })
+    public double density;
+
+    private Minesweeper game;
+    private Path directory, binarySave, legacySave, output;
+
+    @Setup(Level.Trial)
+    public void writeSaves() throws IOException {
+        game = BenchmarkFixtures.openedGame(size, density, 1L);
+        directory = Files.createTempDirectory("minesweeper-benchmark");
+        binarySave = directory.resolve("save.bin");
+        legacySave = directory.resolve("save.csv");
+        output = directory.resolve("output.bin");
+        game.saveGame(binarySave.toString());
+        BenchmarkFixtures.writeLegacySave(game, legacySave);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteSaves() throws IOException {
+        for (Path path : new Path[] { binarySave, legacySave, output }) {
+            Files.deleteIfExists(path);
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public void saveGame() {
+        game.saveGame(output.toString());
+    }
+
+    @Benchmark
+    public Minesweeper loadBinarySave() {
+        return new Minesweeper(binarySave.toString());
+    }
+
+    @Benchmark
+    public Minesweeper loadLegacySave() {
+        return new Minesweeper(legacySave.toString());
+    }
+}
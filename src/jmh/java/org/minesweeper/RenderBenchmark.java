@@ -0,0 +1,104 @@
+package org.minesweeper;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks painting the game grid into an offscreen image. The grid is
+ * painted at full size, one pixel per screen pixel, so the largest boards are
+ * smaller than in the model benchmarks to keep the image in memory.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-Djava.awt.headless=true" })
+@State(Scope.Thread)
+public class RenderBenchmark {
+    @Param({ "9x9", "16x16", "30x16", "100x100", "200x200" })
+    public String size;
+
+    @Param({ "0.12", "0.2" })
+    public double density;
+
+    private Path directory;
+    private GameJournal journal;
+    private Minesweeper game;
+    private GameGrid grid;
+    private TileSprites sprites;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup(Level.Trial)
+    public void createGrid() throws IOException {
+        // the journal is never written to since no moves are made through the grid
+        directory = Files.createTempDirectory("minesweeper-benchmark");
+        journal = new GameJournal(directory.resolve("save.bin"), directory.resolve("journal"));
+        game = BenchmarkFixtures.openedGame(size, density, 1L);
+        grid = new GameGrid(new JLabel(), game, journal);
+
+        Dimension dimension = grid.getPreferredSize();
+        image = new BufferedImage(dimension.width, dimension.height, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        sprites = new TileSprites(GameGrid.TILE_SIDE_LENGTH);
+    }
+
+    @TearDown(Level.Trial)
+    public void disposeGrid() throws IOException {
+        graphics.dispose();
+        journal.close();
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public BufferedImage paintComponent() {
+        graphics.setClip(null);
+        grid.paintComponent(graphics);
+        return image;
+    }
+
+    // draws every tile with shapes and text, as painting did before the sprites
+    @Benchmark
+    public BufferedImage paintTilesWithShapes() {
+        Board board = game.getBoard();
+        int tileSize = GameGrid.TILE_SIDE_LENGTH;
+        for (int i = 0; i < board.getHeight(); i++) {
+            for (int j = 0; j < board.getWidth(); j++) {
+                int appearance = TileSprites.appearance(board, board.index(i, j), false);
+                TileSprites.drawTile(graphics, appearance, j * tileSize, i * tileSize, tileSize);
+            }
+        }
+        return image;
+    }
+
+    // the same tiles copied from the sprites, without the background and grid lines
+    @Benchmark
+    public BufferedImage paintTilesWithSprites() {
+        Board board = game.getBoard();
+        int tileSize = GameGrid.TILE_SIDE_LENGTH;
+        for (int i = 0; i < board.getHeight(); i++) {
+            for (int j = 0; j < board.getWidth(); j++) {
+                int appearance = TileSprites.appearance(board, board.index(i, j), false);
+                sprites.paintTile(graphics, appearance, j * tileSize, i * tileSize);
+            }
+        }
+        return image;
+    }
+
+    // the repaint after a flag toggle, which should not depend on the board size
+    @Benchmark
+    public BufferedImage paintOneTile() {
+        graphics.setClip(
+                0, 0, GameGrid.TILE_SIDE_LENGTH + 1, GameGrid.TILE_SIDE_LENGTH + 1
+        );
+        grid.paintComponent(graphics);
+        return image;
+    }
+}
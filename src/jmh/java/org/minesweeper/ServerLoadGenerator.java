@@ -0,0 +1,205 @@
+package org.minesweeper;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Drives a {@link GameServer} with many sessions at once and reports the moves
+ * played per second and the latency of each move. Every session has exactly
+ * one command in flight: it starts an expert game, reveals random tiles and
+ * now and then flags one until the game ends, then starts another. Sessions
+ * are multiplexed on one selector thread, so the generator needs no thread per
+ * session and measures the server rather than itself.
+ * <p>
+ * The arguments are the number of sessions, the seconds to measure for and the
+ * port of a running server. Without a port, a server is started in this
+ * process, which needs twice as many file descriptors as sessions. Moves
+ * answered in the first {@value #WARMUP_SECONDS} seconds are not counted. Run
+ * it from the benchmarks jar:
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar org.minesweeper.ServerLoadGenerator 10000 30 4321
+ * </pre>
+ */
+public final class ServerLoadGenerator {
+    static final int WARMUP_SECONDS = 5;
+
+    private static final String NEW_GAME = "NEW 30 16 99";
+    private static final int FLAG_EVERY = 8; // one move in this many is a flag
+
+    private ServerLoadGenerator() {
+    }
+
+    /**
+     * One connection and the command it is waiting on.
+     */
+    private static final class Session {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(256);
+        final SplittableRandom random;
+        ByteBuffer out;
+        long sentNanos;
+        boolean move; // whether the command in flight is a move rather than a new game
+
+        Session(SocketChannel channel, long seed) {
+            this.channel = channel;
+            this.random = new SplittableRandom(seed);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        GameServer server = args.length > 2 ? null : new GameServer(0);
+        int port = server != null ? server.getPort() : Integer.parseInt(args[2]);
+        try {
+            run(sessions, seconds, port);
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private static void run(int sessionCount, int seconds, int port) throws IOException {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        List<Session> sessions = new ArrayList<>(sessionCount);
+        try (Selector selector = Selector.open()) {
+            for (int s = 0; s < sessionCount; s++) {
+                SocketChannel channel = SocketChannel.open(address);
+                channel.socket().setTcpNoDelay(true);
+                channel.configureBlocking(false);
+                Session session = new Session(channel, s);
+                channel.register(selector, SelectionKey.OP_READ, session);
+                sessions.add(session);
+            }
+            System.out.println(sessionCount + " sessions connected");
+
+            long start = System.nanoTime();
+            long measureFrom = start + WARMUP_SECONDS * 1_000_000_000L;
+            long end = measureFrom + seconds * 1_000_000_000L;
+            for (Session session : sessions) {
+                send(session, selector, NEW_GAME, false);
+            }
+
+            IntList latencies = new IntList(); // in microseconds
+            long moves = 0;
+            long games = 0;
+            long now = start;
+            while (now < end) {
+                selector.select(100);
+                now = System.nanoTime();
+                for (SelectionKey key : selector.selectedKeys()) {
+                    Session session = (Session) key.attachment();
+                    if (key.isWritable()) {
+                        flush(session, key);
+                    }
+                    if (key.isReadable() && readReply(session)) {
+                        String reply = takeLine(session);
+                        if (reply.startsWith("ERROR")) {
+                            throw new IOException("Server refused a move: " + reply);
+                        }
+                        if (now >= measureFrom && session.move) {
+                            latencies.add((int) Math.min((now - session.sentNanos) / 1000,
+                                    Integer.MAX_VALUE));
+                            moves++;
+                        }
+                        if (reply.startsWith("OK WON") || reply.startsWith("OK LOST")) {
+                            games++;
+                            send(session, selector, NEW_GAME, false);
+                        } else {
+                            send(session, selector, nextMove(session), true);
+                        }
+                    }
+                }
+                selector.selectedKeys().clear();
+            }
+
+            int[] sorted = latencies.toArray();
+            Arrays.sort(sorted);
+            System.out.printf("%d sessions, %d s: %d moves, %.0f moves/s, %d games ended%n",
+                    sessionCount, seconds, moves, moves / (double) seconds, games);
+            System.out.printf("latency p50 %.3f ms, p99 %.3f ms, p99.9 %.3f ms, max %.3f ms%n",
+                    percentile(sorted, 0.5), percentile(sorted, 0.99),
+                    percentile(sorted, 0.999), percentile(sorted, 1));
+        } finally {
+            for (Session session : sessions) {
+                session.channel.close();
+            }
+        }
+    }
+
+    private static String nextMove(Session session) {
+        int i = session.random.nextInt(16), j = session.random.nextInt(30);
+        return (session.random.nextInt(FLAG_EVERY) == 0 ? "FLAG " : "REVEAL ") + i + " " + j;
+    }
+
+    private static void send(Session session, Selector selector, String command, boolean move)
+            throws IOException {
+        session.out = ByteBuffer.wrap((command + "\n").getBytes(StandardCharsets.US_ASCII));
+        session.move = move;
+        session.sentNanos = System.nanoTime();
+        session.channel.write(session.out);
+        if (session.out.hasRemaining()) {
+            // the socket buffer is full, finish once it drains
+            session.channel.keyFor(selector).interestOps(
+                    SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private static void flush(Session session, SelectionKey key) throws IOException {
+        session.channel.write(session.out);
+        if (!session.out.hasRemaining()) {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    /**
+     * Reads what the server sent.
+     *
+     * @return True if a whole line has arrived.
+     */
+    private static boolean readReply(Session session) throws IOException {
+        if (session.channel.read(session.in) < 0) {
+            throw new IOException("Server closed a session");
+        }
+        ByteBuffer in = session.in;
+        for (int k = 0; k < in.position(); k++) {
+            if (in.get(k) == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String takeLine(Session session) {
+        ByteBuffer in = session.in;
+        in.flip();
+        int end = 0;
+        while (in.get(end) != '\n') {
+            end++;
+        }
+        String line = new String(in.array(), 0, end, StandardCharsets.US_ASCII);
+        in.position(end + 1);
+        in.compact();
+        return line;
+    }
+
+    private static double percentile(int[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(rank, 0)] / 1000.0;
+    }
+}
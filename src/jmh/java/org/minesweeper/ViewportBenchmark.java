@@ -0,0 +1,73 @@
+package org.minesweeper;
+
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks painting the part of the game grid that a scroll pane shows, in
+ * the middle of the board. Only the view is drawn into the image, so the time
+ * should be the same however large the board is.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx4g", "-Djava.awt.headless=true" })
+@State(Scope.Thread)
+public class ViewportBenchmark {
+    private static final int VIEW_WIDTH = 800, VIEW_HEIGHT = 600;
+
+    @Param({ "100x100", "1000x1000", "5000x5000" })
+    public String size;
+
+    @Param({ "4", "20", "64" })
+    public int tileSize;
+
+    private Path directory;
+    private GameJournal journal;
+    private GameGrid grid;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup(Level.Trial)
+    public void createGrid() throws IOException {
+        directory = Files.createTempDirectory("minesweeper-benchmark");
+        journal = new GameJournal(directory.resolve("save.bin"), directory.resolve("journal"));
+        Minesweeper game = BenchmarkFixtures.openedGame(size, 0.12, 1L);
+        grid = new GameGrid(new JLabel(), game, journal);
+        grid.setTileSize(tileSize);
+
+        // look at the middle of the board, as a scroll pane would
+        Dimension dimension = grid.getPreferredSize();
+        image = new BufferedImage(VIEW_WIDTH, VIEW_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        graphics.translate(
+                -Math.max(0, (dimension.width - VIEW_WIDTH) / 2),
+                -Math.max(0, (dimension.height - VIEW_HEIGHT) / 2)
+        );
+        graphics.clipRect(
+                Math.max(0, (dimension.width - VIEW_WIDTH) / 2),
+                Math.max(0, (dimension.height - VIEW_HEIGHT) / 2), VIEW_WIDTH, VIEW_HEIGHT
+        );
+    }
+
+    @TearDown(Level.Trial)
+    public void disposeGrid() throws IOException {
+        graphics.dispose();
+        grid.attemptSaveGame();
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public BufferedImage paintView() {
+        grid.paintComponent(graphics);
+        return image;
+    }
+}
@@ -0,0 +1,521 @@
+package org.minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * This is the packed storage for the cells of a minefield. Every cell is stored
+ * as a single byte in row-major order, so the cell in row i and column j lives
+ * at index {@code i * width + j}. The low four bits of a cell hold its clue
+ * number and the upper bits hold whether the cell has a mine, has been
+ * uncovered and has a flag. A zeroed byte is a fresh covered tile, so a new
+ * board needs no initialization pass.
+ * <p>
+ * The cells are split into chunks of {@link #CHUNK_SIZE} cells, so that a copy
+ * of the board can share them. Copying takes constant time, and afterwards
+ * neither board writes a shared chunk in place: the first write to a chunk
+ * copies it, and the first write after a copy also copies the table of chunks.
+ * Beyond the table, a copy only costs memory for the chunks written since it
+ * was taken. Since shared chunks are never written, a copy can be read by
+ * another thread while the original is played, as long as the copy is taken on
+ * the thread that writes the original.
+ * <p>
+ * The board also keeps count of the covered cells without mines. Every state
+ * change updates the count, so checking for a win does not need to scan the
+ * board.
+ */
+public class Board {
+    // Cell bit layout
+    static final int CLUE_MASK = 0x0F;
+    static final int MINE = 0x10;
+    static final int UNCOVERED = 0x20;
+    static final int FLAG = 0x40;
+
+    static final int CHUNK_SHIFT = 12;
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; // cells per chunk
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final int width, height, size;
+    private byte[][] chunks;
+    private long[] owned; // bit set for each chunk only this board has, null if none
+    private int coveredSafeCells; // number of covered cells without a mine
+
+    /**
+     * Creates a new board where every cell is covered, unflagged and has no mine.
+     *
+     * @param width  The width of the board in cells.
+     * @param height The height of the board in cells.
+     */
+    public Board(int width, int height) {
+        if (width < 0 || height < 0) {
+            throw new IllegalArgumentException("Board dimensions must be non-negative");
+        }
+        this.width = width;
+        this.height = height;
+        this.size = Math.multiplyExact(width, height);
+        this.chunks = new byte[(int) (((long) size + CHUNK_MASK) >>> CHUNK_SHIFT)][];
+        for (int k = 0; k < chunks.length; k++) {
+            chunks[k] = new byte[chunkLength(k)];
+        }
+        this.owned = new long[(chunks.length + 63) >>> 6];
+        Arrays.fill(owned, -1L);
+        this.coveredSafeCells = size;
+    }
+
+    /**
+     * Creates a board from packed cells, such as ones read from a save file.
+     *
+     * @param width  The width of the board in cells.
+     * @param height The height of the board in cells.
+     * @param cells  The packed cells in row-major order. The board takes ownership
+     *               of the array if it fits in one chunk, and copies it otherwise.
+     */
+    Board(int width, int height, byte[] cells) {
+        this(width, height);
+        if ((long) width * height != cells.length) {
+            throw new IllegalArgumentException("Board dimensions do not match cell count");
+        }
+        if (chunks.length == 1) {
+            chunks[0] = cells;
+        } else {
+            setCells(0, cells, cells.length);
+        }
+        recountCoveredSafeCells();
+    }
+
+    /**
+     * Creates a copy of a board that shares its chunks.
+     *
+     * @param other The board to copy.
+     */
+    private Board(Board other) {
+        this.width = other.width;
+        this.height = other.height;
+        this.size = other.size;
+        this.chunks = other.chunks;
+        this.coveredSafeCells = other.coveredSafeCells;
+        other.owned = null; // the other board no longer has any chunk to itself
+    }
+
+    /**
+     * Copies the board in constant time. The boards share their chunks until
+     * either one writes to them, so they can be changed independently. This must
+     * be called on the thread that writes this board.
+     *
+     * @return A copy of this board.
+     */
+    public Board copy() {
+        return new Board(this);
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The total number of cells on the board.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the flat index of a cell.
+     *
+     * @param i The row of the cell, with the first row starting at i=0.
+     * @param j The column of the cell, with the first column starting at j=0.
+     * @return The index of the cell in the packed cell array.
+     */
+    public int index(int i, int j) {
+        return i * width + j;
+    }
+
+    public int row(int index) {
+        return index / width;
+    }
+
+    public int column(int index) {
+        return index % width;
+    }
+
+    public boolean hasMine(int index) {
+        return (getCell(index) & MINE) != 0;
+    }
+
+    public boolean isCovered(int index) {
+        return (getCell(index) & UNCOVERED) == 0;
+    }
+
+    public boolean hasFlag(int index) {
+        return (getCell(index) & FLAG) != 0;
+    }
+
+    public int getClueNumber(int index) {
+        return getCell(index) & CLUE_MASK;
+    }
+
+    /**
+     * Gets the raw packed state of a cell.
+     *
+     * @param index The index of the cell.
+     * @return The packed cell byte.
+     */
+    byte getCell(int index) {
+        return chunks[index >>> CHUNK_SHIFT][index & CHUNK_MASK];
+    }
+
+    private int chunkLength(int chunk) {
+        return Math.min(CHUNK_SIZE, size - (chunk << CHUNK_SHIFT));
+    }
+
+    /**
+     * Gets the chunk holding a cell so it can be written, first copying the
+     * chunk if it may be shared with another board.
+     *
+     * @param index The index of the cell.
+     * @return The chunk, which the cell is at {@code index & CHUNK_MASK} in.
+     */
+    private byte[] writableChunk(int index) {
+        int chunk = index >>> CHUNK_SHIFT;
+        long[] ownedChunks = owned;
+        if (ownedChunks != null && (ownedChunks[chunk >>> 6] & 1L << chunk) != 0) {
+            return chunks[chunk];
+        }
+        return copyChunk(chunk);
+    }
+
+    // kept apart from the check above so that the check is inlined into every write
+    private byte[] copyChunk(int chunk) {
+        ownTable();
+        if ((owned[chunk >>> 6] & 1L << chunk) == 0) {
+            chunks[chunk] = chunks[chunk].clone();
+            owned[chunk >>> 6] |= 1L << chunk;
+        }
+        return chunks[chunk];
+    }
+
+    // copies the table of chunks if it may be shared with another board
+    private void ownTable() {
+        if (owned == null) {
+            chunks = chunks.clone();
+            owned = new long[(chunks.length + 63) >>> 6];
+        }
+    }
+
+    /**
+     * @return The number of chunks this board does not share with any copy, used
+     *         to check that copies only cost memory for what is written.
+     */
+    int countOwnedChunks() {
+        int count = 0;
+        if (owned != null) {
+            for (long bits : owned) {
+                count += Long.bitCount(bits);
+            }
+        }
+        return Math.min(count, chunks.length);
+    }
+
+    /**
+     * Overwrites the raw packed state of a cell, for boards that mirror another
+     * board, such as the one a view paints from. The count of covered cells
+     * without mines is not updated.
+     *
+     * @param index The index of the cell.
+     * @param cell  The packed cell byte.
+     */
+    void setCell(int index, byte cell) {
+        writableChunk(index)[index & CHUNK_MASK] = cell;
+    }
+
+    /**
+     * Overwrites the raw packed states of a run of cells, such as ones read from a
+     * save file. The count of covered cells without mines is not updated until
+     * {@link #recountCoveredSafeCells()} is called.
+     *
+     * @param start  The index of the first cell.
+     * @param source The packed cell bytes.
+     * @param length The number of cells to overwrite.
+     */
+    void setCells(int start, byte[] source, int length) {
+        for (int copied = 0; copied < length; ) {
+            int index = start + copied;
+            int offset = index & CHUNK_MASK;
+            int run = Math.min(length - copied, CHUNK_SIZE - offset);
+            System.arraycopy(source, copied, writableChunk(index), offset, run);
+            copied += run;
+        }
+    }
+
+    /**
+     * Sets clue number of a cell.
+     *
+     * @param index      The index of the cell.
+     * @param clueNumber number to be displayed on the cell. Must be between 1 and
+     *                   8.
+     */
+    void setClueNumber(int index, int clueNumber) {
+        if (clueNumber < 1 || clueNumber > 8) {
+            throw new IllegalArgumentException("clueNumber must be between 1 and 8");
+        } else if (hasMine(index)) {
+            throw new IllegalCallerException("target tile has mine");
+        }
+        byte[] chunk = writableChunk(index);
+        int offset = index & CHUNK_MASK;
+        chunk[offset] = (byte) ((chunk[offset] & ~CLUE_MASK) | clueNumber);
+    }
+
+    void placeMine(int index) {
+        if (hasMine(index)) {
+            throw new IllegalCallerException("target tile already has mine");
+        }
+        if (isCovered(index)) {
+            coveredSafeCells--;
+        }
+        writableChunk(index)[index & CHUNK_MASK] |= MINE;
+    }
+
+    /**
+     * Moves a mine to a cell without one, updating the clue numbers around both
+     * cells.
+     *
+     * @param from The index of the cell with the mine.
+     * @param to   The index of the cell to move the mine to.
+     */
+    void moveMine(int from, int to) {
+        if (!hasMine(from)) {
+            throw new IllegalCallerException("source tile has no mine");
+        } else if (hasMine(to)) {
+            throw new IllegalCallerException("target tile already has mine");
+        }
+
+        // the old cell becomes a clue for the mines around it
+        setCell(from, (byte) (getCell(from) & ~MINE));
+        if (isCovered(from)) {
+            coveredSafeCells++;
+        }
+        addToNeighbourClues(from, -1);
+        int mines = 0;
+        int i = row(from), j = column(from);
+        for (int x = Math.max(i - 1, 0); x <= Math.min(i + 1, height - 1); x++) {
+            for (int y = Math.max(j - 1, 0); y <= Math.min(j + 1, width - 1); y++) {
+                mines += (getCell(x * width + y) & MINE) >>> 4;
+            }
+        }
+        setCell(from, (byte) ((getCell(from) & ~CLUE_MASK) | mines));
+
+        if (isCovered(to)) {
+            coveredSafeCells--;
+        }
+        setCell(to, (byte) ((getCell(to) & ~CLUE_MASK) | MINE));
+        addToNeighbourClues(to, 1);
+    }
+
+    /**
+     * Adds to the clue number of every cell without a mine around a cell.
+     *
+     * @param index  The index of the cell.
+     * @param amount The amount to add.
+     */
+    void addToNeighbourClues(int index, int amount) {
+        int i = row(index), j = column(index);
+        for (int x = Math.max(i - 1, 0); x <= Math.min(i + 1, height - 1); x++) {
+            for (int y = Math.max(j - 1, 0); y <= Math.min(j + 1, width - 1); y++) {
+                int target = x * width + y;
+                byte[] chunk = writableChunk(target);
+                int offset = target & CHUNK_MASK;
+                if (target != index && (chunk[offset] & MINE) == 0) {
+                    chunk[offset] += amount;
+                }
+            }
+        }
+    }
+
+    void toggleFlag(int index) {
+        if (!isCovered(index)) {
+            throw new IllegalCallerException("uncovered tile cannot be flagged");
+        }
+        writableChunk(index)[index & CHUNK_MASK] ^= FLAG;
+    }
+
+    void uncover(int index) {
+        if (!isCovered(index)) {
+            throw new IllegalCallerException("target tile is already uncovered");
+        } else if (hasFlag(index)) {
+            throw new IllegalCallerException("target tile has flag");
+        }
+        if (!hasMine(index)) {
+            coveredSafeCells--;
+        }
+        writableChunk(index)[index & CHUNK_MASK] |= UNCOVERED;
+    }
+
+    /**
+     * Covers every cell and removes all mines, flags and clue numbers.
+     */
+    void clear() {
+        ownTable();
+        for (int k = 0; k < chunks.length; k++) {
+            if ((owned[k >>> 6] & 1L << k) != 0) {
+                Arrays.fill(chunks[k], (byte) 0);
+            } else {
+                // a fresh chunk is cheaper than copying a shared one to clear it
+                chunks[k] = new byte[chunkLength(k)];
+                owned[k >>> 6] |= 1L << k;
+            }
+        }
+        coveredSafeCells = size;
+    }
+
+    /**
+     * Removes all mines and clue numbers, keeping the flags and the uncovered
+     * cells, such as for a game whose mines are not generated yet but that the
+     * player has already flagged.
+     */
+    void clearMines() {
+        for (int k = 0; k < chunks.length; k++) {
+            byte[] chunk = writableChunk(k << CHUNK_SHIFT);
+            for (int offset = 0; offset < chunk.length; offset++) {
+                chunk[offset] &= ~(MINE | CLUE_MASK);
+            }
+        }
+        recountCoveredSafeCells();
+    }
+
+    /**
+     * Sets the clue number of every cell without a mine to the number of mines
+     * around it. The mines of each row are summed across three columns first, so
+     * every cell is visited a constant number of times no matter how many mines
+     * there are.
+     */
+    void recomputeClueNumbers() {
+        // horizontal sums of mines over columns j-1..j+1 for the rows around row i
+        byte[] above = new byte[width], current = new byte[width], below = new byte[width];
+        byte[] mines = new byte[width + 2]; // mines of one row, padded by a column each side
+        if (height > 0) {
+            sumRowMines(0, mines, current);
+        }
+        for (int i = 0; i < height; i++) {
+            if (i + 1 < height) {
+                sumRowMines(i + 1, mines, below);
+            } else {
+                Arrays.fill(below, (byte) 0);
+            }
+            writeClueRow(i, above, current, below);
+            byte[] recycled = above;
+            above = current;
+            current = below;
+            below = recycled;
+        }
+    }
+
+    /**
+     * Sets the clue numbers of a row from the mine sums of it and its neighbouring
+     * rows.
+     *
+     * @param i       The row to set.
+     * @param above   The mine sums of the row above.
+     * @param current The mine sums of the row.
+     * @param below   The mine sums of the row below.
+     */
+    private void writeClueRow(int i, byte[] above, byte[] current, byte[] below) {
+        for (int j = 0, index = i * width; j < width; ) {
+            // the part of the row in one chunk
+            byte[] chunk = writableChunk(index);
+            int offset = index & CHUNK_MASK;
+            int end = Math.min(width, j + CHUNK_SIZE - offset);
+            for (; j < end; j++, offset++) {
+                int cell = chunk[offset] & ~CLUE_MASK;
+                int notMine = ((cell & MINE) >>> 4) - 1; // all ones if there is no mine
+                chunk[offset] = (byte) (cell | ((above[j] + current[j] + below[j]) & notMine));
+            }
+            index = i * width + j;
+        }
+    }
+
+    /**
+     * Sums the mines of a row over each window of three columns.
+     *
+     * @param i     The row to sum.
+     * @param mines A scratch array two longer than the width of the board.
+     * @param sums  The array to write the sum centered on each column to.
+     */
+    private void sumRowMines(int i, byte[] mines, byte[] sums) {
+        int rowStart = i * width;
+        for (int j = 0; j < width; j++) {
+            mines[j + 1] = (byte) ((getCell(rowStart + j) & MINE) >>> 4);
+        }
+        for (int j = 0; j < width; j++) {
+            sums[j] = (byte) (mines[j] + mines[j + 1] + mines[j + 2]);
+        }
+    }
+
+    /**
+     * Checks whether any cell without a mine is still covered. This runs in
+     * constant time.
+     *
+     * @return True if there is a covered cell that does not have a mine.
+     */
+    public boolean hasCoveredSafeCell() {
+        return coveredSafeCells > 0;
+    }
+
+    /**
+     * @return The number of covered cells that do not have a mine.
+     */
+    public int getCoveredSafeCellCount() {
+        return coveredSafeCells;
+    }
+
+    /**
+     * Sets the count of covered cells without a mine by scanning the whole board,
+     * after cells were overwritten.
+     */
+    void recountCoveredSafeCells() {
+        coveredSafeCells = countCoveredSafeCells();
+    }
+
+    /**
+     * Counts the covered cells without a mine by scanning the whole board. Used to
+     * check the maintained count.
+     *
+     * @return The number of covered cells that do not have a mine.
+     */
+    int countCoveredSafeCells() {
+        int count = 0;
+        for (byte[] chunk : chunks) {
+            for (byte cell : chunk) {
+                // adds one exactly when neither bit is set
+                count += ((cell & (UNCOVERED | MINE)) - 1) >>> 31;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Gets the legacy CSV save file representation of a cell.
+     *
+     * @param index The index of the cell.
+     * @return The cell's state as a string of flags and its clue number.
+     */
+    public String cellToString(int index) {
+        StringBuilder sb = new StringBuilder();
+        int cell = getCell(index);
+        if ((cell & UNCOVERED) != 0) {
+            sb.append('u');
+        }
+        if ((cell & MINE) != 0) {
+            sb.append('m');
+        }
+        if ((cell & FLAG) != 0) {
+            sb.append('f');
+        }
+        if ((cell & CLUE_MASK) != 0) {
+            sb.append(cell & CLUE_MASK);
+        }
+        return sb.toString();
+    }
+}
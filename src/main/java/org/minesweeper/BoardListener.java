@@ -0,0 +1,15 @@
+package org.minesweeper;
+
+/**
+ * This is notified of the tiles each action on a game changed.
+ */
+@FunctionalInterface
+public interface BoardListener {
+    /**
+     * Called after an action changed some tiles of the game's board. Not called
+     * for actions that changed nothing.
+     *
+     * @param changes The tiles changed.
+     */
+    void boardChanged(ChangeSet changes);
+}
@@ -0,0 +1,229 @@
+package org.minesweeper;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This keeps a bounded number of boards with their mines already placed, so a
+ * new game can start without generating mines. A background thread fills the
+ * pool for the current size and mine count, and waits while the pool is full.
+ * <p>
+ * Mines are placed on the whole board ahead of time, so the first turn of a
+ * game started from the pool only moves the few mines around the first tile
+ * clicked. Changing the settings throws away every board made for the old
+ * ones, and the thread stops placing mines on a board for the old settings.
+ * <p>
+ * A board takes a byte per tile, so besides the most boards it holds, the pool
+ * keeps no more boards than fit in a byte budget, and at least one. A pool of
+ * small boards holds its full capacity, while a pool of huge boards holds one.
+ */
+public class BoardPool implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 4;
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    private static final long OFFER_WAIT_MILLIS = 100; // how often a full pool checks settings
+
+    private final BlockingQueue<PreparedBoard> boards;
+    private final int capacity;
+    private final long maxBytes;
+    private final Thread producer;
+    private volatile Settings settings;
+    private volatile boolean closed;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder produced = new LongAdder();
+
+    /**
+     * A board whose mines are placed and whose first tile is not yet known.
+     *
+     * @param board     The board, with mines and clue numbers set.
+     * @param mineCount The number of mines on the board.
+     * @param seed      The seed the mines were placed from.
+     */
+    public record PreparedBoard(Board board, int mineCount, long seed) {
+    }
+
+    /**
+     * The settings boards are made for. The version tells boards made for
+     * earlier settings apart, even when the sizes are the same.
+     *
+     * @param capacity The most boards of this size kept ready at once.
+     */
+    private record Settings(int gridWidth, int gridHeight, int mineCount, long version,
+            int capacity) {
+    }
+
+    /**
+     * Creates a pool holding up to {@link #DEFAULT_CAPACITY} boards and
+     * {@link #DEFAULT_MAX_BYTES} bytes of boards.
+     *
+     * @param gridWidth  The width of the boards in tiles.
+     * @param gridHeight The height of the boards in tiles.
+     * @param mineCount  The number of mines on each board.
+     */
+    public BoardPool(int gridWidth, int gridHeight, int mineCount) {
+        this(gridWidth, gridHeight, mineCount, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a pool holding up to {@link #DEFAULT_MAX_BYTES} bytes of boards.
+     *
+     * @param gridWidth  The width of the boards in tiles.
+     * @param gridHeight The height of the boards in tiles.
+     * @param mineCount  The number of mines on each board.
+     * @param capacity   The most boards kept ready at once.
+     */
+    public BoardPool(int gridWidth, int gridHeight, int mineCount, int capacity) {
+        this(gridWidth, gridHeight, mineCount, capacity, DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates a pool.
+     *
+     * @param gridWidth  The width of the boards in tiles.
+     * @param gridHeight The height of the boards in tiles.
+     * @param mineCount  The number of mines on each board.
+     * @param capacity   The most boards kept ready at once.
+     * @param maxBytes   The most bytes of boards kept ready at once, though one
+     *                   board is always kept however large it is.
+     */
+    public BoardPool(int gridWidth, int gridHeight, int mineCount, int capacity,
+            long maxBytes) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        Minesweeper.checkSettings(gridWidth, gridHeight, mineCount);
+        this.capacity = capacity;
+        this.maxBytes = maxBytes;
+        boards = new ArrayBlockingQueue<>(capacity);
+        settings = new Settings(gridWidth, gridHeight, mineCount, 0,
+                capacityFor(gridWidth, gridHeight));
+        producer = new Thread(this::produce, "minesweeper-board-pool");
+        producer.setDaemon(true);
+        producer.start();
+    }
+
+    /**
+     * Changes the size and mine count of the boards made. Boards made for other
+     * settings are thrown away. Does nothing if the settings are unchanged.
+     *
+     * @param gridWidth  The width of the boards in tiles.
+     * @param gridHeight The height of the boards in tiles.
+     * @param mineCount  The number of mines on each board.
+     */
+    public synchronized void configure(int gridWidth, int gridHeight, int mineCount) {
+        Minesweeper.checkSettings(gridWidth, gridHeight, mineCount);
+        Settings current = settings;
+        if (current.gridWidth() == gridWidth && current.gridHeight() == gridHeight
+                && current.mineCount() == mineCount) {
+            return;
+        }
+        settings = new Settings(gridWidth, gridHeight, mineCount, current.version() + 1,
+                capacityFor(gridWidth, gridHeight));
+        boards.clear();
+        LockSupport.unpark(producer); // start on the new settings if waiting
+    }
+
+    /**
+     * Gets how many boards of a size the pool keeps ready.
+     *
+     * @param gridWidth  The width of the boards in tiles.
+     * @param gridHeight The height of the boards in tiles.
+     * @return The capacity of the pool, cut to fit the byte budget but at least
+     *         one.
+     */
+    private int capacityFor(int gridWidth, int gridHeight) {
+        long boardBytes = (long) gridWidth * gridHeight;
+        return (int) Math.max(1, Math.min(capacity, maxBytes / boardBytes));
+    }
+
+    /**
+     * Takes a board from the pool without waiting.
+     *
+     * @return A board for the current settings, or null if none is ready.
+     */
+    public PreparedBoard poll() {
+        Settings current = settings;
+        PreparedBoard prepared;
+        while ((prepared = boards.poll()) != null) {
+            Board board = prepared.board();
+            if (board.getWidth() == current.gridWidth()
+                    && board.getHeight() == current.gridHeight()
+                    && prepared.mineCount() == current.mineCount()) {
+                hits.increment();
+                LockSupport.unpark(producer); // there is room for another board
+                return prepared;
+            }
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Makes boards until the pool is closed, waiting while the pool is full. A
+     * board is given up as soon as the settings change or the pool is closed,
+     * even halfway through placing its mines.
+     */
+    private void produce() {
+        while (!closed) {
+            Settings current = settings;
+            long seed = ThreadLocalRandom.current().nextLong();
+            Board board = new Board(current.gridWidth(), current.gridHeight());
+            if (!Minesweeper.placeMines(board, current.mineCount(), seed,
+                    () -> closed || settings != current)) {
+                continue;
+            }
+            PreparedBoard prepared = new PreparedBoard(board, current.mineCount(), seed);
+            produced.increment();
+            while (!closed && settings == current) {
+                if (boards.size() < current.capacity() && boards.offer(prepared)) {
+                    break;
+                }
+                LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(OFFER_WAIT_MILLIS));
+            }
+        }
+    }
+
+    /**
+     * @return The number of boards ready in the pool.
+     */
+    public int size() {
+        return boards.size();
+    }
+
+    /**
+     * @return The number of times a board was taken from the pool.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of times the pool had no board ready.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of boards made, including those thrown away.
+     */
+    public long getBoardsProduced() {
+        return produced.sum();
+    }
+
+    /**
+     * Stops making boards and empties the pool.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(producer);
+        boards.clear();
+    }
+}
@@ -0,0 +1,122 @@
+package org.minesweeper;
+
+/**
+ * This is the set of tiles an action on a game changed, so that views only need
+ * to redraw those tiles. Along with the tiles it keeps the smallest block of
+ * rows and columns holding them. Some actions, such as a reset, change the
+ * whole board, in which case no tiles are listed.
+ */
+public final class ChangeSet {
+    private static final int[] NO_CELLS = new int[0];
+
+    private final int[] cells; // never modified once the change set is made
+    private final boolean wholeBoard;
+    private final int top, left, bottom, right;
+
+    private ChangeSet(int[] cells, boolean wholeBoard, int top, int left, int bottom, int right) {
+        this.cells = cells;
+        this.wholeBoard = wholeBoard;
+        this.top = top;
+        this.left = left;
+        this.bottom = bottom;
+        this.right = right;
+    }
+
+    /**
+     * Creates a change set for some tiles of a board.
+     *
+     * @param board The board the tiles are on.
+     * @param cells The indices of the tiles changed. The array is kept rather than
+     *              copied, so it must not be modified afterwards.
+     * @return The change set.
+     */
+    static ChangeSet of(Board board, int[] cells) {
+        int top = Integer.MAX_VALUE, left = Integer.MAX_VALUE;
+        int bottom = Integer.MIN_VALUE, right = Integer.MIN_VALUE;
+        int width = board.getWidth();
+        for (int cell : cells) {
+            int i = cell / width, j = cell - i * width;
+            top = Math.min(top, i);
+            bottom = Math.max(bottom, i);
+            left = Math.min(left, j);
+            right = Math.max(right, j);
+        }
+        return new ChangeSet(cells, false, top, left, bottom, right);
+    }
+
+    /**
+     * Creates a change set for every tile of a board.
+     *
+     * @param board The board that changed.
+     * @return The change set.
+     */
+    static ChangeSet wholeBoard(Board board) {
+        return new ChangeSet(
+                NO_CELLS, true, 0, 0, board.getHeight() - 1, board.getWidth() - 1
+        );
+    }
+
+    /**
+     * @return True if every tile of the board may have changed.
+     */
+    public boolean isWholeBoard() {
+        return wholeBoard;
+    }
+
+    /**
+     * @return True if no tile changed.
+     */
+    public boolean isEmpty() {
+        return !wholeBoard && cells.length == 0;
+    }
+
+    /**
+     * @return The number of tiles listed, which is 0 for the whole board.
+     */
+    public int size() {
+        return cells.length;
+    }
+
+    /**
+     * @param k The position of the tile in the change set.
+     * @return The index on the board of the k-th tile changed.
+     */
+    public int get(int k) {
+        return cells[k];
+    }
+
+    /**
+     * @return A copy of the indices on the board of the tiles changed.
+     */
+    public int[] toArray() {
+        return cells.clone();
+    }
+
+    /**
+     * @return The first row holding a changed tile.
+     */
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * @return The first column holding a changed tile.
+     */
+    public int getLeft() {
+        return left;
+    }
+
+    /**
+     * @return The last row holding a changed tile.
+     */
+    public int getBottom() {
+        return bottom;
+    }
+
+    /**
+     * @return The last column holding a changed tile.
+     */
+    public int getRight() {
+        return right;
+    }
+}
@@ -0,0 +1,83 @@
+package org.minesweeper;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * These are the Java Flight Recorder events for the paths {@link Metrics}
+ * times, so a recording shows them next to garbage collection and thread
+ * activity. The events are only committed while metrics are enabled, and cost
+ * little more than a check while no recording is running. Each event is
+ * committed when its path finishes, with the time it took as a field.
+ */
+final class GameEvents {
+    private GameEvents() {
+    }
+
+    @Name("org.minesweeper.Turn")
+    @Label("Turn Played")
+    @Category("Minesweeper")
+    @StackTrace(false)
+    static final class Turn extends Event {
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+
+        @Label("Tiles Uncovered")
+        int tilesUncovered;
+
+        @Label("State")
+        String state;
+    }
+
+    @Name("org.minesweeper.MinesPlaced")
+    @Label("Mines Placed")
+    @Category("Minesweeper")
+    @StackTrace(false)
+    static final class MinesPlaced extends Event {
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+
+        @Label("Tiles")
+        int tiles;
+
+        @Label("Mines")
+        int mines;
+    }
+
+    @Name("org.minesweeper.GameSaved")
+    @Label("Game Saved")
+    @Category("Minesweeper")
+    @Description("A game written to a save file or game log")
+    @StackTrace(false)
+    static final class GameSaved extends Event {
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+
+        @Label("Path")
+        String path;
+
+        @Label("Tiles")
+        int tiles;
+    }
+
+    @Name("org.minesweeper.FramePainted")
+    @Label("Frame Painted")
+    @Category("Minesweeper")
+    @StackTrace(false)
+    static final class FramePainted extends Event {
+        @Label("Time")
+        @Timespan(Timespan.NANOSECONDS)
+        long nanos;
+
+        @Label("Tiles Painted")
+        int tiles;
+    }
+}
@@ -0,0 +1,262 @@
+package org.minesweeper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * This plays the moves of a game on a thread of its own, so that generating
+ * mines or uncovering a large region never holds up the thread that asked for
+ * the move, such as the Swing event thread. Moves are run one at a time in the
+ * order they were asked for, with the same rules as playing them directly, and
+ * autosaved to the game's journal.
+ * <p>
+ * Moves asked for while earlier ones are running wait in a queue. Moves in the
+ * queue that cannot change the outcome are dropped: clicking a tile that was
+ * just clicked, flagging a tile twice in a row, and any move before a reset.
+ * Once the queue is empty, the tiles changed by every move run since the last
+ * batch are published as one {@link ChangeBatch}. The batch holds the new
+ * states of those tiles, or a copy of the board when too many changed to list,
+ * so whoever receives it never has to read the live game.
+ */
+public class GameExecutor implements AutoCloseable {
+    // the batch carries a whole copy of the board once this fraction of it changed
+    private static final int WHOLE_BOARD_DIVISOR = 4;
+
+    private final Minesweeper game;
+    private final GameJournal journal;
+    private final BoardPool pool;
+    private final Consumer<ChangeBatch> publisher;
+    private final ExecutorService thread;
+
+    private final ArrayDeque<Move> queue = new ArrayDeque<>(); // guarded by itself
+    private boolean draining; // guarded by queue
+
+    // only used on the game thread
+    private GameState state;
+    private final List<ChangeSet> changes = new ArrayList<>();
+
+    /**
+     * The tiles changed by one or more moves.
+     *
+     * @param board  A board to show in place of the old one, before the cells
+     *               below are applied, or null to keep the old one.
+     * @param cells  The indices of the tiles changed.
+     * @param states The packed states of those tiles, in the same order.
+     * @param state  The state of the game after the moves.
+     */
+    public record ChangeBatch(Board board, int[] cells, byte[] states, GameState state) {
+    }
+
+    private record Move(int type, int i, int j) {
+    }
+
+    private static final int REVEAL = 0, FLAG = 1, RESET = 2, UNDO = 3, REDO = 4;
+
+    /**
+     * Starts the game thread.
+     *
+     * @param game      The game to play, which must not be used by anyone else
+     *                  afterwards.
+     * @param journal   The journal the game is autosaved to.
+     * @param pool      The pool new games are taken from, or null to always
+     *                  generate them.
+     * @param publisher Receives the changes made by the moves, on the game
+     *                  thread.
+     */
+    public GameExecutor(
+            Minesweeper game, GameJournal journal, BoardPool pool, Consumer<ChangeBatch> publisher
+    ) {
+        this.game = game;
+        this.journal = journal;
+        this.pool = pool;
+        this.publisher = publisher;
+        state = game.isFirstTurnTaken() ? GameState.IN_PROGRESS : GameState.NOT_STARTED;
+        game.addBoardListener(changes::add);
+        thread = Executors.newSingleThreadExecutor(runnable -> {
+            Thread gameThread = new Thread(runnable, "minesweeper-game");
+            gameThread.setDaemon(true);
+            return gameThread;
+        });
+    }
+
+    /**
+     * Asks for a tile to be uncovered.
+     *
+     * @param i The row of the tile, with the first row starting at i=0.
+     * @param j The column of the tile, with the first column starting at j=0.
+     */
+    public void reveal(int i, int j) {
+        submit(new Move(REVEAL, i, j));
+    }
+
+    /**
+     * Asks for the flag on a tile to be toggled.
+     *
+     * @param i The row of the tile, with the first row starting at i=0.
+     * @param j The column of the tile, with the first column starting at j=0.
+     */
+    public void toggleFlag(int i, int j) {
+        submit(new Move(FLAG, i, j));
+    }
+
+    /**
+     * Asks for a new game, taken from the pool if it has one ready.
+     */
+    public void reset() {
+        submit(new Move(RESET, 0, 0));
+    }
+
+    /**
+     * Asks for the last move to be undone, even once the game is over. Does
+     * nothing if there is no move to undo.
+     */
+    public void undo() {
+        submit(new Move(UNDO, 0, 0));
+    }
+
+    /**
+     * Asks for the last undone move to be played again. Does nothing if there is
+     * no move to redo.
+     */
+    public void redo() {
+        submit(new Move(REDO, 0, 0));
+    }
+
+    private void submit(Move move) {
+        synchronized (queue) {
+            Move last = queue.peekLast();
+            if (move.type() == RESET) {
+                queue.clear();
+            } else if (move.type() <= FLAG && move.equals(last)) {
+                if (move.type() == FLAG) {
+                    queue.pollLast(); // the two toggles cancel out
+                }
+                return;
+            }
+            queue.add(move);
+            if (!draining) {
+                draining = true;
+                thread.execute(this::drain);
+            }
+        }
+    }
+
+    /**
+     * Runs the queued moves, then publishes what they changed.
+     */
+    private void drain() {
+        while (true) {
+            Move move;
+            synchronized (queue) {
+                move = queue.poll();
+                if (move == null) {
+                    draining = false;
+                    break;
+                }
+            }
+            play(move);
+        }
+        publish();
+    }
+
+    /**
+     * Plays a move, following the rules of the grid: nothing happens once the
+     * game is over, apart from a reset.
+     */
+    private void play(Move move) {
+        if (move.type() == RESET) {
+            journal.discard();
+            BoardPool.PreparedBoard prepared = pool == null ? null : pool.poll();
+            if (prepared == null || !game.reset(prepared)) {
+                game.reset();
+            }
+            state = GameState.NOT_STARTED;
+            return;
+        }
+        if (move.type() == UNDO || move.type() == REDO) {
+            if (move.type() == UNDO ? !game.canUndo() : !game.canRedo()) {
+                return;
+            }
+            state = move.type() == UNDO ? game.undo() : game.redo();
+
+            // the journal only follows moves forward, so it starts again from here
+            if (state == GameState.LOST || state == GameState.WON) {
+                journal.discard();
+            } else {
+                journal.begin(game);
+            }
+            return;
+        }
+        if (state == GameState.WON || state == GameState.LOST) {
+            return;
+        }
+        if (move.type() == REVEAL) {
+            // start autosaving from the state before the first turn
+            if (!journal.isRecording()) {
+                journal.begin(game);
+            }
+            state = game.playTurn(move.i(), move.j());
+
+            // deletes save if game is over
+            if (state == GameState.LOST || state == GameState.WON) {
+                journal.discard();
+            } else {
+                journal.recordTurn(game, move.i(), move.j());
+            }
+        } else {
+            game.toggleTileFlag(move.i(), move.j());
+            journal.recordFlag(game, move.i(), move.j());
+        }
+    }
+
+    /**
+     * Publishes the tiles changed since the last batch, reading their states
+     * once every queued move has run.
+     */
+    private void publish() {
+        Board board = game.getBoard();
+        Board replacement = null;
+        int start = 0, count = 0;
+        boolean wholeBoard = false; // set by a reset or an undo
+        for (ChangeSet set : changes) {
+            wholeBoard |= set.isWholeBoard();
+            count += set.isWholeBoard() ? 0 : set.size();
+        }
+        if (wholeBoard || state == GameState.LOST || count > board.size() / WHOLE_BOARD_DIVISOR) {
+            // the mines are shown once the game is lost, and copying takes constant time
+            replacement = board.copy();
+            start = changes.size();
+            count = 0;
+        }
+
+        int[] cells = new int[count];
+        byte[] states = new byte[count];
+        for (int k = start, n = 0; k < changes.size(); k++) {
+            ChangeSet set = changes.get(k);
+            for (int c = 0; c < set.size(); c++, n++) {
+                cells[n] = set.get(c);
+                states[n] = board.getCell(cells[n]);
+            }
+        }
+        changes.clear();
+        publisher.accept(new ChangeBatch(replacement, cells, states, state));
+    }
+
+    /**
+     * Finishes every move asked for, then stops the game thread.
+     */
+    @Override
+    public void close() {
+        thread.shutdown();
+        try {
+            thread.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
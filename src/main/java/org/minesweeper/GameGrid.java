@@ -2,89 +2,270 @@ package org.minesweeper;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.InputEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
 import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
 
 /**
  * This class is both the view and the controller for the minesweeper game. It
  * is
  * responsible for rendering the game's graphics as well as updating the game's
  * model and graphics according to player input.
+ * <p>
+ * The grid is meant to be shown in a {@link JScrollPane}, and only paints the
+ * tiles in view, so the cost of painting does not grow with the size of the
+ * minefield. Holding control while turning the mouse wheel zooms in and out
+ * around the mouse.
+ * <p>
+ * Moves are played by a {@link GameExecutor} on its own thread, so the window
+ * stays responsive while mines are generated or a large region is uncovered.
+ * The grid paints from its own copy of the board, which it updates from the
+ * batches of changes the game thread sends back.
  */
-public class GameGrid extends JPanel {
+public class GameGrid extends JPanel implements Scrollable {
 
-    private final Minesweeper minesweeper; // game model
-    private GameState gameState; // current game state
+    private GameExecutor executor; // plays the game model off the event thread, once loaded
+    private Board view; // what the player sees, only touched on the event thread
+    private GameState gameState; // current game state as shown
     private final JLabel statusText; // text that displays game state
+    private final GameJournal journal; // autosaves the game in the background
+    private BoardPool pool; // boards made ahead for the next game
+    private SwingWorker<Minesweeper, Void> loader; // loads the autosaved game, if used
+    private boolean closed; // set once the game has been saved for the last time
+
+    // startup times in milliseconds since the virtual machine started, or -1
+    private long firstPaintMillis = -1, interactiveMillis = -1;
+    private final ArrayDeque<GameExecutor.ChangeBatch> batches = new ArrayDeque<>();
+    private int batchProgress; // cells of the first batch already shown
+    private TileSprites sprites; // drawn on first paint and when the tile size changes
+    private final Rectangle clip = new Rectangle(); // reused so painting does not allocate
+    private int tileSize = TILE_SIDE_LENGTH; // current zoom
 
     // Game constants
     public static final int GRID_WIDTH = 10; // width of grid in tiles
     public static final int GRID_HEIGHT = 10; // height of grid in tiles
     public static final int MINE_COUNT = 10;
     public static final int TILE_SIDE_LENGTH = 20; // dimensions of tile in px
-    public static final String GAME_SAVE_FILENAME = "files/MinesweeperGameSave.csv";
+    public static final int MIN_TILE_SIDE_LENGTH = 4; // most zoomed out
+    public static final int MAX_TILE_SIDE_LENGTH = 64; // most zoomed in
+    public static final int MAX_VIEWPORT_TILES = 40; // tiles shown across before scrolling
+    public static final int CELLS_PER_FRAME = 1 << 16; // how fast large reveals are shown
+    public static final String GAME_SAVE_FILENAME = "files/MinesweeperGameSave.bin";
+    public static final String JOURNAL_FILENAME = "files/MinesweeperGameSave.journal";
+    public static final String LEGACY_GAME_SAVE_FILENAME = "files/MinesweeperGameSave.csv";
+    public static final String PRINT_STARTUP_PROPERTY = "minesweeper.printStartupTimes";
 
     /**
-     * Initializes the game grid
+     * Initializes the game grid. The autosaved game is loaded in the background,
+     * and the grid shows that it is loading until then.
      */
     public GameGrid(JLabel initStatusText) {
+        this(
+                initStatusText,
+                new GameJournal(Path.of(GAME_SAVE_FILENAME), Path.of(JOURNAL_FILENAME))
+        );
+
+        // resumes the autosaved game if there is one
+        loader = new SwingWorker<>() {
+            @Override
+            protected Minesweeper doInBackground() {
+                return loadGame(journal);
+            }
+
+            @Override
+            protected void done() {
+                if (!closed) {
+                    play(loadedGame(this));
+                }
+            }
+        };
+        loader.execute();
+    }
+
+    /**
+     * Initializes the game grid with a game that has already been set up. The
+     * grid is sized to fit the minefield of the game, and the game is only used
+     * by the game thread afterwards.
+     *
+     * @param initStatusText The label that displays the game state.
+     * @param minesweeper    The game to display.
+     * @param journal        The journal that autosaves the game.
+     */
+    GameGrid(JLabel initStatusText, Minesweeper minesweeper, GameJournal journal) {
+        this(initStatusText, journal);
+        play(minesweeper);
+    }
+
+    // sets up a grid that shows it is loading until it is given a game
+    private GameGrid(JLabel initStatusText, GameJournal journal) {
         setBorder(BorderFactory.createLineBorder(Color.BLACK));
 
         // Enable keyboard focus on grid area.
         setFocusable(true);
         statusText = initStatusText;
+        this.journal = journal;
 
-        // check if there is a saved game
-        File gameSave = new File(GAME_SAVE_FILENAME);
-
-        if (gameSave.exists()) {
-            minesweeper = new Minesweeper(GAME_SAVE_FILENAME);
-            gameState = GameState.IN_PROGRESS;
-        } else {
-            minesweeper = new Minesweeper(GRID_WIDTH, GRID_HEIGHT, MINE_COUNT);
-            gameState = GameState.NOT_STARTED;
-        }
-
-        addMouseListener(new MouseAdapter() {
+        MouseAdapter mouseAdapter = new MouseAdapter() {
             @Override
             public void mouseReleased(MouseEvent e) {
-                if (gameState != GameState.WON) {
+                if (executor != null && gameState != GameState.WON) {
                     Point p = e.getPoint();
 
-                    // updates game model and state with tile clicked by mouse
-                    int iTile = p.y / TILE_SIDE_LENGTH, jTile = p.x / TILE_SIDE_LENGTH;
-                    if (iTile >= 0 && iTile < GRID_HEIGHT && jTile >= 0 && jTile < GRID_WIDTH
-                            && gameState != GameState.LOST) {
+                    // sends the tile clicked by mouse to the game thread
+                    int iTile = Math.floorDiv(p.y, tileSize);
+                    int jTile = Math.floorDiv(p.x, tileSize);
+                    if (iTile >= 0 && iTile < view.getHeight() && jTile >= 0
+                            && jTile < view.getWidth() && gameState != GameState.LOST) {
                         if (SwingUtilities.isLeftMouseButton(e)) {
-                            gameState = minesweeper.playTurn(iTile, jTile);
-
-                            // deletes save if game is lost
-                            if (gameState == GameState.LOST && gameSave.exists()) {
-                                if (!gameSave.delete()) {
-                                    throw new RuntimeException(
-                                            "Failed to delete file: " + GAME_SAVE_FILENAME
-                                    );
-                                }
-                            }
+                            executor.reveal(iTile, jTile);
                         } else if (SwingUtilities.isRightMouseButton(e)) {
-                            minesweeper.toggleTileFlag(iTile, jTile);
+                            executor.toggleFlag(iTile, jTile);
                         }
                     }
+                }
+            }
 
-                    updateStatusText();
-                    repaint();
+            @Override
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                if ((e.getModifiersEx() & InputEvent.CTRL_DOWN_MASK) != 0) {
+                    zoom(-e.getWheelRotation(), e.getPoint());
+                } else if (getParent() != null) {
+                    // let the scroll pane scroll as it would without this listener
+                    getParent().dispatchEvent(SwingUtilities.convertMouseEvent(
+                            GameGrid.this, e, getParent()
+                    ));
                 }
             }
-        });
+        };
+        addMouseListener(mouseAdapter);
+        addMouseWheelListener(mouseAdapter);
+    }
+
+    /**
+     * Starts showing and playing a game.
+     * 
+     * @param minesweeper The game to play.
+     */
+    private void play(Minesweeper minesweeper) {
+        minesweeper.setUndoEnabled(true);
+        view = minesweeper.getBoard().copy();
+        pool = new BoardPool(
+                minesweeper.getGridWidth(), minesweeper.getGridHeight(),
+                minesweeper.getMineCount()
+        );
+        gameState = minesweeper.isFirstTurnTaken() ? GameState.IN_PROGRESS
+                : GameState.NOT_STARTED;
+        executor = new GameExecutor(
+                minesweeper, journal, pool,
+                batch -> SwingUtilities.invokeLater(() -> showBatch(batch))
+        );
+        interactiveMillis = millisSinceStart();
+        if (Boolean.getBoolean(PRINT_STARTUP_PROPERTY)) {
+            System.out.println(
+                    "First paint after " + firstPaintMillis + " ms, interactive after "
+                            + interactiveMillis + " ms"
+            );
+        }
+
+        updateStatusText();
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Gets the game loaded in the background, or a new game if loading failed.
+     * 
+     * @param loader The finished loader.
+     * @return The game to play.
+     */
+    private static Minesweeper loadedGame(SwingWorker<Minesweeper, Void> loader) {
+        try {
+            return loader.get();
+        } catch (ExecutionException e) {
+            System.err.println("An error occurred while loading the game: " + e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new Minesweeper(GRID_WIDTH, GRID_HEIGHT, MINE_COUNT);
+    }
+
+    private static long millisSinceStart() {
+        return ManagementFactory.getRuntimeMXBean().getUptime();
+    }
+
+    /**
+     * @return The time from the start of the virtual machine to the first paint
+     *         of the grid in milliseconds, or -1 if it has not been painted yet.
+     */
+    public long getTimeToFirstPaintMillis() {
+        return firstPaintMillis;
+    }
+
+    /**
+     * @return The time from the start of the virtual machine until the grid
+     *         accepted moves in milliseconds, or -1 if the game is still loading.
+     */
+    public long getTimeToInteractiveMillis() {
+        return interactiveMillis;
+    }
+
+    /**
+     * Loads the autosaved game, falling back to a legacy CSV save and then to a
+     * new game.
+     *
+     * @param journal The journal the game is autosaved to.
+     * @return The game to play.
+     */
+    private static Minesweeper loadGame(GameJournal journal) {
+        Minesweeper recovered = journal.recover();
+        if (recovered != null) {
+            return recovered;
+        }
+
+        File legacyGameSave = new File(LEGACY_GAME_SAVE_FILENAME);
+        if (legacyGameSave.exists()) {
+            Minesweeper migrated = new Minesweeper(LEGACY_GAME_SAVE_FILENAME);
+
+            // migrate the legacy save once its snapshot is written
+            journal.begin(migrated);
+            journal.flush();
+            deleteSave(legacyGameSave);
+            return migrated;
+        }
+        return new Minesweeper(GRID_WIDTH, GRID_HEIGHT, MINE_COUNT);
     }
 
     /**
-     * Saves the minesweeper game if it is in progress.
+     * Finishes autosaving the minesweeper game. Every move of a game in progress
+     * is recorded as it is played, so this only waits for the moves asked for to
+     * be played, stops the board pool and waits for the background writer.
      */
     public void attemptSaveGame() {
-        if (gameState == GameState.IN_PROGRESS) {
-            minesweeper.saveGame(GAME_SAVE_FILENAME);
+        closed = true;
+        if (executor == null) {
+            // the loader may be writing a migrated save, so let it finish
+            loadedGame(loader);
+        } else {
+            executor.close();
+            pool.close();
+        }
+        journal.close();
+    }
+
+    /**
+     * Deletes a game save if it exists.
+     * 
+     * @param gameSave The game save file.
+     */
+    private static void deleteSave(File gameSave) {
+        if (gameSave.exists() && !gameSave.delete()) {
+            throw new RuntimeException("Failed to delete file: " + gameSave.getPath());
         }
     }
 
@@ -92,15 +273,34 @@ public class GameGrid extends JPanel {
      * (Re)sets the game to its initial state and deletes any previous game save
      */
     public void reset() {
-        minesweeper.reset();
-        gameState = GameState.NOT_STARTED;
-        updateStatusText();
-        repaint();
+        if (executor != null) {
+            executor.reset();
+        }
 
         // Makes sure this component has keyboard/mouse focus
         requestFocusInWindow();
     }
 
+    /**
+     * Undoes the last move, even once the game is over.
+     */
+    public void undo() {
+        if (executor != null) {
+            executor.undo();
+        }
+        requestFocusInWindow();
+    }
+
+    /**
+     * Plays the last undone move again.
+     */
+    public void redo() {
+        if (executor != null) {
+            executor.redo();
+        }
+        requestFocusInWindow();
+    }
+
     /**
      * Called to signify that game has finished initializing.
      */
@@ -111,6 +311,10 @@ public class GameGrid extends JPanel {
     }
 
     public void updateStatusText() {
+        if (executor == null) {
+            statusText.setText("Loading...");
+            return;
+        }
         switch (gameState) {
             case NOT_STARTED -> statusText.setText("Click on the minefield to begin!");
             case IN_PROGRESS -> statusText.setText("Find all the mines!");
@@ -120,89 +324,225 @@ public class GameGrid extends JPanel {
         }
     }
 
+    /**
+     * Queues the changes made by the game thread to be shown in order.
+     * 
+     * @param batch The changes.
+     */
+    private void showBatch(GameExecutor.ChangeBatch batch) {
+        batches.add(batch);
+        if (batches.size() == 1) {
+            showBatches();
+        }
+    }
+
+    /**
+     * Shows up to {@link #CELLS_PER_FRAME} changed tiles, repainting only them,
+     * and leaves the rest for a later event so a large reveal streams in without
+     * holding up the event thread.
+     */
+    private void showBatches() {
+        int budget = CELLS_PER_FRAME;
+        while (budget > 0 && !batches.isEmpty()) {
+            GameExecutor.ChangeBatch batch = batches.peek();
+            if (batchProgress == 0 && batch.board() != null) {
+                view = batch.board();
+                repaint();
+            }
+
+            int[] cells = batch.cells();
+            int end = Math.min(cells.length, batchProgress + budget);
+            int top = Integer.MAX_VALUE, left = Integer.MAX_VALUE;
+            int bottom = Integer.MIN_VALUE, right = Integer.MIN_VALUE;
+            for (int k = batchProgress; k < end; k++) {
+                view.setCell(cells[k], batch.states()[k]);
+                int i = view.row(cells[k]), j = view.column(cells[k]);
+                top = Math.min(top, i);
+                bottom = Math.max(bottom, i);
+                left = Math.min(left, j);
+                right = Math.max(right, j);
+            }
+            if (end > batchProgress) {
+                // one extra pixel covers the grid lines on the right and bottom edges
+                repaint(
+                        left * tileSize, top * tileSize, (right - left + 1) * tileSize + 1,
+                        (bottom - top + 1) * tileSize + 1
+                );
+            }
+            budget -= end - batchProgress;
+            batchProgress = end;
+
+            if (batchProgress == cells.length) {
+                batches.poll();
+                batchProgress = 0;
+                if (batch.state() != gameState) {
+                    gameState = batch.state();
+                    updateStatusText();
+                }
+            }
+        }
+        if (!batches.isEmpty()) {
+            SwingUtilities.invokeLater(this::showBatches);
+        }
+    }
+
     @Override
     public void paintComponent(Graphics g) {
         super.paintComponent(g);
+        if (firstPaintMillis < 0) {
+            firstPaintMillis = millisSinceStart();
+        }
+        if (view == null) {
+            // the game is still loading
+            g.setColor(Color.GRAY);
+            g.drawString("Loading...", tileSize, 2 * tileSize);
+            return;
+        }
+        long start = Metrics.start();
+        int tiles = paintGrid(g, view);
+        if (Metrics.ENABLED) {
+            Metrics.framePainted(start, tiles);
+        }
+    }
 
-        // draw contents of the tiles
-        for (int i = 0; i < GRID_HEIGHT; i++) {
-            for (int j = 0; j < GRID_WIDTH; j++) {
-                Tile target = minesweeper.getTile(i, j);
-                int xStart = j * TILE_SIDE_LENGTH, yStart = i * TILE_SIDE_LENGTH;
-
-                if (target.isCovered()) {
-                    // Color tile background
-                    g.setColor(Color.decode("#BDBDBD"));
-                    g.fillRect(xStart, yStart, TILE_SIDE_LENGTH, TILE_SIDE_LENGTH);
-
-                    if (target.hasFlag()) {
-                        // Draw flag
-                        g.setColor(Color.RED);
-                        g.drawLine(
-                                xStart + 1, yStart + 1, xStart + TILE_SIDE_LENGTH - 1,
-                                yStart + TILE_SIDE_LENGTH - 1
-                        );
-                        g.drawLine(
-                                xStart + 1, yStart + TILE_SIDE_LENGTH - 1,
-                                xStart + TILE_SIDE_LENGTH - 1, yStart + 1
-                        );
-                    }
-
-                    if (target.hasMine() && gameState == GameState.LOST) {
-                        // Color tile background
-                        g.setColor(Color.RED);
-                        g.fillRect(xStart, yStart, TILE_SIDE_LENGTH, TILE_SIDE_LENGTH);
+    /**
+     * Paints the tiles of a board that overlap the clip, and the grid lines
+     * around them.
+     *
+     * @param g     The graphics to paint with.
+     * @param board The board to paint.
+     * @return The number of tiles painted.
+     */
+    private int paintGrid(Graphics g, Board board) {
+        // only the tiles overlapping the clip need to be drawn
+        int gridHeight = board.getHeight(), gridWidth = board.getWidth();
+        clip.setBounds(0, 0, gridWidth * tileSize + 1, gridHeight * tileSize + 1);
+        g.getClipBounds(clip); // left as the whole grid if there is no clip
+        int top = Math.max(clip.y / tileSize, 0);
+        int bottom = Math.min((clip.y + clip.height - 1) / tileSize, gridHeight - 1);
+        int left = Math.max(clip.x / tileSize, 0);
+        int right = Math.min((clip.x + clip.width - 1) / tileSize, gridWidth - 1);
 
-                        // Draw mine
-                        g.setColor(Color.BLACK);
-                        g.fillOval(
-                                xStart + 2, yStart + 2, TILE_SIDE_LENGTH - 4, TILE_SIDE_LENGTH - 4
-                        );
-                    }
-                } else {
-                    // Color tile background
-                    g.setColor(Color.decode("#949494"));
-                    g.fillRect(xStart, yStart, TILE_SIDE_LENGTH, TILE_SIDE_LENGTH);
-
-                    int clue = target.getClueNumber();
-
-                    // Draw clue number
-                    if (clue != 0) {
-                        switch (clue) {
-                            case 1 -> g.setColor(Color.BLUE);
-                            case 2 -> g.setColor(Color.decode("#417F24"));
-                            case 3 -> g.setColor(Color.RED);
-                            case 4 -> g.setColor(Color.decode("#12087E"));
-                            case 5 -> g.setColor(Color.decode("#72150D"));
-                            case 6 -> g.setColor(Color.decode("#458083"));
-                            case 7 -> g.setColor(Color.decode("#74197F"));
-                            case 8 -> g.setColor(Color.ORANGE);
-                            default -> throw new IllegalStateException("Unexpected clue: " + clue);
-                        }
-                        g.setFont(new Font("TimesRoman", Font.BOLD, 16));
-                        g.drawString(
-                                String.valueOf(clue), xStart + 7, yStart + TILE_SIDE_LENGTH - 4
-                        );
-                    }
-                }
+        // copy the look of each tile from the sprites
+        if (sprites == null || sprites.getTileSize() != tileSize) {
+            sprites = new TileSprites(tileSize);
+        }
+        boolean lost = gameState == GameState.LOST;
+        for (int i = top; i <= bottom; i++) {
+            for (int j = left; j <= right; j++) {
+                int appearance = TileSprites.appearance(board, board.index(i, j), lost);
+                sprites.paintTile(g, appearance, j * tileSize, i * tileSize);
             }
         }
 
-        // draw the minefield grid
+        // draw the minefield grid lines bordering those tiles
+        if (top > bottom || left > right) {
+            return 0;
+        }
         g.setColor(Color.BLACK);
-        for (int i = 0; i <= GRID_HEIGHT; i++) {
-            int y = i * TILE_SIDE_LENGTH;
-            g.drawLine(0, y, GRID_WIDTH * TILE_SIDE_LENGTH, y);
+        int xStart = left * tileSize, xEnd = (right + 1) * tileSize;
+        int yStart = top * tileSize, yEnd = (bottom + 1) * tileSize;
+        for (int i = top; i <= bottom + 1; i++) {
+            int y = i * tileSize;
+            g.drawLine(xStart, y, xEnd, y);
         }
 
-        for (int i = 0; i <= GRID_WIDTH; i++) {
-            int x = i * TILE_SIDE_LENGTH;
-            g.drawLine(x, 0, x, GRID_HEIGHT * TILE_SIDE_LENGTH);
+        for (int j = left; j <= right + 1; j++) {
+            int x = j * tileSize;
+            g.drawLine(x, yStart, x, yEnd);
         }
+        return (bottom - top + 1) * (right - left + 1);
+    }
+
+    /**
+     * Zooms in or out by a number of steps, keeping the tile under a point of the
+     * grid in place on screen.
+     * 
+     * @param steps  The number of steps to zoom in, or out if negative.
+     * @param anchor The point of the grid that stays in place.
+     */
+    public void zoom(int steps, Point anchor) {
+        int oldTileSize = tileSize;
+        double factor = Math.pow(1.25, steps);
+        setTileSize((int) Math.round(oldTileSize * factor));
+        if (tileSize == oldTileSize) {
+            return;
+        }
+
+        // move the view so the anchor is where it was within the viewport
+        JViewport viewport = (JViewport) SwingUtilities.getAncestorOfClass(JViewport.class, this);
+        if (viewport != null) {
+            Point view = viewport.getViewPosition();
+            int x = (int) ((long) anchor.x * tileSize / oldTileSize) - (anchor.x - view.x);
+            int y = (int) ((long) anchor.y * tileSize / oldTileSize) - (anchor.y - view.y);
+            setSize(getPreferredSize());
+            Dimension extent = viewport.getExtentSize();
+            viewport.setViewPosition(new Point(
+                    Math.max(0, Math.min(x, getWidth() - extent.width)),
+                    Math.max(0, Math.min(y, getHeight() - extent.height))
+            ));
+        }
+    }
+
+    /**
+     * Sets the width and height the tiles are drawn at, between
+     * {@link #MIN_TILE_SIDE_LENGTH} and {@link #MAX_TILE_SIDE_LENGTH}.
+     * 
+     * @param tileSize The width and height of a tile in pixels.
+     */
+    public void setTileSize(int tileSize) {
+        tileSize = Math.max(MIN_TILE_SIDE_LENGTH, Math.min(tileSize, MAX_TILE_SIDE_LENGTH));
+        if (tileSize != this.tileSize) {
+            this.tileSize = tileSize;
+            revalidate();
+            repaint();
+        }
+    }
+
+    /**
+     * @return The width and height the tiles are drawn at, in pixels.
+     */
+    public int getTileSize() {
+        return tileSize;
     }
 
     @Override
     public Dimension getPreferredSize() {
-        return new Dimension(GRID_WIDTH * TILE_SIDE_LENGTH, GRID_HEIGHT * TILE_SIDE_LENGTH);
+        // the extra pixel shows the grid lines on the right and bottom edges
+        int width = view == null ? GRID_WIDTH : view.getWidth();
+        int height = view == null ? GRID_HEIGHT : view.getHeight();
+        return new Dimension(width * tileSize + 1, height * tileSize + 1);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        Dimension preferred = getPreferredSize();
+        return new Dimension(
+                Math.min(preferred.width, MAX_VIEWPORT_TILES * TILE_SIDE_LENGTH),
+                Math.min(preferred.height, MAX_VIEWPORT_TILES * TILE_SIDE_LENGTH)
+        );
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return tileSize;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        // keeps one row or column of tiles in view when scrolling by a page
+        int extent = orientation == SwingConstants.VERTICAL ? visibleRect.height
+                : visibleRect.width;
+        return Math.max(extent - tileSize, tileSize);
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return false;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return false;
     }
 }
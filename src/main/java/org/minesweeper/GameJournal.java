@@ -0,0 +1,401 @@
+package org.minesweeper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * This class autosaves a game of Minesweeper in the background. The game is
+ * stored as a snapshot, which is a {@link GameLog} compacted to start from the
+ * latest board snapshot the game took, plus a journal of the turns and flag
+ * toggles made since. Every move is appended to the journal by a background
+ * writer thread, and every {@link #COMPACTION_INTERVAL} moves the journal is
+ * folded into a new snapshot, so neither file grows with the length of the
+ * game.
+ * <p>
+ * Snapshots and fresh journals are written to a temporary file and then
+ * atomically renamed over the old one, so a crash never leaves a half written
+ * file in place. The journal starts with the header of the snapshot it follows
+ * and every record carries a checksum, so a journal left over from an older
+ * snapshot or a record torn by a crash is ignored on recovery.
+ * <p>
+ * The methods of this class are meant to be called from the thread that plays
+ * the game. Snapshots are taken from a copy of the board, so the writer thread
+ * never reads the live game.
+ */
+public class GameJournal {
+    static final int MAGIC = 0x4D534A4C; // "MSJL" in ASCII
+    static final int HEADER_SIZE = 4 + GameSave.HEADER_SIZE;
+    static final int RECORD_SIZE = 13; // type, row, column and checksum
+    static final byte TURN = 1;
+    static final byte FLAG = 2;
+
+    public static final int COMPACTION_INTERVAL = 256; // moves between snapshots
+
+    private final Path snapshotPath, journalPath;
+    private final int compactionInterval;
+    private final ExecutorService writer;
+
+    // owned by the thread playing the game
+    private boolean recording;
+    private int recordsSinceSnapshot;
+
+    // owned by the writer thread
+    private FileChannel journal;
+
+    /**
+     * Creates a journal that autosaves to the given files.
+     *
+     * @param snapshotPath The path of the snapshot save file.
+     * @param journalPath  The path of the journal file.
+     */
+    public GameJournal(Path snapshotPath, Path journalPath) {
+        this(snapshotPath, journalPath, COMPACTION_INTERVAL);
+    }
+
+    /**
+     * Creates a journal that autosaves to the given files.
+     *
+     * @param snapshotPath       The path of the snapshot save file.
+     * @param journalPath        The path of the journal file.
+     * @param compactionInterval The number of moves between snapshots.
+     */
+    GameJournal(Path snapshotPath, Path journalPath, int compactionInterval) {
+        if (compactionInterval <= 0) {
+            throw new IllegalArgumentException("Compaction interval must be positive");
+        }
+        this.snapshotPath = snapshotPath;
+        this.journalPath = journalPath;
+        this.compactionInterval = compactionInterval;
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "minesweeper-autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return True if moves are being recorded for a game.
+     */
+    public boolean isRecording() {
+        return recording;
+    }
+
+    /**
+     * Recovers the autosaved game from the snapshot and the moves in the journal
+     * that follow it. Recording continues from the recovered game.
+     *
+     * @return The recovered game, or null if there is no autosaved game or the
+     *         snapshot cannot be read.
+     */
+    public Minesweeper recover() {
+        if (!Files.exists(snapshotPath)) {
+            return null;
+        }
+
+        Minesweeper game;
+        byte[] header;
+        try {
+            // snapshots written before game logs were used are full saves
+            if (GameLog.isGameLog(snapshotPath)) {
+                game = GameLog.read(snapshotPath).replay();
+            } else {
+                game = new Minesweeper(GameSave.read(snapshotPath));
+            }
+            header = GameSave.readHeader(snapshotPath);
+        } catch (IOException e) {
+            System.err.println("An error occurred while recovering the game: " + e.getMessage());
+            return null;
+        }
+
+        int replayed = replay(game, header);
+        recording = true;
+        recordsSinceSnapshot = Math.max(replayed, 0);
+        writer.execute(() -> openJournal(header, replayed));
+        return game;
+    }
+
+    /**
+     * Replays the moves in the journal onto a game restored from the snapshot.
+     *
+     * @param game   The game restored from the snapshot.
+     * @param header The header of the snapshot.
+     * @return The number of moves replayed, or -1 if there is no journal for the
+     *         snapshot.
+     */
+    private int replay(Minesweeper game, byte[] header) {
+        ByteBuffer buffer;
+        try {
+            if (!Files.exists(journalPath)) {
+                return -1;
+            }
+            buffer = ByteBuffer.wrap(Files.readAllBytes(journalPath));
+        } catch (IOException e) {
+            System.err.println("An error occurred while reading the journal: " + e.getMessage());
+            return -1;
+        }
+
+        // the journal must follow this snapshot
+        byte[] journalHeader = new byte[GameSave.HEADER_SIZE];
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            return -1;
+        }
+        buffer.get(journalHeader);
+        if (!Arrays.equals(header, journalHeader)) {
+            return -1;
+        }
+
+        // apply records until the end of the journal or a torn record
+        int replayed = 0;
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= RECORD_SIZE) {
+            int start = buffer.position();
+            byte type = buffer.get();
+            int i = buffer.getInt();
+            int j = buffer.getInt();
+            crc.reset();
+            crc.update(buffer.array(), start, RECORD_SIZE - 4);
+            if (buffer.getInt() != (int) crc.getValue()) {
+                break;
+            }
+            try {
+                switch (type) {
+                    case TURN -> game.playTurn(i, j);
+                    case FLAG -> game.toggleTileFlag(i, j);
+                    default -> throw new IllegalStateException("Unexpected record: " + type);
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Stopped replaying the journal: " + e.getMessage());
+                break;
+            }
+            replayed++;
+        }
+        return replayed;
+    }
+
+    /**
+     * Starts recording a game by taking a snapshot of its current state.
+     *
+     * @param game The game to record.
+     */
+    public void begin(Minesweeper game) {
+        recording = true;
+        compact(game);
+    }
+
+    /**
+     * Records a turn that has been played. Does nothing if no game is being
+     * recorded.
+     *
+     * @param game The game the turn was played in.
+     * @param i    The row of the tile clicked.
+     * @param j    The column of the tile clicked.
+     */
+    public void recordTurn(Minesweeper game, int i, int j) {
+        record(game, TURN, i, j);
+    }
+
+    /**
+     * Records a flag toggle. Does nothing if no game is being recorded.
+     *
+     * @param game The game the flag was toggled in.
+     * @param i    The row of the tile.
+     * @param j    The column of the tile.
+     */
+    public void recordFlag(Minesweeper game, int i, int j) {
+        record(game, FLAG, i, j);
+    }
+
+    private void record(Minesweeper game, byte type, int i, int j) {
+        if (!recording) {
+            return;
+        }
+        writer.execute(() -> append(type, i, j));
+        if (++recordsSinceSnapshot >= compactionInterval) {
+            compact(game);
+        }
+    }
+
+    /**
+     * Folds the journal into a new snapshot of the game, which starts from the
+     * latest board snapshot of the game rather than from its first move.
+     *
+     * @param game The game to take a snapshot of.
+     */
+    private void compact(Minesweeper game) {
+        recordsSinceSnapshot = 0;
+        GameLog snapshot = game.toGameLog().compact();
+        writer.execute(() -> writeSnapshot(snapshot));
+    }
+
+    /**
+     * Stops recording and deletes the autosaved game, such as when the game is
+     * over.
+     */
+    public void discard() {
+        recording = false;
+        recordsSinceSnapshot = 0;
+        writer.execute(() -> {
+            closeJournal();
+            try {
+                Files.deleteIfExists(journalPath);
+                Files.deleteIfExists(snapshotPath);
+            } catch (IOException e) {
+                System.err.println("An error occurred while deleting the save: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Waits until everything recorded so far has been written.
+     */
+    public void flush() {
+        try {
+            writer.submit(() -> { }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Autosave writer failed", e.getCause());
+        }
+    }
+
+    /**
+     * Writes everything recorded so far and stops the writer thread.
+     */
+    public void close() {
+        writer.execute(this::closeJournal);
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.err.println("Timed out while finishing the autosave");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /* ==== Writer thread ==== */
+
+    private void append(byte type, int i, int j) {
+        if (journal == null) {
+            return;
+        }
+        ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+        record.put(type).putInt(i).putInt(j);
+        CRC32 crc = new CRC32();
+        crc.update(record.array(), 0, RECORD_SIZE - 4);
+        record.putInt((int) crc.getValue());
+        record.flip();
+        try {
+            while (record.hasRemaining()) {
+                journal.write(record);
+            }
+            journal.force(false);
+        } catch (IOException e) {
+            System.err.println("An error occurred while autosaving: " + e.getMessage());
+        }
+    }
+
+    private void writeSnapshot(GameLog snapshot) {
+        long start = Metrics.start();
+        closeJournal();
+        try {
+            Path temporary = temporaryPath(snapshotPath);
+            snapshot.write(temporary);
+            replace(temporary, snapshotPath);
+            if (Metrics.ENABLED) {
+                Metrics.gameSaved(start, snapshotPath.toString(),
+                        snapshot.width() * snapshot.height());
+            }
+            createJournal(GameSave.readHeader(snapshotPath));
+        } catch (IOException e) {
+            System.err.println("An error occurred while autosaving: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens the journal of a recovered game for appending.
+     *
+     * @param header  The header of the snapshot.
+     * @param records The number of valid records in the journal, or -1 if a new
+     *                journal is needed.
+     */
+    private void openJournal(byte[] header, int records) {
+        try {
+            if (records < 0) {
+                createJournal(header);
+                return;
+            }
+            journal = FileChannel.open(journalPath, StandardOpenOption.WRITE);
+            // drop any torn record left by a crash
+            journal.truncate(HEADER_SIZE + (long) records * RECORD_SIZE);
+            journal.position(journal.size());
+        } catch (IOException e) {
+            System.err.println("An error occurred while opening the journal: " + e.getMessage());
+        }
+    }
+
+    private void createJournal(byte[] header) throws IOException {
+        Path temporary = temporaryPath(journalPath);
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE);
+        buffer.putInt(MAGIC).put(header).flip();
+        try (FileChannel channel = FileChannel.open(
+                temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        replace(temporary, journalPath);
+        journal = FileChannel.open(journalPath, StandardOpenOption.WRITE);
+        journal.position(journal.size());
+    }
+
+    private void closeJournal() {
+        if (journal != null) {
+            try {
+                journal.close();
+            } catch (IOException e) {
+                System.err.println(
+                        "An error occurred while closing the journal: " + e.getMessage()
+                );
+            }
+            journal = null;
+        }
+    }
+
+    static Path temporaryPath(Path path) {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    /**
+     * Renames a file over another, atomically if the file system supports it.
+     *
+     * @param source The file to rename.
+     * @param target The file to replace.
+     * @throws IOException If the file cannot be renamed.
+     */
+    static void replace(Path source, Path target) throws IOException {
+        try {
+            Files.move(
+                    source, target, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE
+            );
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package org.minesweeper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * This is a Minesweeper game stored as the moves played since it started,
+ * rather than as the state of every tile. A game is fully determined by its
+ * settings, its seed and its moves, so replaying the moves rebuilds it exactly,
+ * which also allows replaying a game up to any move for debugging. A game that
+ * was not played from the start, such as one loaded from a snapshot save, keeps
+ * that snapshot as the base its moves are replayed onto.
+ * <p>
+ * A long game also takes a snapshot of its board every so many moves, spaced
+ * so that the snapshots take no more room than the moves between them.
+ * Replaying starts from the latest snapshot at or before the move asked for,
+ * so rebuilding a game only replays the moves since its last snapshot, and
+ * {@link #compact()} drops everything before it.
+ * <p>
+ * The file starts with the same header as a {@link GameSave}, with format
+ * version 2 and the checksum covering everything after the header:
+ *
+ * <pre>
+ * int   move count
+ * int[] moves, encoded as by {@link Minesweeper#encodeMove}
+ * ...   the tile data of the base snapshot, if flag bit 2 is set
+ * int   snapshot count
+ * ...   per snapshot: an int move count, a byte first turn flag and the tile
+ *       data, in the order of the moves they were taken after
+ * </pre>
+ *
+ * Bit 0 of the flags is the first turn flag of the base snapshot. Replaying
+ * costs about as much as decoding a snapshot of the whole board, since every
+ * tile is uncovered at most once, so a log is only a few bytes per move even
+ * for the largest boards.
+ *
+ * @param base      The snapshot the moves are played onto, or null if they are
+ *                  played onto a new game.
+ * @param width     The width of the minefield in tiles.
+ * @param height    The height of the minefield in tiles.
+ * @param mineCount The number of mines in the minefield.
+ * @param seed      The seed the mines are generated from. For games that need no
+ *                  guessing, this is the seed that was found on the first turn.
+ * @param noGuess   Whether the mines are generated so that the game can be
+ *                  cleared without guessing.
+ * @param moves     The encoded moves, in the order they were played.
+ * @param snapshots The snapshots taken partway through the moves, in order.
+ */
+public record GameLog(
+        GameSave base, int width, int height, int mineCount, long seed, boolean noGuess,
+        int[] moves, List<Snapshot> snapshots
+) {
+    static final short VERSION = 2;
+
+    private static final int FLAG_FIRST_TURN_TAKEN = 1;
+    private static final int FLAG_NO_GUESS = 2;
+    private static final int FLAG_BASE = 4;
+    private static final int CRC_OFFSET = 28;
+
+    /**
+     * A copy of the game taken partway through its moves.
+     *
+     * @param moveCount The number of moves played before the snapshot was taken.
+     * @param save      The game after those moves, whose board is never changed.
+     */
+    public record Snapshot(int moveCount, GameSave save) {
+    }
+
+    /**
+     * Rebuilds the game by replaying every move.
+     *
+     * @return The game.
+     */
+    public Minesweeper replay() {
+        return replay(moves.length);
+    }
+
+    /**
+     * Rebuilds the game as it was after some of its moves.
+     *
+     * @param moveCount The number of moves to replay.
+     * @return The game.
+     */
+    public Minesweeper replay(int moveCount) {
+        if (moveCount < 0 || moveCount > moves.length) {
+            throw new IllegalArgumentException("Move count out of range: " + moveCount);
+        }
+        return new Minesweeper(this, moveCount);
+    }
+
+    /**
+     * Gets the snapshot replaying up to a move starts from.
+     *
+     * @param moveCount The number of moves to replay.
+     * @return The latest snapshot taken after at most that many moves, or null
+     *         if there is none and replaying starts from the base.
+     */
+    Snapshot nearestSnapshot(int moveCount) {
+        for (int k = snapshots.size() - 1; k >= 0; k--) {
+            if (snapshots.get(k).moveCount() <= moveCount) {
+                return snapshots.get(k);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets a log that starts from the latest snapshot instead of the base, with
+     * only the moves played since. The compacted log replays to the same game,
+     * but not to moves before the snapshot.
+     *
+     * @return The compacted log, or this log if it has no snapshots.
+     */
+    public GameLog compact() {
+        if (snapshots.isEmpty()) {
+            return this;
+        }
+        Snapshot latest = snapshots.get(snapshots.size() - 1);
+        return new GameLog(
+                latest.save(), width, height, mineCount, seed, noGuess,
+                Arrays.copyOfRange(moves, latest.moveCount(), moves.length), List.of()
+        );
+    }
+
+    /**
+     * Writes the log to a file, replacing the file if it exists and creating its
+     * parent directories if they do not.
+     *
+     * @param path The path of the log file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        long tileSize = ((long) width * height + 1) / 2;
+        long baseSize = base == null ? 0 : tileSize;
+        long fileSize = GameSave.HEADER_SIZE + 4 + 4L * moves.length + baseSize + 4
+                + snapshots.size() * (5 + tileSize);
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new IOException("Game log is too large to write");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) fileSize);
+        buffer.putInt(0, GameSave.MAGIC);
+        buffer.putShort(4, VERSION);
+        buffer.putShort(6, (short) ((base != null && base.firstTurnTaken()
+                ? FLAG_FIRST_TURN_TAKEN : 0) | (noGuess ? FLAG_NO_GUESS : 0)
+                | (base != null ? FLAG_BASE : 0)));
+        buffer.putInt(8, width);
+        buffer.putInt(12, height);
+        buffer.putInt(16, mineCount);
+        buffer.putLong(20, seed);
+
+        buffer.position(GameSave.HEADER_SIZE);
+        buffer.putInt(moves.length);
+        buffer.asIntBuffer().put(moves);
+        buffer.position(buffer.position() + 4 * moves.length);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), GameSave.HEADER_SIZE, buffer.position() - GameSave.HEADER_SIZE);
+        if (base != null) {
+            GameSave.putTiles(base.board(), buffer, crc);
+        }
+        int start = buffer.position();
+        buffer.putInt(snapshots.size());
+        crc.update(buffer.array(), start, 4);
+        for (Snapshot snapshot : snapshots) {
+            start = buffer.position();
+            buffer.putInt(snapshot.moveCount());
+            buffer.put((byte) (snapshot.save().firstTurnTaken() ? FLAG_FIRST_TURN_TAKEN : 0));
+            crc.update(buffer.array(), start, 5);
+            GameSave.putTiles(snapshot.save().board(), buffer, crc);
+        }
+        buffer.putInt(CRC_OFFSET, (int) crc.getValue());
+
+        buffer.rewind();
+        try (FileChannel channel = FileChannel.open(
+                path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Reads a game log from a file.
+     *
+     * @param path The path of the log file.
+     * @return The game log.
+     * @throws IOException If the file cannot be read, is not a game log or is
+     *                     corrupt.
+     */
+    public static GameLog read(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() < GameSave.HEADER_SIZE + 4 || buffer.getInt(0) != GameSave.MAGIC
+                || buffer.getShort(4) != VERSION) {
+            throw new IOException("Not a Minesweeper game log: " + path);
+        }
+        short flags = buffer.getShort(6);
+        int width = buffer.getInt(8);
+        int height = buffer.getInt(12);
+        int mineCount = buffer.getInt(16);
+        long seed = buffer.getLong(20);
+        int expectedCrc = buffer.getInt(CRC_OFFSET);
+        if (width < 0 || height < 0 || (long) width * height > Integer.MAX_VALUE) {
+            throw new IOException("Invalid grid dimensions stored in file");
+        }
+
+        buffer.position(GameSave.HEADER_SIZE);
+        int moveCount = buffer.getInt();
+        long tileSize = ((long) width * height + 1) / 2;
+        long baseSize = (flags & FLAG_BASE) == 0 ? 0 : tileSize;
+        long movesEnd = GameSave.HEADER_SIZE + 4 + 4L * moveCount + baseSize;
+        if (moveCount < 0 || buffer.capacity() < movesEnd + 4) {
+            throw new IOException("Game log size does not match its contents");
+        }
+        int[] moves = new int[moveCount];
+        buffer.asIntBuffer().get(moves);
+        buffer.position(buffer.position() + 4 * moveCount);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), GameSave.HEADER_SIZE, buffer.position() - GameSave.HEADER_SIZE);
+
+        GameSave base = null;
+        boolean noGuess = (flags & FLAG_NO_GUESS) != 0;
+        if ((flags & FLAG_BASE) != 0) {
+            Board board = GameSave.getTiles(buffer, width, height, crc);
+            base = new GameSave(
+                    board, mineCount, seed, (flags & FLAG_FIRST_TURN_TAKEN) != 0, noGuess
+            );
+        }
+
+        int start = buffer.position();
+        int snapshotCount = buffer.getInt();
+        crc.update(buffer.array(), start, 4);
+        if (snapshotCount < 0
+                || buffer.capacity() != movesEnd + 4 + snapshotCount * (5 + tileSize)) {
+            throw new IOException("Game log size does not match its contents");
+        }
+        List<Snapshot> snapshots = new ArrayList<>();
+        for (int k = 0; k < snapshotCount; k++) {
+            start = buffer.position();
+            int snapshotMoves = buffer.getInt();
+            boolean firstTurnTaken = (buffer.get() & FLAG_FIRST_TURN_TAKEN) != 0;
+            crc.update(buffer.array(), start, 5);
+            if (snapshotMoves < 0 || snapshotMoves > moveCount || (k > 0
+                    && snapshotMoves <= snapshots.get(k - 1).moveCount())) {
+                throw new IOException("Game log snapshots are out of order");
+            }
+            Board board = GameSave.getTiles(buffer, width, height, crc);
+            snapshots.add(new Snapshot(snapshotMoves, new GameSave(
+                    board, mineCount, seed, firstTurnTaken, noGuess
+            )));
+        }
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new IOException("Game log checksum does not match: " + path);
+        }
+        return new GameLog(
+                base, width, height, mineCount, seed, noGuess, moves, List.copyOf(snapshots)
+        );
+    }
+
+    /**
+     * Checks whether a file is a game log rather than a snapshot save.
+     *
+     * @param path The path of the save file.
+     * @return True if the file is a game log.
+     * @throws IOException If the file cannot be read.
+     */
+    public static boolean isGameLog(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer start = ByteBuffer.allocate(6);
+            while (start.hasRemaining() && channel.read(start) >= 0) {
+                // keep reading until the magic number and version are read
+            }
+            return !start.hasRemaining() && start.getInt(0) == GameSave.MAGIC
+                    && start.getShort(4) == VERSION;
+        }
+    }
+}
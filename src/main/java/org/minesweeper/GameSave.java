@@ -0,0 +1,307 @@
+package org.minesweeper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * This is a saved Minesweeper game in the binary save format. A save file
+ * starts with a fixed size header:
+ *
+ * <pre>
+ * int   magic number, "MSWP"
+ * short format version
+ * short flags, bit 0 set if the first turn has been taken, bit 1 set if the
+ *       mines are to be generated so that no guessing is needed
+ * int   grid width
+ * int   grid height
+ * int   mine count
+ * long  seed
+ * int   CRC32 checksum of the tile data
+ * </pre>
+ *
+ * followed by the tile data, which packs the mine, uncovered and flag bits of
+ * every tile into a nibble, two tiles per byte with the lower index in the low
+ * nibble. Clue numbers are not stored since they follow from the mines, and
+ * are recomputed on load. Large files are read and written through a
+ * {@link MappedByteBuffer} so loading does not copy the file through the heap
+ * more than once.
+ *
+ * @param board          The board of the game.
+ * @param mineCount      The number of mines in the game.
+ * @param seed           The seed the mines were generated from.
+ * @param firstTurnTaken Whether the mines have been generated.
+ * @param noGuess        Whether the mines are generated so that the game can
+ *                       be cleared without guessing.
+ */
+public record GameSave(
+        Board board, int mineCount, long seed, boolean firstTurnTaken, boolean noGuess
+) {
+    static final int MAGIC = 0x4D535750; // "MSWP" in ASCII
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 32;
+
+    private static final int FLAG_FIRST_TURN_TAKEN = 1;
+    private static final int FLAG_NO_GUESS = 2;
+    private static final int CRC_OFFSET = 28;
+    private static final int MAP_THRESHOLD = 1 << 20; // smaller files use a heap buffer
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int STATE_SHIFT = 4; // position of the state bits in a cell
+    private static final int STATE_MASK = 0x7;
+
+    /**
+     * Creates a saved game whose mines are generated the ordinary way.
+     *
+     * @param board          The board of the game.
+     * @param mineCount      The number of mines in the game.
+     * @param seed           The seed the mines were generated from.
+     * @param firstTurnTaken Whether the mines have been generated.
+     */
+    public GameSave(Board board, int mineCount, long seed, boolean firstTurnTaken) {
+        this(board, mineCount, seed, firstTurnTaken, false);
+    }
+
+    /**
+     * Writes the game to a file, replacing the file if it exists and creating its
+     * parent directories if they do not.
+     *
+     * @param path The path of the save file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        int cells = board.size();
+        int payloadSize = (int) (((long) cells + 1) / 2);
+        long fileSize = HEADER_SIZE + (long) payloadSize;
+
+        try (FileChannel channel = FileChannel.open(
+                path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            ByteBuffer buffer = fileSize >= MAP_THRESHOLD
+                    ? channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize)
+                    : ByteBuffer.allocate((int) fileSize);
+
+            // pack tile states two to a byte
+            buffer.position(HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            putTiles(board, buffer, crc);
+
+            // write header
+            buffer.putInt(0, MAGIC);
+            buffer.putShort(4, VERSION);
+            buffer.putShort(6, (short) ((firstTurnTaken ? FLAG_FIRST_TURN_TAKEN : 0)
+                    | (noGuess ? FLAG_NO_GUESS : 0)));
+            buffer.putInt(8, board.getWidth());
+            buffer.putInt(12, board.getHeight());
+            buffer.putInt(16, mineCount);
+            buffer.putLong(20, seed);
+            buffer.putInt(CRC_OFFSET, (int) crc.getValue());
+
+            if (buffer instanceof MappedByteBuffer mapped) {
+                mapped.force();
+            } else {
+                buffer.rewind();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+        }
+    }
+
+    /**
+     * Reads a game from a binary save file.
+     *
+     * @param path The path of the save file.
+     * @return The saved game.
+     * @throws IOException If the file cannot be read, is not a binary save or is
+     *                     corrupt.
+     */
+    public static GameSave read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE) {
+                throw new IOException("Save file is too short: " + path);
+            }
+
+            ByteBuffer buffer;
+            if (fileSize >= MAP_THRESHOLD) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            } else {
+                buffer = ByteBuffer.allocate((int) fileSize);
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // keep reading until the buffer is full
+                }
+                buffer.flip();
+            }
+
+            // read header
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a Minesweeper save file: " + path);
+            }
+            short version = buffer.getShort(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported save file version: " + version);
+            }
+            boolean firstTurnTaken = (buffer.getShort(6) & FLAG_FIRST_TURN_TAKEN) != 0;
+            boolean noGuess = (buffer.getShort(6) & FLAG_NO_GUESS) != 0;
+            int width = buffer.getInt(8);
+            int height = buffer.getInt(12);
+            int mineCount = buffer.getInt(16);
+            long seed = buffer.getLong(20);
+            int expectedCrc = buffer.getInt(CRC_OFFSET);
+
+            if (width < 0 || height < 0) {
+                throw new IOException("Invalid grid dimensions stored in file");
+            }
+            long cellCount = (long) width * height;
+            if (cellCount > Integer.MAX_VALUE
+                    || fileSize != HEADER_SIZE + (cellCount + 1) / 2) {
+                throw new IOException("Save file size does not match its grid dimensions");
+            }
+
+            // unpack tile states
+            buffer.position(HEADER_SIZE);
+            CRC32 crc = new CRC32();
+            Board board = getTiles(buffer, width, height, crc);
+            if ((int) crc.getValue() != expectedCrc) {
+                throw new IOException("Save file checksum does not match: " + path);
+            }
+            return new GameSave(board, mineCount, seed, firstTurnTaken, noGuess);
+        }
+    }
+
+    /**
+     * Packs the tile states of a board two to a byte into a buffer.
+     *
+     * @param board  The board to pack.
+     * @param buffer The buffer to write to, at its position.
+     * @param crc    The checksum to update with the bytes written.
+     */
+    static void putTiles(Board board, ByteBuffer buffer, CRC32 crc) {
+        int cells = board.size();
+        byte[] chunk = new byte[(int) Math.max(Math.min(CHUNK_SIZE, ((long) cells + 1) / 2), 1)];
+        int index = 0;
+        while (index < cells) {
+            int length = 0;
+            int end = (int) Math.min(cells, index + 2L * chunk.length);
+            for (; index + 1 < end; index += 2) {
+                chunk[length++] = (byte) (((board.getCell(index) >>> STATE_SHIFT) & STATE_MASK)
+                        | (board.getCell(index + 1) & STATE_MASK << STATE_SHIFT));
+            }
+            if (index < end) {
+                // odd tile count, the last byte only holds one tile
+                chunk[length++] = (byte) ((board.getCell(index++) >>> STATE_SHIFT)
+                        & STATE_MASK);
+            }
+            crc.update(chunk, 0, length);
+            buffer.put(chunk, 0, length);
+        }
+    }
+
+    /**
+     * Unpacks tile states written by {@link #putTiles} into a new board and
+     * recomputes its clue numbers.
+     *
+     * @param buffer The buffer to read from, at its position.
+     * @param width  The width of the board.
+     * @param height The height of the board.
+     * @param crc    The checksum to update with the bytes read.
+     * @return The board.
+     */
+    static Board getTiles(ByteBuffer buffer, int width, int height, CRC32 crc) {
+        Board board = new Board(width, height);
+        int remaining = (int) (((long) board.size() + 1) / 2);
+        byte[] chunk = new byte[Math.max(Math.min(CHUNK_SIZE, remaining), 1)];
+        byte[] states = new byte[2 * chunk.length];
+        int index = 0;
+        while (remaining > 0) {
+            int length = Math.min(chunk.length, remaining);
+            buffer.get(chunk, 0, length);
+            crc.update(chunk, 0, length);
+            int count = unpack(chunk, length, states, Math.min(2 * length, board.size() - index));
+            board.setCells(index, states, count);
+            index += count;
+            remaining -= length;
+        }
+
+        board.recountCoveredSafeCells();
+        board.recomputeClueNumbers();
+        return board;
+    }
+
+    /**
+     * Unpacks a chunk of tile data into cells. Kept as its own method so the JIT
+     * compiles it after the first few chunks of a large file.
+     *
+     * @param chunk  The packed tile data.
+     * @param length The number of bytes of the chunk to unpack.
+     * @param states The cells to unpack into, from the start.
+     * @param cells  The number of cells the bytes hold, which is one less than
+     *               twice the length for the last byte of an odd tile count.
+     * @return The number of cells unpacked.
+     */
+    private static int unpack(byte[] chunk, int length, byte[] states, int cells) {
+        int pairs = cells / 2;
+        int index = 0;
+        for (int k = 0; k < pairs; k++) {
+            states[index++] = (byte) ((chunk[k] & STATE_MASK) << STATE_SHIFT);
+            states[index++] = (byte) (chunk[k] & STATE_MASK << STATE_SHIFT);
+        }
+        if (pairs < length) {
+            // odd tile count, the last byte only holds one tile
+            states[index++] = (byte) ((chunk[pairs] & STATE_MASK) << STATE_SHIFT);
+        }
+        return index;
+    }
+
+    /**
+     * Reads the header of a binary save file. Since the header includes the
+     * checksum of the tile data, two files with the same header hold the same
+     * game.
+     *
+     * @param path The path of the save file.
+     * @return The header bytes of the file.
+     * @throws IOException If the file cannot be read or is too short.
+     */
+    static byte[] readHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // keep reading until the header is read
+            }
+            if (header.hasRemaining()) {
+                throw new IOException("Save file is too short: " + path);
+            }
+            return header.array();
+        }
+    }
+
+    /**
+     * Checks whether a file starts with the binary save format's magic number.
+     * Files that do not are treated as legacy CSV saves.
+     *
+     * @param path The path of the save file.
+     * @return True if the file is a binary save file.
+     * @throws IOException If the file cannot be read.
+     */
+    public static boolean isBinarySave(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // keep reading until the magic number is read
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package org.minesweeper;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This hosts games of Minesweeper without a GUI for clients connecting over
+ * TCP, such as bots and load tests. Every connection is a session with a game
+ * of its own, served by a thread of its own that blocks on the socket, so
+ * sessions share nothing but the move count. Connections run on virtual
+ * threads when the runtime has them, so thousands of sessions only cost a few
+ * kilobytes each, and on platform threads with small stacks otherwise.
+ * <p>
+ * The protocol is one command per line, answered by one line, except for the
+ * board which is followed by its rows:
+ *
+ * <pre>
+ * NEW width height mines [seed]  starts a new game, answers OK
+ * REVEAL row column              answers OK state tiles-uncovered
+ * FLAG row column                answers OK state
+ * SHOW                           answers BOARD rows, then one line per row as
+ *                                printed by {@link Minesweeper#asciiGameState}
+ * QUIT                           answers BYE and closes the connection
+ * </pre>
+ *
+ * A command that cannot be played, such as a move before a game is started or
+ * after it ended, is answered with ERROR and a message, and the session goes
+ * on. Boards are limited to about a million tiles and commands to a few
+ * hundred characters, so one client cannot use up the memory of every other
+ * session. A longer command is answered with ERROR and closes the connection.
+ */
+public class GameServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 4321;
+
+    private static final int BACKLOG = 4096; // connections waiting to be accepted
+    private static final long PLATFORM_STACK_SIZE = 256 * 1024; // without virtual threads
+    private static final int MAX_TILES = 1 << 20; // largest board a session can start
+    private static final int MAX_LINE = 256; // longest command, far longer than any valid one
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final boolean virtualThreads;
+    private final Thread acceptor;
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final LongAdder moves = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Starts a server listening on the loopback address.
+     *
+     * @param port The port to listen on, or 0 for any free port.
+     * @throws IOException If the port cannot be listened on.
+     */
+    public GameServer(int port) throws IOException {
+        serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        ExecutorService virtual = newVirtualThreadExecutor();
+        virtualThreads = virtual != null;
+        connections = virtualThreads ? virtual : Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(null, task, "minesweeper-session", PLATFORM_STACK_SIZE);
+            thread.setDaemon(true);
+            return thread;
+        });
+        acceptor = new Thread(this::accept, "minesweeper-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Creates an executor that runs each task on a new virtual thread. Virtual
+     * threads need Java 21, which this project does not require, so the
+     * executor is looked up reflectively.
+     *
+     * @return The executor, or null if the runtime has no virtual threads.
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The port the server listens on.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return True if connections are served on virtual threads.
+     */
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @return The number of connections currently open.
+     */
+    public int getSessionCount() {
+        return sockets.size();
+    }
+
+    /**
+     * @return The number of reveals and flags played since the server started.
+     */
+    public long getMovesPlayed() {
+        return moves.sum();
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                sockets.add(socket);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Could not accept connection: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Plays the commands of one connection until it is closed.
+     *
+     * @param socket The connection.
+     */
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(
+                     socket.getInputStream(), StandardCharsets.US_ASCII));
+             Writer out = new BufferedWriter(new OutputStreamWriter(
+                     socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+            Session session = new Session();
+            StringBuilder command = new StringBuilder();
+            String line;
+            while ((line = readLine(in, command)) != null) {
+                if (line.length() > MAX_LINE) {
+                    out.write("ERROR line too long\n");
+                    out.flush();
+                    break;
+                }
+                boolean open = session.respond(line, out);
+                out.flush();
+                if (!open) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            // the client went away, which ends its session
+        } finally {
+            sockets.remove(socket);
+        }
+    }
+
+    /**
+     * Reads a command, stopping once it is longer than any command can be, so a
+     * client sending one endless line cannot fill the heap.
+     *
+     * @param in      The connection to read from.
+     * @param command A buffer to read into, which is cleared first.
+     * @return The command without its line break, longer than {@link #MAX_LINE}
+     *         if it was cut short, or null if the connection was closed.
+     * @throws IOException If the connection cannot be read.
+     */
+    private static String readLine(Reader in, StringBuilder command) throws IOException {
+        command.setLength(0);
+        int c;
+        while ((c = in.read()) != '\n') {
+            if (c < 0) {
+                return command.length() == 0 ? null : command.toString();
+            }
+            if (c != '\r') {
+                command.append((char) c);
+                if (command.length() > MAX_LINE) {
+                    break;
+                }
+            }
+        }
+        return command.toString();
+    }
+
+    /**
+     * The game of one connection.
+     */
+    private class Session {
+        private Minesweeper game;
+        private GameState state;
+
+        /**
+         * Plays one command and writes the answer.
+         *
+         * @param line The command.
+         * @param out  Where to write the answer.
+         * @return False if the connection should be closed.
+         * @throws IOException If the answer cannot be written.
+         */
+        boolean respond(String line, Writer out) throws IOException {
+            String[] words = line.trim().split("\\s+");
+            try {
+                switch (words[0].toUpperCase()) {
+                    case "NEW" -> {
+                        checkArguments(words, 4, 5);
+                        int width = Integer.parseInt(words[1]);
+                        int height = Integer.parseInt(words[2]);
+                        int mines = Integer.parseInt(words[3]);
+                        if ((long) width * height > MAX_TILES) {
+                            throw new IllegalArgumentException("board is too large");
+                        }
+                        game = words.length == 5
+                                ? new Minesweeper(width, height, mines, Long.parseLong(words[4]))
+                                : new Minesweeper(width, height, mines);
+                        state = GameState.IN_PROGRESS;
+                        out.write("OK\n");
+                    }
+                    case "REVEAL" -> {
+                        checkMove(words);
+                        state = game.playTurn(Integer.parseInt(words[1]),
+                                Integer.parseInt(words[2]));
+                        moves.increment();
+                        out.write("OK " + state + " " + game.getRevealedCells().length + "\n");
+                    }
+                    case "FLAG" -> {
+                        checkMove(words);
+                        game.toggleTileFlag(Integer.parseInt(words[1]), Integer.parseInt(words[2]));
+                        moves.increment();
+                        out.write("OK " + state + "\n");
+                    }
+                    case "SHOW" -> {
+                        checkArguments(words, 1, 1);
+                        if (game == null) {
+                            throw new IllegalStateException("no game started");
+                        }
+                        out.write("BOARD " + game.getGridHeight() + "\n");
+                        out.write(game.asciiGameState(false));
+                    }
+                    case "QUIT" -> {
+                        out.write("BYE\n");
+                        return false;
+                    }
+                    default -> throw new IllegalArgumentException("unknown command " + words[0]);
+                }
+            } catch (IllegalArgumentException | IllegalStateException
+                     | IndexOutOfBoundsException e) {
+                out.write("ERROR " + e.getMessage() + "\n");
+            }
+            return true;
+        }
+
+        private void checkMove(String[] words) {
+            checkArguments(words, 3, 3);
+            if (game == null) {
+                throw new IllegalStateException("no game started");
+            } else if (state != GameState.IN_PROGRESS) {
+                throw new IllegalStateException("game is over");
+            }
+        }
+
+        private static void checkArguments(String[] words, int min, int max) {
+            if (words.length < min || words.length > max) {
+                throw new IllegalArgumentException("wrong number of arguments");
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections and closes every open one.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            System.err.println("Could not close server socket: " + e.getMessage());
+        }
+        for (Socket socket : sockets) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // already closed by its session
+            }
+        }
+        connections.shutdown();
+    }
+
+    /**
+     * Runs a server until the process is stopped, printing the number of open
+     * sessions and the moves played every few seconds.
+     *
+     * @param args The port to listen on, {@value #DEFAULT_PORT} if not given.
+     * @throws Exception If the server cannot be started.
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        GameServer server = new GameServer(port);
+        System.out.println("Listening on port " + server.getPort() + " with "
+                + (server.usesVirtualThreads() ? "virtual" : "platform") + " threads");
+        long lastMoves = 0;
+        while (true) {
+            Thread.sleep(5000);
+            long moves = server.getMovesPlayed();
+            System.out.println(server.getSessionCount() + " sessions, "
+                    + (moves - lastMoves) / 5 + " moves/s");
+            lastMoves = moves;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.minesweeper;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This counts how often values fall in log-linear buckets, for latencies and
+ * sizes that span several orders of magnitude. Values below
+ * {@value #SUB_BUCKETS} get a bucket each, and every power of two above that
+ * is split into {@value #SUB_BUCKETS} equal buckets, so a percentile read from
+ * the histogram is within an eighth of the true value while the whole range of
+ * a long fits in a few hundred buckets.
+ * <p>
+ * Recording a value is a few atomic increments and takes no lock, so any
+ * number of threads can record at once. Reading while values are recorded may
+ * miss the values recorded during the read.
+ */
+public class Histogram {
+    private static final int SUB_BITS = 3;
+    static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_BUCKETS;
+
+    private final String name;
+    private final String unit;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Creates an empty histogram.
+     *
+     * @param name The name the histogram is reported under.
+     * @param unit The unit of the values, such as ns or tiles.
+     */
+    public Histogram(String name, String unit) {
+        this.name = name;
+        this.unit = unit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * Gets the bucket a value is counted in.
+     *
+     * @param value The value, where negative values count as zero.
+     * @return The index of the bucket.
+     */
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) Math.max(value, 0);
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Gets the smallest value counted in a bucket.
+     *
+     * @param bucket The index of the bucket.
+     * @return The smallest value of the bucket.
+     */
+    static long lowestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return (SUB_BUCKETS + sub) << (exponent - SUB_BITS);
+    }
+
+    /**
+     * Counts a value.
+     *
+     * @param value The value, where negative values count as zero.
+     */
+    public void record(long value) {
+        long clamped = Math.max(value, 0);
+        counts.incrementAndGet(bucket(clamped));
+        sum.add(clamped);
+        if (clamped > max.get()) {
+            max.accumulateAndGet(clamped, Math::max);
+        }
+    }
+
+    /**
+     * @return The number of values recorded.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int k = 0; k < BUCKETS; k++) {
+            count += counts.get(k);
+        }
+        return count;
+    }
+
+    /**
+     * @return The mean of the values recorded, or 0 if there are none.
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) sum.sum() / count;
+    }
+
+    /**
+     * @return The largest value recorded, or 0 if there are none.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Gets a value that at least a fraction of the values recorded are no larger
+     * than, rounded up to the end of its bucket.
+     *
+     * @param fraction The fraction of values, between 0 and 1.
+     * @return The percentile, or 0 if no values are recorded.
+     */
+    public long getPercentile(double fraction) {
+        if (fraction < 0 || fraction > 1) {
+            throw new IllegalArgumentException("Fraction must be between 0 and 1");
+        }
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int k = 0; k < BUCKETS; k++) {
+            snapshot[k] = counts.get(k);
+            count += snapshot[k];
+        }
+        long rank = Math.max((long) Math.ceil(fraction * count), 1);
+        long seen = 0;
+        for (int k = 0; k < BUCKETS; k++) {
+            seen += snapshot[k];
+            if (seen >= rank) {
+                long highest = k + 1 < BUCKETS ? lowestValue(k + 1) - 1 : Long.MAX_VALUE;
+                return Math.min(highest, max.get());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Clears every value recorded. Values recorded during the reset may or may
+     * not be kept.
+     */
+    public void reset() {
+        for (int k = 0; k < BUCKETS; k++) {
+            counts.set(k, 0);
+        }
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * @return One line with the count, mean, median, tail percentiles and
+     *         maximum of the values.
+     */
+    @Override
+    public String toString() {
+        return String.format("%s count=%d mean=%.1f p50=%d p90=%d p99=%d p99.9=%d max=%d %s",
+                name, getCount(), getMean(), getPercentile(0.5), getPercentile(0.9),
+                getPercentile(0.99), getPercentile(0.999), getMax(), unit);
+    }
+}
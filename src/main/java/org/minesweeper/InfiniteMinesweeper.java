@@ -0,0 +1,460 @@
+package org.minesweeper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * This is the model for a Minesweeper game on an unbounded minefield. The
+ * field is split into square chunks of {@link #CHUNK_SIZE} tiles, and a chunk
+ * is only created when a reveal or a query first touches it. The mines of a
+ * chunk are generated from the world seed and the chunk's coordinates, so they
+ * are the same every time the chunk is generated, except that no mine is ever
+ * placed in the 3x3 area around the first tile clicked.
+ * <p>
+ * Chunks are kept in memory in least recently used order under a memory
+ * budget. When the budget is exceeded, the coldest chunks are evicted: chunks
+ * the player has changed are written to the spill directory and read back
+ * when next touched, and untouched chunks are simply dropped since they can be
+ * generated again. Eviction only happens between moves and after queries, so
+ * a flood fill never loses the chunks it is working on.
+ * <p>
+ * Rows and columns can be any int, including negative ones. Since an empty
+ * region can be arbitrarily large, a single turn uncovers at most
+ * {@link #MAX_REVEAL} tiles. The rest of the region is kept pending, and the
+ * next turn continues uncovering it, along with any region it opens itself.
+ * <p>
+ * Each game spills its chunks into a directory of its own inside the spill
+ * directory, so games can share a spill directory. Spilled chunks are deleted
+ * when they are read back, and the rest, along with the game's directory, when
+ * the game is closed.
+ */
+public class InfiniteMinesweeper implements AutoCloseable {
+    public static final int CHUNK_SIZE = 64; // width and height of a chunk in tiles
+    public static final int MAX_REVEAL = 1 << 20; // most tiles uncovered by one turn
+    static final long CHUNK_BYTES = CHUNK_SIZE * CHUNK_SIZE + 64; // estimated heap use
+
+    private static final int CHUNK_SHIFT = 6; // log2 of CHUNK_SIZE
+    private static final int LOCAL_MASK = CHUNK_SIZE - 1;
+    private static final byte MINES_GENERATED = 1; // chunk file flag
+    private static final int[] NO_CELLS = new int[0];
+
+    private final long worldSeed;
+    private final double mineDensity;
+    private final int maxResidentChunks;
+    private final Path spillDirectory;
+    private Path spillFiles; // this game's directory in the spill directory, made on first spill
+
+    private final LinkedHashMap<Long, Chunk> chunks; // resident chunks, coldest first
+    private final Set<Long> spilledChunks = new HashSet<>(); // chunks written to disk
+    private boolean firstTurnTaken;
+    private int safeRow, safeColumn; // center of the area kept free of mines
+    private int[] revealedCells = NO_CELLS;
+    private final IntList revealStack = new IntList(); // kept between turns if a turn stops
+    private final IntList revealed = new IntList();
+
+    /**
+     * Creates a new game on an unbounded minefield.
+     *
+     * @param worldSeed         The seed the mines of every chunk are generated
+     *                          from.
+     * @param mineDensity       The chance of each tile having a mine, between 0 and
+     *                          1.
+     * @param memoryBudgetBytes The heap the resident chunks may use, in bytes.
+     * @param spillDirectory    The directory evicted chunks are written to.
+     */
+    public InfiniteMinesweeper(
+            long worldSeed, double mineDensity, long memoryBudgetBytes, Path spillDirectory
+    ) {
+        if (!(mineDensity > 0 && mineDensity < 1)) {
+            throw new IllegalArgumentException("Mine density must be between 0 and 1");
+        } else if (memoryBudgetBytes < CHUNK_BYTES) {
+            throw new IllegalArgumentException("Memory budget must fit at least one chunk");
+        }
+        this.worldSeed = worldSeed;
+        this.mineDensity = mineDensity;
+        this.maxResidentChunks = (int) Math.min(memoryBudgetBytes / CHUNK_BYTES, 1 << 24);
+        this.spillDirectory = spillDirectory;
+        this.chunks = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Plays a turn in the game model.
+     *
+     * @param i The row of the tile clicked.
+     * @param j The column of the tile clicked.
+     * @return LOST if the tile has a mine, IN_PROGRESS otherwise since an
+     *         unbounded minefield cannot be cleared.
+     */
+    public GameState playTurn(int i, int j) {
+        try {
+            revealedCells = NO_CELLS;
+            Chunk chunk = chunk(i, j, true);
+            int local = localIndex(i, j);
+
+            // does nothing to flagged tiles or uncovered tiles but continue a region
+            if (chunk.cells.hasFlag(local) || !chunk.cells.isCovered(local)) {
+                if (hasPendingReveal()) {
+                    revealed.clear();
+                    revealedCells = continueReveal();
+                }
+                return GameState.IN_PROGRESS;
+            }
+
+            if (!firstTurnTaken) {
+                firstTurnTaken = true;
+                safeRow = i;
+                safeColumn = j;
+            }
+
+            if (hasMine(i, j)) {
+                return GameState.LOST;
+            }
+
+            revealedCells = uncoverTile(i, j);
+            return GameState.IN_PROGRESS;
+        } finally {
+            trimToBudget();
+        }
+    }
+
+    /**
+     * Uncovers the region that is clicked, crossing chunk boundaries as needed,
+     * along with the rest of any region an earlier turn left pending.
+     *
+     * @param i The row of the tile clicked.
+     * @param j The column of the tile clicked.
+     * @return The rows and columns of the tiles uncovered, interleaved as {row,
+     *         column, row, column, ...}.
+     */
+    private int[] uncoverTile(int i, int j) {
+        revealed.clear();
+        uncover(i, j);
+        return continueReveal();
+    }
+
+    /**
+     * Uncovers tiles around the tiles without clues on the reveal stack until
+     * the stack is empty or {@link #MAX_REVEAL} tiles were uncovered this turn,
+     * leaving the rest on the stack for the next turn.
+     *
+     * @return The rows and columns of the tiles uncovered this turn, interleaved
+     *         as {row, column, row, column, ...}.
+     */
+    private int[] continueReveal() {
+        while (!revealStack.isEmpty() && revealed.size() / 2 < MAX_REVEAL) {
+            int jCurrent = revealStack.pop(), iCurrent = revealStack.pop();
+            for (int x = -1; x < 2; x++) {
+                for (int y = -1; y < 2; y++) {
+                    int iTarget = iCurrent + x, jTarget = jCurrent + y;
+                    Chunk chunk = chunk(iTarget, jTarget, true);
+                    int local = localIndex(iTarget, jTarget);
+                    if (chunk.cells.isCovered(local) && !chunk.cells.hasFlag(local)
+                            && !hasMine(iTarget, jTarget)) {
+                        uncover(iTarget, jTarget);
+                    }
+                }
+            }
+        }
+        return revealed.toArray();
+    }
+
+    /**
+     * Uncovers a single tile, setting its clue number from the mines around it.
+     *
+     * @param i The row of the tile.
+     * @param j The column of the tile.
+     */
+    private void uncover(int i, int j) {
+        int clue = 0;
+        for (int x = -1; x < 2; x++) {
+            for (int y = -1; y < 2; y++) {
+                if ((x != 0 || y != 0) && hasMine(i + x, j + y)) {
+                    clue++;
+                }
+            }
+        }
+
+        Chunk chunk = chunk(i, j, true);
+        int local = localIndex(i, j);
+        if (clue != 0) {
+            chunk.cells.setClueNumber(local, clue);
+        }
+        chunk.cells.uncover(local);
+        chunk.modified = true;
+        revealed.add(i);
+        revealed.add(j);
+        if (clue == 0) {
+            revealStack.add(i);
+            revealStack.add(j);
+        }
+    }
+
+    /**
+     * Toggles the presence of a flag on a covered tile.
+     *
+     * @param i The row of the tile.
+     * @param j The column of the tile.
+     */
+    public void toggleTileFlag(int i, int j) {
+        try {
+            Chunk chunk = chunk(i, j, true);
+            int local = localIndex(i, j);
+            if (chunk.cells.isCovered(local)) {
+                chunk.cells.toggleFlag(local);
+                chunk.modified = true;
+            }
+        } finally {
+            trimToBudget();
+        }
+    }
+
+    /**
+     * Gets the tiles uncovered by the most recent turn.
+     *
+     * @return The rows and columns of the tiles, interleaved as {row, column, row,
+     *         column, ...}.
+     */
+    public int[] getRevealedCells() {
+        return revealedCells;
+    }
+
+    public boolean isCovered(int i, int j) {
+        Chunk chunk = chunk(i, j, false);
+        boolean covered = chunk == null || chunk.cells.isCovered(localIndex(i, j));
+        trimToBudget();
+        return covered;
+    }
+
+    public boolean hasFlag(int i, int j) {
+        Chunk chunk = chunk(i, j, false);
+        boolean flagged = chunk != null && chunk.cells.hasFlag(localIndex(i, j));
+        trimToBudget();
+        return flagged;
+    }
+
+    /**
+     * Gets the clue number of an uncovered tile.
+     *
+     * @param i The row of the tile.
+     * @param j The column of the tile.
+     * @return The clue number of the tile, or 0 if the tile is covered.
+     */
+    public int getClueNumber(int i, int j) {
+        Chunk chunk = chunk(i, j, false);
+        int clue = chunk == null ? 0 : chunk.cells.getClueNumber(localIndex(i, j));
+        trimToBudget();
+        return clue;
+    }
+
+    /**
+     * Checks whether a tile has a mine, generating the mines of its chunk if they
+     * have not been generated yet. There are no mines before the first turn.
+     *
+     * @param i The row of the tile.
+     * @param j The column of the tile.
+     * @return True if the tile has a mine.
+     */
+    public boolean hasMine(int i, int j) {
+        if (!firstTurnTaken) {
+            return false;
+        }
+        Chunk chunk = chunk(i, j, true);
+        if (!chunk.minesGenerated) {
+            generateMines(chunk, i >> CHUNK_SHIFT, j >> CHUNK_SHIFT);
+        }
+        return chunk.cells.hasMine(localIndex(i, j));
+    }
+
+    /**
+     * @return True if a turn stopped at {@link #MAX_REVEAL} tiles and left part
+     *         of a region to be uncovered by the next turn.
+     */
+    public boolean hasPendingReveal() {
+        return !revealStack.isEmpty();
+    }
+
+    public int getResidentChunkCount() {
+        return chunks.size();
+    }
+
+    public int getSpilledChunkCount() {
+        return spilledChunks.size();
+    }
+
+    /**
+     * Places the mines of a chunk from the world seed and the chunk's
+     * coordinates.
+     *
+     * @param chunk  The chunk to place mines in.
+     * @param iChunk The row of the chunk.
+     * @param jChunk The column of the chunk.
+     */
+    private void generateMines(Chunk chunk, int iChunk, int jChunk) {
+        SplittableRandom random = new SplittableRandom(chunkSeed(iChunk, jChunk));
+        int iStart = iChunk << CHUNK_SHIFT, jStart = jChunk << CHUNK_SHIFT;
+        for (int local = 0; local < CHUNK_SIZE * CHUNK_SIZE; local++) {
+            // draw for every tile so the safe area does not shift the other mines
+            boolean mine = random.nextDouble() < mineDensity;
+            int i = iStart + (local >> CHUNK_SHIFT), j = jStart + (local & LOCAL_MASK);
+            if (mine && (Math.abs(i - safeRow) > 1 || Math.abs(j - safeColumn) > 1)) {
+                chunk.cells.placeMine(local);
+            }
+        }
+        chunk.minesGenerated = true;
+    }
+
+    /**
+     * Mixes the world seed with the coordinates of a chunk.
+     *
+     * @param iChunk The row of the chunk.
+     * @param jChunk The column of the chunk.
+     * @return The seed of the chunk's mines.
+     */
+    private long chunkSeed(int iChunk, int jChunk) {
+        long z = worldSeed ^ (((long) iChunk << 32) | (jChunk & 0xFFFFFFFFL));
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    /**
+     * Gets the chunk holding a tile, reading it back from disk if it was spilled.
+     * Every lookup goes through the chunk map, so the chunk becomes the most
+     * recently used one.
+     *
+     * @param i      The row of the tile.
+     * @param j      The column of the tile.
+     * @param create Whether to create the chunk if it was never touched.
+     * @return The chunk, or null if it was never touched and create is false.
+     */
+    private Chunk chunk(int i, int j, boolean create) {
+        int iChunk = i >> CHUNK_SHIFT, jChunk = j >> CHUNK_SHIFT;
+        long key = ((long) iChunk << 32) | (jChunk & 0xFFFFFFFFL);
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            if (spilledChunks.remove(key)) {
+                chunk = readChunk(iChunk, jChunk);
+            } else if (create) {
+                chunk = new Chunk(new Board(CHUNK_SIZE, CHUNK_SIZE));
+            } else {
+                return null;
+            }
+            chunks.put(key, chunk);
+        }
+        return chunk;
+    }
+
+    private static int localIndex(int i, int j) {
+        return ((i & LOCAL_MASK) << CHUNK_SHIFT) | (j & LOCAL_MASK);
+    }
+
+    /**
+     * Evicts the coldest chunks until the resident chunks fit the memory budget.
+     */
+    private void trimToBudget() {
+        if (chunks.size() <= maxResidentChunks) {
+            return;
+        }
+        Iterator<Map.Entry<Long, Chunk>> iterator = chunks.entrySet().iterator();
+        while (chunks.size() > maxResidentChunks && iterator.hasNext()) {
+            Map.Entry<Long, Chunk> eldest = iterator.next();
+            Chunk chunk = eldest.getValue();
+            if (chunk.modified) {
+                long key = eldest.getKey();
+                writeChunk((int) (key >> 32), (int) key, chunk);
+                spilledChunks.add(key);
+            }
+            iterator.remove();
+        }
+    }
+
+    private Path chunkPath(int iChunk, int jChunk) {
+        return spillFiles.resolve("chunk_" + iChunk + "_" + jChunk + ".bin");
+    }
+
+    private void writeChunk(int iChunk, int jChunk, Chunk chunk) {
+        byte[] bytes = new byte[1 + CHUNK_SIZE * CHUNK_SIZE];
+        bytes[0] = chunk.minesGenerated ? MINES_GENERATED : 0;
+        for (int local = 0; local < CHUNK_SIZE * CHUNK_SIZE; local++) {
+            bytes[1 + local] = chunk.cells.getCell(local);
+        }
+        try {
+            if (spillFiles == null) {
+                Files.createDirectories(spillDirectory);
+                spillFiles = Files.createTempDirectory(spillDirectory, "game");
+            }
+            Files.write(chunkPath(iChunk, jChunk), bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill chunk to disk", e);
+        }
+    }
+
+    /**
+     * Reads a spilled chunk back and deletes its file, since the chunk is
+     * written again if it is evicted again.
+     */
+    private Chunk readChunk(int iChunk, int jChunk) {
+        byte[] bytes;
+        try {
+            Path path = chunkPath(iChunk, jChunk);
+            bytes = Files.readAllBytes(path);
+            Files.delete(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read spilled chunk", e);
+        }
+        if (bytes.length != 1 + CHUNK_SIZE * CHUNK_SIZE) {
+            throw new IllegalStateException("Spilled chunk has the wrong size");
+        }
+        byte[] cells = new byte[CHUNK_SIZE * CHUNK_SIZE];
+        System.arraycopy(bytes, 1, cells, 0, cells.length);
+        Chunk chunk = new Chunk(new Board(CHUNK_SIZE, CHUNK_SIZE, cells));
+        chunk.minesGenerated = (bytes[0] & MINES_GENERATED) != 0;
+        chunk.modified = true;
+        return chunk;
+    }
+
+    /**
+     * Deletes the files of every spilled chunk and the game's directory in the
+     * spill directory, and drops the resident chunks.
+     * The game should not be played afterwards, since the tiles the player
+     * uncovered and flagged are gone.
+     */
+    @Override
+    public void close() {
+        chunks.clear();
+        try {
+            for (Iterator<Long> iterator = spilledChunks.iterator(); iterator.hasNext(); ) {
+                long key = iterator.next();
+                Files.deleteIfExists(chunkPath((int) (key >> 32), (int) key));
+                iterator.remove();
+            }
+            if (spillFiles != null) {
+                Files.deleteIfExists(spillFiles);
+                spillFiles = null;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to delete spilled chunk", e);
+        }
+    }
+
+    /**
+     * A resident chunk of the minefield.
+     */
+    private static class Chunk {
+        private final Board cells;
+        private boolean minesGenerated;
+        private boolean modified; // changed by the player since it was generated
+
+        Chunk(Board cells) {
+            this.cells = cells;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package org.minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * This is a growable list of primitive ints. It is used for lists of cell
+ * indices so that large boards do not box every index into an Integer.
+ */
+public class IntList {
+    private int[] values;
+    private int size;
+
+    /**
+     * Creates an empty list.
+     */
+    public IntList() {
+        this(16);
+    }
+
+    /**
+     * Creates an empty list with room for the given number of values.
+     *
+     * @param capacity The initial capacity of the list.
+     */
+    public IntList(int capacity) {
+        values = new int[Math.max(capacity, 1)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds");
+        }
+        return values[index];
+    }
+
+    /**
+     * Replaces the value at an index of the list.
+     *
+     * @param index The index of the value to replace.
+     * @param value The new value.
+     */
+    public void set(int index, int value) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds");
+        }
+        values[index] = value;
+    }
+
+    /**
+     * Adds a value to the end of the list.
+     *
+     * @param value The value to add.
+     */
+    public void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[size++] = value;
+    }
+
+    /**
+     * Removes and returns the last value of the list, so the list can be used as a
+     * stack.
+     *
+     * @return The last value of the list.
+     */
+    public int pop() {
+        if (size == 0) {
+            throw new IllegalStateException("list is empty");
+        }
+        return values[--size];
+    }
+
+    /**
+     * Removes the values after the first few of the list.
+     *
+     * @param newSize The number of values to keep.
+     */
+    public void truncate(int newSize) {
+        if (newSize < 0 || newSize > size) {
+            throw new IndexOutOfBoundsException("size " + newSize + " out of bounds");
+        }
+        size = newSize;
+    }
+
+    /**
+     * Removes every value from the list but keeps its capacity.
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return A new array holding the values of the list in order.
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
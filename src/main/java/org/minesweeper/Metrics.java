@@ -0,0 +1,234 @@
+package org.minesweeper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This records where the game spends its time: how long turns take, how many
+ * tiles each opening uncovers, how long placing mines and saving take, and how
+ * long painting a frame of the grid takes. Each path goes into a
+ * {@link Histogram} and is also committed as a {@link GameEvents} flight
+ * recorder event.
+ * <p>
+ * Metrics are off unless the game is started with
+ * {@code -Dminesweeper.metrics=true}. The switch is a static final field, so
+ * with metrics off the JIT removes the checks at every recording site and
+ * nothing is timed. With {@code -Dminesweeper.metrics.file=path} as well, a
+ * snapshot of every histogram is written to that file every
+ * {@code minesweeper.metrics.period} seconds, ten by default, and once more
+ * when the process exits.
+ */
+public final class Metrics {
+    public static final boolean ENABLED = Boolean.getBoolean("minesweeper.metrics");
+
+    public static final Histogram TURN_NANOS = new Histogram("playTurn", "ns");
+    public static final Histogram REVEAL_TILES = new Histogram("reveal", "tiles");
+    public static final Histogram MINE_PLACEMENT_NANOS = new Histogram("randomMineMap", "ns");
+    public static final Histogram SAVE_NANOS = new Histogram("saveGame", "ns");
+    public static final Histogram PAINT_NANOS = new Histogram("paintComponent", "ns");
+    private static final List<Histogram> HISTOGRAMS = List.of(
+            TURN_NANOS, REVEAL_TILES, MINE_PLACEMENT_NANOS, SAVE_NANOS, PAINT_NANOS
+    );
+
+    private static final LongAdder GAMES_WON = new LongAdder();
+    private static final LongAdder GAMES_LOST = new LongAdder();
+
+    private static final long DEFAULT_PERIOD_SECONDS = 10;
+
+    static {
+        String file = System.getProperty("minesweeper.metrics.file");
+        if (ENABLED && file != null) {
+            startDumping(Path.of(file), Long.getLong("minesweeper.metrics.period",
+                    DEFAULT_PERIOD_SECONDS));
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Gets the time to measure a path from, so callers can write
+     * {@code long start = Metrics.start();} whether or not metrics are enabled.
+     *
+     * @return The current time in nanoseconds, or 0 if metrics are disabled.
+     */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a turn. Only call this if metrics are enabled.
+     *
+     * @param start          The time the turn started, from {@link #start()}.
+     * @param tilesUncovered The number of tiles the turn uncovered.
+     * @param state          The state of the game after the turn.
+     */
+    static void turnPlayed(long start, int tilesUncovered, GameState state) {
+        long nanos = System.nanoTime() - start;
+        TURN_NANOS.record(nanos);
+        if (state == GameState.WON) {
+            GAMES_WON.increment();
+        } else if (state == GameState.LOST) {
+            GAMES_LOST.increment();
+        }
+        GameEvents.Turn event = new GameEvents.Turn();
+        if (event.shouldCommit()) {
+            event.nanos = nanos;
+            event.tilesUncovered = tilesUncovered;
+            event.state = state.name();
+            event.commit();
+        }
+    }
+
+    /**
+     * Records the size of an opening. Only call this if metrics are enabled.
+     *
+     * @param tiles The number of tiles uncovered.
+     */
+    static void tilesRevealed(int tiles) {
+        REVEAL_TILES.record(tiles);
+    }
+
+    /**
+     * Records placing the mines of a game. Only call this if metrics are
+     * enabled.
+     *
+     * @param start The time placing started, from {@link #start()}.
+     * @param tiles The number of tiles on the board.
+     * @param mines The number of mines placed.
+     */
+    static void minesPlaced(long start, int tiles, int mines) {
+        long nanos = System.nanoTime() - start;
+        MINE_PLACEMENT_NANOS.record(nanos);
+        GameEvents.MinesPlaced event = new GameEvents.MinesPlaced();
+        if (event.shouldCommit()) {
+            event.nanos = nanos;
+            event.tiles = tiles;
+            event.mines = mines;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records a game that was saved. Failed saves are not recorded, so the
+     * histogram and events only hold saves that reached the disk. Only call this
+     * if metrics are enabled.
+     *
+     * @param start The time saving started, from {@link #start()}.
+     * @param path  The file the game was saved to.
+     * @param tiles The number of tiles on the board.
+     */
+    static void gameSaved(long start, String path, int tiles) {
+        long nanos = System.nanoTime() - start;
+        SAVE_NANOS.record(nanos);
+        GameEvents.GameSaved event = new GameEvents.GameSaved();
+        if (event.shouldCommit()) {
+            event.nanos = nanos;
+            event.path = path;
+            event.tiles = tiles;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records painting a frame of the grid. Only call this if metrics are
+     * enabled.
+     *
+     * @param start The time painting started, from {@link #start()}.
+     * @param tiles The number of tiles painted.
+     */
+    static void framePainted(long start, int tiles) {
+        long nanos = System.nanoTime() - start;
+        PAINT_NANOS.record(nanos);
+        GameEvents.FramePainted event = new GameEvents.FramePainted();
+        if (event.shouldCommit()) {
+            event.nanos = nanos;
+            event.tiles = tiles;
+            event.commit();
+        }
+    }
+
+    /**
+     * @return The number of turns that won a game.
+     */
+    public static long getGamesWon() {
+        return GAMES_WON.sum();
+    }
+
+    /**
+     * @return The number of turns that lost a game.
+     */
+    public static long getGamesLost() {
+        return GAMES_LOST.sum();
+    }
+
+    /**
+     * @return A line per histogram and one for the game counts, headed by the
+     *         time of the snapshot.
+     */
+    public static String snapshot() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("# ").append(Instant.now()).append('\n');
+        for (Histogram histogram : HISTOGRAMS) {
+            builder.append(histogram).append('\n');
+        }
+        builder.append("games won=").append(getGamesWon())
+                .append(" lost=").append(getGamesLost()).append('\n');
+        return builder.toString();
+    }
+
+    /**
+     * Writes a snapshot to a file, replacing the file in one step so readers
+     * never see half a snapshot.
+     *
+     * @param path The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void dump(Path path) throws IOException {
+        Path temporary = GameJournal.temporaryPath(path);
+        Files.writeString(temporary, snapshot());
+        GameJournal.replace(temporary, path);
+    }
+
+    /**
+     * Clears every histogram and count.
+     */
+    public static void reset() {
+        for (Histogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        GAMES_WON.reset();
+        GAMES_LOST.reset();
+    }
+
+    /**
+     * Writes a snapshot to a file periodically on a daemon thread, and once more
+     * when the process exits.
+     *
+     * @param path          The file to write.
+     * @param periodSeconds The time between snapshots in seconds.
+     */
+    private static void startDumping(Path path, long periodSeconds) {
+        Runnable write = () -> {
+            try {
+                dump(path);
+            } catch (IOException e) {
+                System.err.println("Could not write metrics: " + e.getMessage());
+            }
+        };
+        ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "minesweeper-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.scheduleAtFixedRate(write, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(write, "minesweeper-metrics-exit"));
+    }
+}
@@ -0,0 +1,112 @@
+package org.minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * This is the chance of every covered tile of a game having a mine, as worked
+ * out by a {@link ProbabilityEngine}. Only the tiles next to a clue are stored
+ * one by one. Every other covered tile that is not known to be safe or a mine
+ * has the same chance, so the result takes memory proportional to the frontier
+ * rather than to the board. The result describes the game when it was computed
+ * and should not be used after the next move.
+ */
+public class MineProbabilities {
+    private final Board board;
+    private final Solver solver;
+    private final int[] edgeCells; // covered tiles next to a clue, in ascending order
+    private final double[] edgeProbabilities;
+    private final double interiorProbability;
+    private final boolean exact;
+
+    /**
+     * @param board               The board of the game.
+     * @param solver              The solver of the game.
+     * @param edgeCells           The unknown tiles next to a clue, in ascending
+     *                            order.
+     * @param edgeProbabilities   The chance of each of the edge tiles having a
+     *                            mine.
+     * @param interiorProbability The chance of any other unknown tile having a
+     *                            mine.
+     * @param exact               Whether every chance was computed exactly.
+     */
+    MineProbabilities(
+            Board board, Solver solver, int[] edgeCells, double[] edgeProbabilities,
+            double interiorProbability, boolean exact
+    ) {
+        this.board = board;
+        this.solver = solver;
+        this.edgeCells = edgeCells;
+        this.edgeProbabilities = edgeProbabilities;
+        this.interiorProbability = interiorProbability;
+        this.exact = exact;
+    }
+
+    /**
+     * Gets the chance of a tile having a mine. Uncovered tiles have no mine.
+     *
+     * @param index The index of the tile on the board.
+     * @return The chance of the tile having a mine, between 0 and 1.
+     */
+    public double get(int index) {
+        if (!board.isCovered(index) || solver.isKnownSafe(index)) {
+            return 0;
+        } else if (solver.isKnownMine(index)) {
+            return 1;
+        }
+        int edge = Arrays.binarySearch(edgeCells, index);
+        return edge >= 0 ? edgeProbabilities[edge] : interiorProbability;
+    }
+
+    /**
+     * @return The chance of a covered tile that is not next to any clue having a
+     *         mine.
+     */
+    public double getInteriorProbability() {
+        return interiorProbability;
+    }
+
+    /**
+     * @return False if the time budget ran out and some chances are estimates.
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Finds the covered tile without a flag that is least likely to have a mine.
+     * Tiles known to be safe come first.
+     *
+     * @return The index of the tile on the board, or -1 if every covered tile has
+     *         a flag or is known to be a mine.
+     */
+    public int safestCell() {
+        int[] safe = solver.getSafeCells();
+        for (int cell : safe) {
+            if (!board.hasFlag(cell)) {
+                return cell;
+            }
+        }
+
+        int best = -1;
+        double bestProbability = 1;
+        for (int k = 0; k < edgeCells.length; k++) {
+            if (edgeProbabilities[k] < bestProbability && !board.hasFlag(edgeCells[k])) {
+                best = edgeCells[k];
+                bestProbability = edgeProbabilities[k];
+            }
+        }
+        if (best >= 0 && bestProbability <= interiorProbability) {
+            return best;
+        }
+
+        // any interior tile will do, they all have the same chance
+        for (int index = 0; index < board.size(); index++) {
+            if (board.isCovered(index) && !board.hasFlag(index)
+                    && Arrays.binarySearch(edgeCells, index) < 0
+                    && !solver.isKnownMine(index)) {
+                return index;
+            }
+        }
+        return best;
+    }
+}
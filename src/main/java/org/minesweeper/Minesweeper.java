@@ -1,15 +1,73 @@
 package org.minesweeper;
 
 import java.io.*;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
 
 /**
  * This is the model for the Minesweeper game.
  */
 public class Minesweeper {
-    private Tile[][] tiles;
+    private static final int[] NO_CELLS = new int[0];
+    private static final long SAFE_AREA_SALT = 0x5AFE5AFE5AFE5AFEL; // separates the two streams
+    private static final int SAFE_AREA_PROBES = 64; // random tries before scanning the board
+    private static final int MAX_CELLS = 1 << 30; // leaves room for the move type in a move
+    private static final int OBJECT_BYTES = 1024; // rough size of a game apart from its cells
+    private static final int PLACEMENT_CHECK_INTERVAL = 4096;
+    private static final int SNAPSHOT_INTERVAL = 1024; // fewest moves between log snapshots
+
+    // move types, stored in the top two bits of an encoded move
+    public static final int REVEAL = 0;
+    public static final int FLAG = 1;
+    public static final int CHORD = 2; // uncovers around a clue with all its mines flagged
+    private static final int MOVE_TYPE_SHIFT = 30;
+    private static final int MOVE_CELL_MASK = (1 << MOVE_TYPE_SHIFT) - 1;
+
+    private Board board;
     private int gridWidth, gridHeight, mineCount;
+    private long seed; // seed the mines are generated from
     private boolean firstTurnTaken;
+    private boolean minesPlaced; // set if a pooled board came with its mines
+    private int[] revealedCells = NO_CELLS; // cells uncovered by the last turn
+    private final IntList revealStack = new IntList(); // flood fill work stack
+    private final IntList revealed = new IntList(); // flood fill output buffer
+    private final IntList flagged = new IntList(); // flags toggled by a batch of moves
+    private Solver solver; // created by the first request for a hint
+    private NoGuessGenerator generator; // set if no guessing must be needed
+    private final List<BoardListener> listeners = new ArrayList<>(); // views of the board
+    private final IntList moves = new IntList(); // encoded moves since the game started
+    private GameSave logBase; // copy of a restored game the moves follow, if any
+    private final List<GameLog.Snapshot> logSnapshots = new ArrayList<>(); // taken while playing
+    private Deque<Step> history; // states before each undoable move, set if undo is enabled
+    private final IntList undone = new IntList(); // encoded moves undone, last on top
+    private boolean redoing; // set while a move is redone, which keeps the other undone moves
+    private boolean recorded = true; // cleared for games played internally, such as candidates
+
+    /**
+     * The state of the game before a move, kept so the move can be undone. The
+     * board is a copy that shares every chunk the move did not change.
+     */
+    private record Step(Board board, long seed, boolean firstTurnTaken, boolean minesPlaced) {
+    }
+
+    /**
+     * The outcome of playing a batch of moves.
+     *
+     * @param state   The state of the game after the last move played.
+     * @param played  The number of moves played, which is fewer than given if one
+     *                of them ended the game.
+     * @param changes The tiles changed by the moves played.
+     */
+    public record BatchResult(GameState state, int played, ChangeSet changes) {
+    }
 
     /**
      * Create a new game of Minesweeper.
@@ -19,15 +77,177 @@ public class Minesweeper {
      * @param mineCount  The number of mines in the minefield.
      */
     public Minesweeper(int gridWidth, int gridHeight, int mineCount) {
-        init(gridWidth, gridHeight, mineCount);
+        this(gridWidth, gridHeight, mineCount, ThreadLocalRandom.current().nextLong());
     }
 
     /**
-     * Creates a Minesweeper game using a game save file.
+     * Create a new game of Minesweeper whose mines are generated from a seed. The
+     * same seed and first tile clicked always give the same minefield.
+     * 
+     * @param gridWidth  The width of the minefield in tiles.
+     * @param gridHeight The height of the minefield in tiles.
+     * @param mineCount  The number of mines in the minefield.
+     * @param seed       The seed used to generate the mines.
+     */
+    public Minesweeper(int gridWidth, int gridHeight, int mineCount, long seed) {
+        init(gridWidth, gridHeight, mineCount, seed);
+    }
+
+    /**
+     * Creates a Minesweeper game using a game save file. Game logs, binary save
+     * files and legacy CSV save files can be read.
      * 
      * @param filepath The path to the game save file.
      */
     public Minesweeper(String filepath) {
+        try {
+            Path path = Path.of(filepath);
+            if (GameLog.isGameLog(path)) {
+                GameLog log = GameLog.read(path);
+                restore(log, log.moves().length);
+            } else if (GameSave.isBinarySave(path)) {
+                restore(GameSave.read(path));
+                rebaseLog();
+            } else {
+                loadLegacySave(filepath);
+                rebaseLog();
+            }
+        } catch (IOException e) {
+            System.err.println("An error occurred while reading from the file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Creates a Minesweeper game from a saved game.
+     * 
+     * @param save The saved game.
+     */
+    Minesweeper(GameSave save) {
+        restore(save);
+        rebaseLog();
+    }
+
+    /**
+     * Creates a copy of a game that shares the unchanged chunks of its board.
+     * 
+     * @param other The game to copy.
+     */
+    private Minesweeper(Minesweeper other) {
+        gridWidth = other.gridWidth;
+        gridHeight = other.gridHeight;
+        mineCount = other.mineCount;
+        seed = other.seed;
+        firstTurnTaken = other.firstTurnTaken;
+        minesPlaced = other.minesPlaced;
+        generator = other.generator;
+        board = other.board.copy();
+        rebaseLog();
+        if (other.history != null) {
+            history = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * Creates a Minesweeper game by replaying the first moves of a game log.
+     * 
+     * @param log       The game log.
+     * @param moveCount The number of moves to replay.
+     */
+    Minesweeper(GameLog log, int moveCount) {
+        restore(log, moveCount);
+    }
+
+    /**
+     * Restores the state of the game from a saved game.
+     * 
+     * @param save The saved game.
+     */
+    private void restore(GameSave save) {
+        Board saved = save.board();
+        checkSettings(saved.getWidth(), saved.getHeight(), save.mineCount());
+        gridWidth = saved.getWidth();
+        gridHeight = saved.getHeight();
+        mineCount = save.mineCount();
+        seed = save.seed();
+        firstTurnTaken = save.firstTurnTaken();
+        board = saved;
+        if (!firstTurnTaken) {
+            // the seed generates the same mines again on the first turn, and any
+            // flags placed before it stay
+            board.clearMines();
+        }
+        if (save.noGuess()) {
+            generator = new NoGuessGenerator();
+        }
+    }
+
+    /**
+     * Restores the state of the game by replaying moves from a game log. The
+     * seed in the log already generates the mines that were played, so the
+     * generator of games that need no guessing is only set once the moves have
+     * been replayed, for a first turn that is still to come.
+     * 
+     * @param log       The game log.
+     * @param moveCount The number of moves to replay.
+     */
+    private void restore(GameLog log, int moveCount) {
+        GameLog.Snapshot nearest = log.nearestSnapshot(moveCount);
+        GameSave start = nearest == null ? log.base() : nearest.save();
+        if (start == null) {
+            init(log.width(), log.height(), log.mineCount(), log.seed());
+        } else {
+            // the log keeps its snapshots, so the moves are played onto a copy
+            restore(new GameSave(
+                    start.board().copy(), log.mineCount(), log.seed(), start.firstTurnTaken()
+            ));
+        }
+        logBase = log.base();
+
+        // the moves before the snapshot are only logged, and the rest are played
+        int skipped = nearest == null ? 0 : nearest.moveCount();
+        for (int k = 0; k < skipped; k++) {
+            moves.add(log.moves()[k]);
+        }
+        for (GameLog.Snapshot snapshot : log.snapshots()) {
+            if (snapshot.moveCount() <= skipped) {
+                logSnapshots.add(snapshot);
+            }
+        }
+        // a batch stops at a lost turn, which does not stop the game model, and
+        // the moves went into the metrics when they were first played
+        recorded = false;
+        try {
+            for (int k = skipped; k < moveCount; ) {
+                k += playMoves(log.moves(), k, moveCount - k).played();
+            }
+        } finally {
+            recorded = true;
+        }
+        if (log.noGuess()) {
+            generator = new NoGuessGenerator();
+        }
+    }
+
+    /**
+     * Starts the move log from the current state of the game, for games that were
+     * not played from the start. Later moves are logged against a copy of the
+     * board, unless the mines have not been generated yet, in which case the
+     * game is the same as a new one with its seed.
+     */
+    private void rebaseLog() {
+        moves.clear();
+        logSnapshots.clear();
+        logBase = firstTurnTaken ? snapshot() : null;
+    }
+
+    /**
+     * Loads a game from a legacy CSV save file, which stores one comma separated
+     * token per tile.
+     * 
+     * @param filepath The path to the game save file.
+     * @throws IOException If the file cannot be read.
+     */
+    private void loadLegacySave(String filepath) throws IOException {
         try (BufferedReader reader = new BufferedReader(new FileReader(filepath))) {
 
             // initialize new minesweeper game
@@ -38,7 +258,7 @@ public class Minesweeper {
 
             init(
                     Integer.parseInt(gridInfo[0]), Integer.parseInt(gridInfo[1]),
-                    Integer.parseInt(gridInfo[2])
+                    Integer.parseInt(gridInfo[2]), ThreadLocalRandom.current().nextLong()
             );
 
             // restore tile info
@@ -49,27 +269,25 @@ public class Minesweeper {
                 String[] tiles = line.split(",");
                 for (int j = 0; j < tiles.length; j++) {
                     char[] tileInfo = tiles[j].toCharArray();
+                    int index = board.index(i, j);
                     for (char info : tileInfo) {
                         switch (info) {
                             case 'u' -> {
-                                this.tiles[i][j].uncover();
+                                board.uncover(index);
                                 if (!firstTurnTaken) {
                                     firstTurnTaken = true;
                                 }
                             }
-                            case 'm' -> this.tiles[i][j].placeMine();
-                            case 'f' -> this.tiles[i][j].toggleFlag();
-                            case '1', '2', '3', '4', '5', '6', '7', '8' -> this.tiles[i][j]
-                                    .setClueNumber(Character.getNumericValue(info));
+                            case 'm' -> board.placeMine(index);
+                            case 'f' -> board.toggleFlag(index);
+                            case '1', '2', '3', '4', '5', '6', '7', '8' -> board
+                                    .setClueNumber(index, Character.getNumericValue(info));
                             default -> { }
                         }
                     }
                 }
                 i++;
             }
-
-        } catch (IOException e) {
-            System.err.println("An error occurred while reading from the file: " + e.getMessage());
         }
     }
 
@@ -79,42 +297,70 @@ public class Minesweeper {
      * @param gridWidth  The width of the minefield in tiles.
      * @param gridHeight The height of the minefield in tiles.
      * @param mineCount  The number of mines in the minefield.
+     * @param seed       The seed used to generate the mines.
+     */
+    private void init(int gridWidth, int gridHeight, int mineCount, long seed) {
+        checkSettings(gridWidth, gridHeight, mineCount);
+        this.gridWidth = gridWidth;
+        this.gridHeight = gridHeight;
+        this.mineCount = mineCount;
+        reset(seed);
+    }
+
+    /**
+     * Checks that a game can be played with the given settings.
+     * 
+     * @param gridWidth  The width of the minefield in tiles.
+     * @param gridHeight The height of the minefield in tiles.
+     * @param mineCount  The number of mines in the minefield.
      */
-    private void init(int gridWidth, int gridHeight, int mineCount) {
+    static void checkSettings(int gridWidth, int gridHeight, int mineCount) {
         if (gridWidth < 0) {
             throw new IllegalArgumentException("Grid width must be greater than 0");
         } else if (gridHeight < 0) {
             throw new IllegalArgumentException("Grid height must be greater than 0");
         } else if (mineCount <= 0) {
             throw new IllegalArgumentException("Mines count must be non-negative");
-        } else if (mineCount > gridWidth * gridHeight - 9) {
+        } else if ((long) gridWidth * gridHeight > MAX_CELLS) {
+            throw new IllegalArgumentException("Grid must have at most 2^30 tiles");
+        } else if (mineCount > (long) gridWidth * gridHeight - 9) {
             throw new IllegalArgumentException(
                     "Mine count must allow for 3x3 clear area to " +
                             "facilitate initial mine generation."
             );
         }
-        this.gridWidth = gridWidth;
-        this.gridHeight = gridHeight;
-        this.mineCount = mineCount;
-        reset();
     }
 
     /**
-     * Saves the current state of the game in the designated file.
+     * Saves the current state of the game in the designated file using the binary
+     * save format.
      * 
      * @param filepath Path to game save file.
      */
     public void saveGame(String filepath) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filepath))) {
-            // save grid dimensions
-            writer.write(gridWidth + "," + gridHeight + "," + mineCount + ",\n");
-
-            // save tile states
-            for (Tile[] row : tiles) {
-                for (Tile tile : row) {
-                    writer.write(tile.toString() + ',');
-                }
-                writer.newLine();
+        long start = Metrics.start();
+        try {
+            toGameSave().write(Path.of(filepath));
+            if (Metrics.ENABLED) {
+                Metrics.gameSaved(start, filepath, board.size());
+            }
+        } catch (IOException e) {
+            System.err.println("An error occurred while writing to the file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves the game in the designated file as a game log, which stores the moves
+     * played rather than every tile, so it stays small on large boards.
+     * 
+     * @param filepath Path to game log file.
+     */
+    public void saveGameLog(String filepath) {
+        long start = Metrics.start();
+        try {
+            toGameLog().write(Path.of(filepath));
+            if (Metrics.ENABLED) {
+                Metrics.gameSaved(start, filepath, board.size());
             }
         } catch (IOException e) {
             System.err.println("An error occurred while writing to the file: " + e.getMessage());
@@ -122,14 +368,152 @@ public class Minesweeper {
     }
 
     /**
-     * Gets the tiles of the minesweeper.
+     * Gets the moves played in the game as a game log. The log has its own copy
+     * of the moves, so it can be written by another thread while the game
+     * continues.
+     * 
+     * @return The game log.
+     */
+    GameLog toGameLog() {
+        return new GameLog(
+                logBase, gridWidth, gridHeight, mineCount, seed, generator != null,
+                moves.toArray(), List.copyOf(logSnapshots)
+        );
+    }
+
+    /**
+     * Encodes a move as a single int, the move type in the top two bits and the
+     * index of the tile on the board in the rest.
+     * 
+     * @param type The type of move: {@link #REVEAL}, {@link #FLAG} or
+     *             {@link #CHORD}.
+     * @param cell The index on the board of the tile the move is made on.
+     * @return The encoded move.
+     */
+    public static int encodeMove(int type, int cell) {
+        return type << MOVE_TYPE_SHIFT | cell;
+    }
+
+    /**
+     * Gets the current state of the game as a saved game. The saved game shares
+     * its board with this game.
+     * 
+     * @return The saved game.
+     */
+    GameSave toGameSave() {
+        return new GameSave(board, mineCount, seed, firstTurnTaken, generator != null);
+    }
+
+    /**
+     * Roughly estimates the heap used by the game: a byte per cell, four bytes
+     * per move logged, a board for every log snapshot and a chunk of cells for
+     * every move that can be undone, since each of those usually owns at least
+     * one chunk of its board.
+     * 
+     * @return The estimated size of the game in bytes.
+     */
+    long estimateHeapBytes() {
+        long bytes = OBJECT_BYTES + (1L + logSnapshots.size()) * board.size()
+                + 4L * (moves.size() + undone.size());
+        if (history != null) {
+            bytes += (long) history.size() * Math.min(Board.CHUNK_SIZE, board.size());
+        }
+        return bytes;
+    }
+
+    /**
+     * Takes a snapshot of the current state of the game. The snapshot has its own
+     * copy of the board, so it can be written by another thread while the game
+     * continues.
+     * 
+     * @return The saved game.
+     */
+    GameSave snapshot() {
+        return new GameSave(board.copy(), mineCount, seed, firstTurnTaken, generator != null);
+    }
+
+    /**
+     * Gets the tiles of the minesweeper. The tiles are views of the packed board,
+     * so this allocates one object per cell and should be avoided on large
+     * boards in favour of {@link #getBoard()}.
      * 
      * @return 2D array of tiles.
      */
     public Tile[][] getTiles() {
+        Tile[][] tiles = new Tile[gridHeight][gridWidth];
+        for (int i = 0; i < gridHeight; i++) {
+            for (int j = 0; j < gridWidth; j++) {
+                tiles[i][j] = new Tile(board, board.index(i, j));
+            }
+        }
         return tiles;
     }
 
+    /**
+     * Gets the packed board that stores the state of every tile.
+     * 
+     * @return The board of the minesweeper.
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    public int getGridWidth() {
+        return gridWidth;
+    }
+
+    public int getGridHeight() {
+        return gridHeight;
+    }
+
+    public int getMineCount() {
+        return mineCount;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Sets whether the mines are generated so that the game can be cleared from
+     * the first click without guessing. This stays set when the game is reset.
+     * 
+     * @param generator The generator that finds such minefields, or null to
+     *                  generate mines the ordinary way.
+     */
+    public void setNoGuessGenerator(NoGuessGenerator generator) {
+        if (firstTurnTaken) {
+            throw new IllegalStateException("Mines have already been generated");
+        }
+        this.generator = generator;
+    }
+
+    /**
+     * Sets whether the turns, openings and mine placements of this game go into
+     * {@link Metrics}. Games a generator or the simulator plays internally are
+     * left out, as are moves replayed from a log, so the metrics only describe
+     * moves people play.
+     * 
+     * @param recorded False to leave this game out of the metrics.
+     */
+    void setMetricsRecorded(boolean recorded) {
+        this.recorded = recorded;
+    }
+
+    /**
+     * @return True if the mines are generated so that no guessing is needed.
+     */
+    public boolean isNoGuess() {
+        return generator != null;
+    }
+
+    /**
+     * @return True if the mines have been generated by the first turn.
+     */
+    public boolean isFirstTurnTaken() {
+        return firstTurnTaken;
+    }
+
     /**
      * Checks if the given tile is within the minefield
      * 
@@ -152,9 +536,9 @@ public class Minesweeper {
      */
     public void toggleTileFlag(int i, int j) {
         checkOutOfBounds(i, j);
-        Tile target = tiles[i][j];
-        if (target.isCovered()) {
-            target.toggleFlag();
+        int target = board.index(i, j);
+        if (flag(target)) {
+            fireBoardChanged(new int[] {target});
         }
     }
 
@@ -169,90 +553,534 @@ public class Minesweeper {
      */
     public GameState playTurn(int i, int j) {
         checkOutOfBounds(i, j);
+        long start = Metrics.start();
+        revealed.clear();
+        GameState state = reveal(board.index(i, j));
+        publishRevealed();
+        if (Metrics.ENABLED && recorded) {
+            Metrics.turnPlayed(start, revealedCells.length, state);
+        }
+        return state;
+    }
+
+    /**
+     * Uncovers every covered, unflagged tile around an uncovered clue number that
+     * has as many flags around it as its number. If a flag is misplaced, one of
+     * the tiles uncovered has a mine and the game is lost.
+     * 
+     * @param i The row of the clue, with the first row starting at i=0.
+     * @param j The column coordinate of the clue, with the first column starting
+     *          at j=0.
+     * @return a GameState enum corresponding to whether the player has won, lost,
+     *         or neither.
+     */
+    public GameState chordTile(int i, int j) {
+        checkOutOfBounds(i, j);
+        revealed.clear();
+        GameState state = chord(board.index(i, j));
+        publishRevealed();
+        return state;
+    }
+
+    /**
+     * Plays a batch of moves in one pass, such as those of a bot or a replay.
+     * The moves follow the same rules as playing them one at a time, but only
+     * their indices are checked against the board, and the solver and listeners
+     * are told about every tile changed at once at the end, with each tile listed
+     * once. Every move is checked before any is played, so a bad move leaves the
+     * game untouched. The batch stops after the first move that wins or loses the
+     * game.
+     * 
+     * @param moves The moves, encoded as by {@link #encodeMove}.
+     * @return The state of the game after the moves, how many were played and
+     *         the tiles they changed.
+     */
+    public BatchResult playMoves(int[] moves) {
+        return playMoves(moves, 0, moves.length);
+    }
+
+    /**
+     * Plays a batch of moves in one pass, as {@link #playMoves(int[])} does.
+     * 
+     * @param moves The array holding the moves, encoded as by {@link #encodeMove}.
+     * @param from  The position in the array of the first move to play.
+     * @param count The number of moves to play.
+     * @return The state of the game after the moves, how many were played and
+     *         the tiles they changed.
+     */
+    public BatchResult playMoves(int[] moves, int from, int count) {
+        Objects.checkFromIndexSize(from, count, moves.length);
+        for (int k = from; k < from + count; k++) {
+            if ((moves[k] & MOVE_CELL_MASK) >= board.size()) {
+                throw new IndexOutOfBoundsException("position clicked is out of bounds");
+            } else if (moves[k] >>> MOVE_TYPE_SHIFT > CHORD) {
+                throw new IllegalArgumentException("Unknown move: " + moves[k]);
+            }
+        }
+
+        revealed.clear();
+        flagged.clear();
+        GameState state = GameState.IN_PROGRESS;
+        int played = 0;
+        while (played < count) {
+            int move = moves[from + played++];
+            int cell = move & MOVE_CELL_MASK;
+            switch (move >>> MOVE_TYPE_SHIFT) {
+                case REVEAL -> state = reveal(cell);
+                case FLAG -> {
+                    if (flag(cell)) {
+                        flagged.add(cell);
+                    }
+                }
+                default -> state = chord(cell);
+            }
+            if (state == GameState.LOST || state == GameState.WON) {
+                break;
+            }
+        }
+        if (state != GameState.LOST) {
+            state = getState();
+        }
+
+        // one change set for every tile uncovered or flagged
+        revealedCells = revealed.toArray();
+        if (solver != null && revealedCells.length > 0) {
+            solver.reveal(revealedCells);
+        }
+        int[] cells = Arrays.copyOf(revealedCells, revealedCells.length + flagged.size());
+        int changed = revealedCells.length;
+        if (!flagged.isEmpty()) {
+            // tiles flagged more than once, or flagged and then uncovered, are listed once
+            int[] flags = flagged.toArray();
+            Arrays.sort(flags);
+            for (int k = 0; k < flags.length; k++) {
+                if ((k == 0 || flags[k] != flags[k - 1]) && board.isCovered(flags[k])) {
+                    cells[changed++] = flags[k];
+                }
+            }
+            cells = Arrays.copyOf(cells, changed);
+        }
+        ChangeSet changes = ChangeSet.of(board, cells);
+        if (cells.length > 0) {
+            fireBoardChanged(changes);
+        }
+        return new BatchResult(state, played, changes);
+    }
+
+    /**
+     * Toggles the flag on a tile if it is covered.
+     * 
+     * @param target The index of the tile on the board.
+     * @return True if the flag was toggled.
+     */
+    private boolean flag(int target) {
+        if (!board.isCovered(target)) {
+            return false;
+        }
+        record(encodeMove(FLAG, target));
+        board.toggleFlag(target);
+        return true;
+    }
 
+    /**
+     * Uncovers a tile, generating the mines first if this is the first turn. The
+     * tiles uncovered are added to the revealed list.
+     * 
+     * @param target The index of the tile on the board.
+     * @return The state of the game after the turn, which is in progress if the
+     *         tile is flagged or already uncovered.
+     */
+    private GameState reveal(int target) {
         // does nothing to flagged tiles or uncovered tiles
-        if (tiles[i][j].hasFlag() || !tiles[i][j].isCovered()) {
+        if (board.hasFlag(target) || !board.isCovered(target)) {
             return GameState.IN_PROGRESS;
         }
+        record(encodeMove(REVEAL, target));
 
         // generate mines if first turn
         if (!firstTurnTaken) {
-            randomMineMap(i, j);
+            int i = board.row(target), j = board.column(target);
+            if (generator != null) {
+                // the winning seed gives the same mines with the ordinary generation
+                seed = generator.generate(gridWidth, gridHeight, mineCount, i, j, seed).seed();
+                if (minesPlaced) {
+                    board.clearMines();
+                    minesPlaced = false;
+                }
+            }
+            if (minesPlaced) {
+                clearSafeArea(i, j);
+            } else {
+                randomMineMap(i, j);
+            }
             firstTurnTaken = true;
         }
 
         // check if tile has a mine
-        if (tiles[i][j].hasMine()) {
+        if (board.hasMine(target)) {
             return GameState.LOST;
         }
 
         // uncover region clicked
-        uncoverTile(i, j);
+        flood(target);
 
         // check if game is finished
-        for (Tile[] row : tiles) {
-            for (Tile tile : row) {
-                if (tile.isCovered() && !tile.hasMine()) {
-                    return GameState.IN_PROGRESS;
+        if (board.hasCoveredSafeCell()) {
+            return GameState.IN_PROGRESS;
+        }
+        return GameState.WON;
+    }
+
+    /**
+     * Uncovers the tiles around a clue whose mines are all flagged. The tiles
+     * uncovered are added to the revealed list.
+     * 
+     * @param target The index of the clue on the board.
+     * @return The state of the game after the move, which is in progress if the
+     *         tile is not an uncovered clue with that many flags around it or has
+     *         nothing around it to uncover.
+     */
+    private GameState chord(int target) {
+        if (board.isCovered(target) || board.getClueNumber(target) == 0) {
+            return GameState.IN_PROGRESS;
+        }
+        int i = board.row(target), j = board.column(target);
+        int top = Math.max(i - 1, 0), bottom = Math.min(i + 1, gridHeight - 1);
+        int left = Math.max(j - 1, 0), right = Math.min(j + 1, gridWidth - 1);
+        int flags = 0, covered = 0;
+        boolean mine = false;
+        for (int x = top; x <= bottom; x++) {
+            for (int y = left; y <= right; y++) {
+                int tile = board.index(x, y);
+                if (board.hasFlag(tile)) {
+                    flags++;
+                } else if (board.isCovered(tile)) {
+                    covered++;
+                    mine |= board.hasMine(tile);
                 }
             }
         }
-        return GameState.WON;
+        if (flags != board.getClueNumber(target) || covered == 0) {
+            return GameState.IN_PROGRESS;
+        }
+        record(encodeMove(CHORD, target));
+        if (mine) {
+            return GameState.LOST;
+        }
+
+        // a tile may already be uncovered by the opening of a tile before it
+        for (int x = top; x <= bottom; x++) {
+            for (int y = left; y <= right; y++) {
+                int tile = board.index(x, y);
+                if (board.isCovered(tile) && !board.hasFlag(tile)) {
+                    flood(tile);
+                }
+            }
+        }
+        return board.hasCoveredSafeCell() ? GameState.IN_PROGRESS : GameState.WON;
+    }
+
+    /**
+     * Tells the solver and the listeners about the tiles uncovered by a turn.
+     */
+    private void publishRevealed() {
+        revealedCells = revealed.isEmpty() ? NO_CELLS : revealed.toArray();
+        if (revealedCells.length > 0) {
+            if (solver != null) {
+                solver.reveal(revealedCells);
+            }
+            fireBoardChanged(revealedCells);
+        }
+    }
+
+    /**
+     * Plays an encoded move.
+     * 
+     * @param move The move, encoded as by {@link #encodeMove}.
+     * @return The state of the game after the move.
+     */
+    private GameState applyMove(int move) {
+        int cell = move & MOVE_CELL_MASK;
+        int i = board.row(cell), j = board.column(cell);
+        switch (move >>> MOVE_TYPE_SHIFT) {
+            case REVEAL -> {
+                return playTurn(i, j);
+            }
+            case FLAG -> {
+                toggleTileFlag(i, j);
+                return getState();
+            }
+            case CHORD -> {
+                return chordTile(i, j);
+            }
+            default -> throw new IllegalArgumentException("Unknown move: " + move);
+        }
+    }
+
+    /**
+     * Logs a move that is about to change the board. If undo is enabled, the
+     * state before the move is kept first, which takes constant time since the
+     * board is copied on write. Every {@link #snapshotInterval()} moves, a
+     * snapshot of the board is kept for the log as well.
+     * 
+     * @param move The move, encoded as by {@link #encodeMove}.
+     */
+    private void record(int move) {
+        if (history != null) {
+            history.push(new Step(board.copy(), seed, firstTurnTaken, minesPlaced));
+            if (!redoing) {
+                undone.clear();
+            }
+        }
+        int lastSnapshot = logSnapshots.isEmpty() ? 0
+                : logSnapshots.get(logSnapshots.size() - 1).moveCount();
+        if (moves.size() - lastSnapshot >= snapshotInterval()) {
+            logSnapshots.add(new GameLog.Snapshot(moves.size(), snapshot()));
+        }
+        moves.add(move);
+    }
+
+    /**
+     * Gets the number of moves between the snapshots kept for the log. A
+     * snapshot packs two tiles to a byte, so with at least an eighth of the
+     * board's tiles in moves between them, the snapshots take no more room in a
+     * log than the moves.
+     * 
+     * @return The number of moves between snapshots.
+     */
+    private int snapshotInterval() {
+        return Math.max(SNAPSHOT_INTERVAL, board.size() / 8);
+    }
+
+    /**
+     * Gets the state of the game from its board. A game whose last turn hit a
+     * mine is not told apart from one in progress, since hitting a mine does not
+     * change the board.
+     * 
+     * @return The state of the game.
+     */
+    private GameState getState() {
+        if (!firstTurnTaken) {
+            return GameState.NOT_STARTED;
+        }
+        return board.hasCoveredSafeCell() ? GameState.IN_PROGRESS : GameState.WON;
+    }
+
+    /**
+     * Sets whether moves can be undone. Each move kept for undoing costs memory
+     * for the chunks of the board it changed, and the moves are kept until the
+     * game is reset. Disabling undo forgets every move kept so far.
+     * 
+     * @param enabled True to keep moves so they can be undone.
+     */
+    public void setUndoEnabled(boolean enabled) {
+        if (enabled && history == null) {
+            history = new ArrayDeque<>();
+        } else if (!enabled) {
+            history = null;
+            undone.clear();
+        }
+    }
+
+    /**
+     * @return True if there is a move to undo.
+     */
+    public boolean canUndo() {
+        return history != null && !history.isEmpty();
+    }
+
+    /**
+     * @return True if there is an undone move to play again.
+     */
+    public boolean canRedo() {
+        return !undone.isEmpty();
+    }
+
+    /**
+     * Undoes the last turn or flag toggle, including a turn that hit a mine.
+     * This takes constant time, apart from bringing the solver up to date if
+     * hints have been asked for.
+     * 
+     * @return The state of the game after undoing the move.
+     */
+    public GameState undo() {
+        if (!canUndo()) {
+            throw new IllegalStateException("There is no move to undo");
+        }
+        Step step = history.pop();
+        undone.add(moves.pop());
+        while (!logSnapshots.isEmpty()
+                && logSnapshots.get(logSnapshots.size() - 1).moveCount() > moves.size()) {
+            logSnapshots.remove(logSnapshots.size() - 1);
+        }
+        board = step.board();
+        seed = step.seed();
+        firstTurnTaken = step.firstTurnTaken();
+        minesPlaced = step.minesPlaced();
+        revealedCells = NO_CELLS;
+        if (solver != null) {
+            solver.reset();
+        }
+        fireWholeBoardChanged();
+        return getState();
+    }
+
+    /**
+     * Plays the last undone move again. Any other move clears the moves that can
+     * be redone.
+     * 
+     * @return The state of the game after the move, as returned by playTurn for
+     *         a turn.
+     */
+    public GameState redo() {
+        if (!canRedo()) {
+            throw new IllegalStateException("There is no move to redo");
+        }
+        redoing = true;
+        try {
+            return applyMove(undone.pop());
+        } finally {
+            redoing = false;
+        }
+    }
+
+    private void clearHistory() {
+        if (history != null) {
+            history.clear();
+        }
+        undone.clear();
+    }
+
+    /**
+     * Copies the game in constant time, such as for trying out moves without
+     * changing this game. The copies share the chunks of the board until either
+     * one changes them, so a copy only costs memory for the tiles its moves
+     * change. The copy has no listeners, nothing to undo, and its move log starts
+     * from the state it was copied in. This must be called on the thread that
+     * plays the game.
+     * 
+     * @return The copy of the game.
+     */
+    public Minesweeper fork() {
+        return new Minesweeper(this);
     }
 
     /**
      * Generates random map of mines and clue numbers based on first tile clicked.
+     * Mines are first placed on the whole board from the seed, then any mines in
+     * the 3x3 area centered on the first tile are moved to random tiles outside
+     * it. Boards prepared ahead of the first turn by a {@link BoardPool} go
+     * through the same two steps, so the same seed and first tile always give the
+     * same mines however the board was made. Package-private so the benchmarks
+     * can time it apart from the flood fill.
      * 
      * @param i The row of the tile clicked, with the first row starting at i=0.
      * @param j The column coordinate of the tile clicked, with the first column
      *          starting at j=0.
      */
-    private void randomMineMap(int i, int j) {
-        int firstTile = i * gridWidth + j; // tile number, with first mine at position 0
-        int totalTiles = gridWidth * gridHeight;
-        ArrayList<Integer> tileNumbers = new ArrayList<>();
-        ArrayList<Integer> ignoredTiles = new ArrayList<>();
-        int[][] minePositions = new int[mineCount][2];
-
-        for (int x = -1; x < 2; x++) {
-            for (int y = -1; y < 2; y++) {
-                ignoredTiles.add(firstTile + x + y * gridWidth);
-            }
+    void randomMineMap(int i, int j) {
+        long start = Metrics.start();
+        placeMines(board, mineCount, seed);
+        clearSafeArea(i, j);
+        if (Metrics.ENABLED && recorded) {
+            Metrics.minesPlaced(start, board.size(), mineCount);
         }
+    }
 
-        /* === fisher-yates shuffle implementation === */
+    /**
+     * Places mines on tiles drawn with Floyd's sampling algorithm from the whole
+     * board, using the mine bits of the board as the set of tiles already chosen,
+     * then sets the clue numbers. This runs in time proportional to the mine
+     * count.
+     * 
+     * @param board     The empty board to place the mines on.
+     * @param mineCount The number of mines to place.
+     * @param seed      The seed the mines are drawn from.
+     */
+    static void placeMines(Board board, int mineCount, long seed) {
+        placeMines(board, mineCount, seed, () -> false);
+    }
 
-        // make array to be shuffled, discarding 3x3 area centered around first turn
-        for (int k = 0; k < totalTiles; k++) {
-            if (!ignoredTiles.contains(k)) {
-                tileNumbers.add(k);
+    /**
+     * Places mines like {@link #placeMines(Board, int, long)}, checking every
+     * {@value #PLACEMENT_CHECK_INTERVAL} mines whether the board is still wanted.
+     * 
+     * @param board     The empty board to place the mines on.
+     * @param mineCount The number of mines to place.
+     * @param seed      The seed the mines are drawn from.
+     * @param cancelled Whether to stop placing mines.
+     * @return True if every mine was placed, false if placing was cancelled, in
+     *         which case the board is left half made.
+     */
+    static boolean placeMines(Board board, int mineCount, long seed, BooleanSupplier cancelled) {
+        SplittableRandom random = new SplittableRandom(seed);
+
+        /* === floyd's sampling implementation === */
+
+        int[] minePositions = new int[mineCount];
+        for (int k = 0, top = board.size() - mineCount; k < mineCount; k++, top++) {
+            if (k % PLACEMENT_CHECK_INTERVAL == 0 && cancelled.getAsBoolean()) {
+                return false;
             }
+            int mine = random.nextInt(top + 1);
+            if (board.hasMine(mine)) {
+                mine = top;
+            }
+            board.placeMine(mine);
+            minePositions[k] = mine;
         }
 
-        // shuffle
-        for (int k = 0; k < mineCount; k++) {
-            int mineNumber = (int) (Math.random() * (totalTiles - 9 - k) + k);
-            int temp = tileNumbers.get(k);
-            tileNumbers.set(k, tileNumbers.get(mineNumber));
-            tileNumbers.set(mineNumber, temp);
-        }
+        /* ======================================= */
 
-        /* ========================================== */
+        // generate clue numbers
+        for (int mine : minePositions) {
+            board.addToNeighbourClues(mine, 1);
+        }
+        return true;
+    }
 
-        // Place mines
-        for (int k = 0; k < mineCount; k++) {
-            int mineNumber = tileNumbers.get(k);
-            int iMine = (int) Math.ceil((double) (mineNumber + 1) / gridWidth) - 1,
-                    jMine = mineNumber % gridWidth;
-            tiles[iMine][jMine].placeMine();
+    /**
+     * Moves every mine in the 3x3 area centered on the first tile clicked to a
+     * random tile outside the area without a mine. Only a handful of mines are
+     * moved, so this takes constant time however large the board is.
+     * 
+     * @param i The row of the tile clicked, with the first row starting at i=0.
+     * @param j The column coordinate of the tile clicked, with the first column
+     *          starting at j=0.
+     */
+    private void clearSafeArea(int i, int j) {
+        SplittableRandom random = new SplittableRandom(Simulator.mix(seed ^ SAFE_AREA_SALT));
+        int top = Math.max(i - 1, 0), bottom = Math.min(i + 1, gridHeight - 1);
+        int left = Math.max(j - 1, 0), right = Math.min(j + 1, gridWidth - 1);
+        for (int x = top; x <= bottom; x++) {
+            for (int y = left; y <= right; y++) {
+                int tile = board.index(x, y);
+                if (!board.hasMine(tile)) {
+                    continue;
+                }
 
-            // record mine positions for generating clue numbers
-            minePositions[k][0] = iMine;
-            minePositions[k][1] = jMine;
+                // most tiles are free unless the board is nearly full of mines
+                int target = -1;
+                for (int k = 0; k < SAFE_AREA_PROBES && target < 0; k++) {
+                    int candidate = random.nextInt(board.size());
+                    if (isFreeOutside(candidate, top, bottom, left, right)) {
+                        target = candidate;
+                    }
+                }
+                for (int k = 0, start = random.nextInt(board.size()); target < 0; k++) {
+                    int candidate = (int) ((start + (long) k) % board.size());
+                    if (isFreeOutside(candidate, top, bottom, left, right)) {
+                        target = candidate;
+                    }
+                }
+                board.moveMine(tile, target);
+            }
         }
+    }
 
-        // generate clue numbers
-        generateClueNumbers(minePositions);
+    private boolean isFreeOutside(int tile, int top, int bottom, int left, int right) {
+        int x = board.row(tile), y = board.column(tile);
+        return !board.hasMine(tile) && (x < top || x > bottom || y < left || y > right);
     }
 
     /**
@@ -264,17 +1092,28 @@ public class Minesweeper {
      */
     public void generateClueNumbers(int[][] minePositions) {
         for (int[] mine : minePositions) {
-            for (int x = -1; x < 2; x++) {
-                for (int y = -1; y < 2; y++) {
-                    int xTarget = mine[0] + x, yTarget = mine[1] + y;
+            incrementClueNumbers(board, mine[0], mine[1]);
+        }
+    }
+
+    /**
+     * Adds one to the clue number of every tile without a mine around a mine.
+     * 
+     * @param board The board the mine is on.
+     * @param i     The row of the mine.
+     * @param j     The column of the mine.
+     */
+    private static void incrementClueNumbers(Board board, int i, int j) {
+        for (int x = -1; x < 2; x++) {
+            for (int y = -1; y < 2; y++) {
+                int xTarget = i + x, yTarget = j + y;
 
-                    if (xTarget < gridHeight && xTarget >= 0 && yTarget < gridWidth
-                            && yTarget >= 0) {
-                        Tile target = tiles[xTarget][yTarget];
+                if (xTarget < board.getHeight() && xTarget >= 0 && yTarget < board.getWidth()
+                        && yTarget >= 0) {
+                    int target = board.index(xTarget, yTarget);
 
-                        if (!target.hasMine()) {
-                            target.setClueNumber(target.getClueNumber() + 1);
-                        }
+                    if (!board.hasMine(target)) {
+                        board.setClueNumber(target, board.getClueNumber(target) + 1);
                     }
                 }
             }
@@ -282,44 +1121,223 @@ public class Minesweeper {
     }
 
     /**
-     * Uncovers the region that is clicked
+     * Uncovers the region that is clicked. Tiles with a clue number of 0 also
+     * uncover their covered, unflagged neighbours without mines. The region is
+     * filled with an explicit stack, so the size of an opening is not limited by
+     * the call stack.
      * 
      * @param i The row of the tile clicked, with the first row starting at i=0.
      * @param j The column coordinate of the tile clicked, with the first column
      *          starting at j=0.
+     * @return The indices on the board of every tile uncovered, in the order they
+     *         were uncovered.
+     */
+    public int[] uncoverTile(int i, int j) {
+        revealed.clear();
+        flood(board.index(i, j));
+        return revealed.toArray();
+    }
+
+    /**
+     * Uncovers the region around a covered tile without a mine, adding the tiles
+     * uncovered to the revealed list.
+     * 
+     * @param start The index of the tile on the board.
      */
-    public void uncoverTile(int i, int j) {
-        Tile currentTile = tiles[i][j];
-        currentTile.uncover();
+    private void flood(int start) {
+        revealStack.clear();
+        int before = revealed.size();
 
-        if (currentTile.getClueNumber() != 0) {
-            return;
+        // tiles are uncovered as they are pushed so each is only visited once
+        board.uncover(start);
+        revealed.add(start);
+        if (board.getClueNumber(start) == 0) {
+            revealStack.add(start);
         }
 
-        for (int x = -1; x < 2; x++) {
-            for (int y = -1; y < 2; y++) {
-                int xTarget = i + x, yTarget = j + y;
-                if (xTarget < gridHeight && xTarget >= 0 && yTarget < gridWidth && yTarget >= 0) {
-                    Tile target = tiles[xTarget][yTarget];
-                    if (!target.hasMine() && target.isCovered()) {
-                        uncoverTile(xTarget, yTarget);
+        while (!revealStack.isEmpty()) {
+            int current = revealStack.pop();
+            int iCurrent = current / gridWidth, jCurrent = current - iCurrent * gridWidth;
+
+            for (int x = -1; x < 2; x++) {
+                int xTarget = iCurrent + x;
+                if (xTarget < 0 || xTarget >= gridHeight) {
+                    continue;
+                }
+                for (int y = -1; y < 2; y++) {
+                    int yTarget = jCurrent + y;
+                    if (yTarget < 0 || yTarget >= gridWidth) {
+                        continue;
+                    }
+                    int target = current + x * gridWidth + y;
+                    if (board.isCovered(target) && !board.hasMine(target)
+                            && !board.hasFlag(target)) {
+                        board.uncover(target);
+                        revealed.add(target);
+                        if (board.getClueNumber(target) == 0) {
+                            revealStack.add(target);
+                        }
                     }
                 }
             }
         }
+        if (Metrics.ENABLED && recorded) {
+            Metrics.tilesRevealed(revealed.size() - before);
+        }
+    }
+
+    /**
+     * Gets the tiles uncovered by the most recent turn, so that views only need to
+     * update those tiles.
+     * 
+     * @return The indices on the board of the tiles uncovered by the last call to
+     *         playTurn.
+     */
+    public int[] getRevealedCells() {
+        return revealedCells;
+    }
+
+    /**
+     * Registers a listener to be told which tiles each action changes.
+     * 
+     * @param listener The listener to add.
+     */
+    public void addBoardListener(BoardListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops telling a listener about changes.
+     * 
+     * @param listener The listener to remove.
+     */
+    public void removeBoardListener(BoardListener listener) {
+        listeners.remove(listener);
+    }
+
+    // the change set is only made if someone is listening
+    private void fireBoardChanged(int[] cells) {
+        if (!listeners.isEmpty() && cells.length > 0) {
+            fireBoardChanged(ChangeSet.of(board, cells));
+        }
+    }
+
+    private void fireBoardChanged(ChangeSet changes) {
+        for (BoardListener listener : listeners) {
+            listener.boardChanged(changes);
+        }
+    }
+
+    private void fireWholeBoardChanged() {
+        if (!listeners.isEmpty()) {
+            ChangeSet changes = ChangeSet.wholeBoard(board);
+            for (BoardListener listener : listeners) {
+                listener.boardChanged(changes);
+            }
+        }
+    }
+
+    /**
+     * Gets a tile that is certainly safe to uncover, deduced only from the clue
+     * numbers the player can see. Before the first turn every tile is safe, so
+     * the middle of the minefield is suggested.
+     * 
+     * @return The index on the board of a safe covered tile, or -1 if no tile is
+     *         certainly safe.
+     */
+    public int getHint() {
+        if (!firstTurnTaken) {
+            return board.index(gridHeight / 2, gridWidth / 2);
+        }
+        return getSolver().nextSafeCell();
+    }
+
+    /**
+     * Works out the chance of every covered tile having a mine, from the clue
+     * numbers the player can see and the mine count, with the default time
+     * budget.
+     * 
+     * @return The chances of the tiles having mines.
+     */
+    public MineProbabilities getMineProbabilities() {
+        return new ProbabilityEngine().compute(this);
+    }
+
+    /**
+     * Gets the solver that deduces the safe tiles and mines of this game. The
+     * solver is created on first use and then kept up to date by every turn.
+     * 
+     * @return The solver of the game.
+     */
+    public Solver getSolver() {
+        if (solver == null) {
+            solver = new Solver(this);
+        }
+        return solver;
     }
 
     /**
-     * (Re)sets the game.
+     * (Re)sets the game with a new random seed.
      */
     public void reset() {
+        reset(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * (Re)sets the game with the given seed.
+     * 
+     * @param seed The seed used to generate the mines of the new game.
+     */
+    public void reset(long seed) {
+        this.seed = seed;
         firstTurnTaken = false;
-        tiles = new Tile[gridHeight][gridWidth];
-        for (int i = 0; i < gridHeight; i++) {
-            for (int j = 0; j < gridWidth; j++) {
-                tiles[i][j] = new Tile();
-            }
+        minesPlaced = false;
+        revealedCells = NO_CELLS;
+        moves.clear();
+        logSnapshots.clear();
+        logBase = null;
+        clearHistory();
+        if (board == null || board.getWidth() != gridWidth
+                || board.getHeight() != gridHeight) {
+            board = new Board(gridWidth, gridHeight);
+        } else {
+            board.clear();
+        }
+        if (solver != null) {
+            solver.reset();
         }
+        fireWholeBoardChanged();
+    }
+
+    /**
+     * (Re)sets the game with a board prepared by a {@link BoardPool}, whose mines
+     * are already placed. This takes constant time, leaving only the mines
+     * around the first tile clicked to be moved on the first turn.
+     * 
+     * @param prepared The prepared board, which is owned by this game afterwards.
+     * @return True if the board was used, false if it was made for a different
+     *         size or mine count, in which case the game is unchanged.
+     */
+    public boolean reset(BoardPool.PreparedBoard prepared) {
+        Board preparedBoard = prepared.board();
+        if (preparedBoard.getWidth() != gridWidth || preparedBoard.getHeight() != gridHeight
+                || prepared.mineCount() != mineCount) {
+            return false;
+        }
+        seed = prepared.seed();
+        board = preparedBoard;
+        firstTurnTaken = false;
+        minesPlaced = true;
+        revealedCells = NO_CELLS;
+        moves.clear();
+        logSnapshots.clear();
+        logBase = null;
+        clearHistory();
+        if (solver != null) {
+            solver.reset();
+        }
+        fireWholeBoardChanged();
+        return true;
     }
 
     /**
@@ -328,11 +1346,11 @@ public class Minesweeper {
      * @param i The row of the tile clicked, with the first row starting at i=0.
      * @param j The column coordinate of the tile clicked, with the first column
      *          starting at j=0.
-     * @return The corresponding Tile object
+     * @return A Tile view of the corresponding cell
      */
     public Tile getTile(int i, int j) {
         checkOutOfBounds(i, j);
-        return tiles[i][j];
+        return new Tile(board, board.index(i, j));
     }
 
     /**
@@ -341,14 +1359,17 @@ public class Minesweeper {
      * @param transparent True reveals mines and clue numbers, false hides them.
      */
     public String asciiGameState(boolean transparent) {
-        StringBuilder builder = new StringBuilder();
-        for (Tile[] row : tiles) {
-            for (Tile tile : row) {
-                if (tile.hasMine() && transparent) {
+        StringBuilder builder = new StringBuilder(gridHeight * (gridWidth + 1));
+        int index = 0;
+        for (int i = 0; i < gridHeight; i++) {
+            for (int j = 0; j < gridWidth; j++, index++) {
+                int clue = board.getClueNumber(index);
+                boolean covered = board.isCovered(index);
+                if (board.hasMine(index) && transparent) {
                     builder.append('*');
-                } else if (tile.getClueNumber() != 0 && (transparent || !tile.isCovered())) {
-                    builder.append(tile.getClueNumber());
-                } else if (tile.isCovered()) {
+                } else if (clue != 0 && (transparent || !covered)) {
+                    builder.append(clue);
+                } else if (covered) {
                     builder.append('%');
                 } else {
                     builder.append('-');
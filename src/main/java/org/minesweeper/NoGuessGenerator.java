@@ -0,0 +1,302 @@
+package org.minesweeper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This finds minefields that can be cleared from the first click without ever
+ * guessing. Candidate k for a game is the ordinary minefield generated from a
+ * seed mixed from the game's seed and k, and it is accepted if a player who
+ * only makes certain moves can clear it: moves the {@link Solver} deduces, and
+ * tiles the {@link ProbabilityEngine} finds cannot have a mine given the total
+ * mine count.
+ * <p>
+ * Candidates are checked in parallel on a fork/join pool, one per thread at a
+ * time, and the lowest numbered solvable candidate wins. As soon as a
+ * candidate is found solvable, the threads stop checking candidates numbered
+ * after it, so the result is the same however many threads are used. Since the
+ * candidates only depend on the seed and the first click, the winning seed is
+ * all that is needed to generate the same minefield again.
+ * <p>
+ * Generation as a whole has a time budget, so a first click never waits long
+ * for a board. When the budget runs out the threads stop, and the lowest
+ * solvable candidate found so far is used, or the game's own seed if there is
+ * none. Candidate games are played internally and are left out of
+ * {@link Metrics}.
+ */
+public class NoGuessGenerator {
+    public static final int DEFAULT_MAX_ATTEMPTS = 10_000;
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 5000;
+
+    private static final long PROBABILITY_BUDGET_MILLIS = 1000; // per stuck position
+
+    private final ForkJoinPool pool;
+    private final int maxAttempts;
+    private final long timeBudgetNanos;
+
+    // totals over every board generated
+    private final LongAdder boards = new LongAdder();
+    private final LongAdder solvedBoards = new LongAdder();
+    private final LongAdder timedOutBoards = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder candidatesChecked = new LongAdder();
+    private final LongAdder generationNanos = new LongAdder();
+
+    /**
+     * The outcome of generating a board.
+     *
+     * @param seed              The seed of the board to play, which generates the
+     *                          board from the first click with
+     *                          the ordinary mine generation.
+     * @param attempts          The number of the winning candidate plus one, or
+     *                          the number of candidates tried if none was
+     *                          solvable.
+     * @param candidatesChecked The number of candidates checked by every thread,
+     *                          including those cancelled.
+     * @param elapsedNanos      The time generation took, in nanoseconds.
+     * @param solvable          False if no candidate was solvable, in which case
+     *                          the seed is the game's own seed.
+     * @param timedOut          True if the time budget ran out before every
+     *                          lower candidate was ruled out, so the seed may not
+     *                          be the lowest solvable candidate, or, if none was
+     *                          solvable, not every candidate was tried.
+     */
+    public record Result(
+            long seed, long attempts, long candidatesChecked, long elapsedNanos,
+            boolean solvable, boolean timedOut
+    ) {
+    }
+
+    /**
+     * Creates a generator that runs on the common fork/join pool.
+     */
+    public NoGuessGenerator() {
+        this(ForkJoinPool.commonPool(), DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Creates a generator with the default time budget.
+     *
+     * @param pool        The pool candidates are checked on.
+     * @param maxAttempts The number of candidates to try before giving up.
+     */
+    public NoGuessGenerator(ForkJoinPool pool, int maxAttempts) {
+        this(pool, maxAttempts, DEFAULT_TIME_BUDGET_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a generator.
+     *
+     * @param pool        The pool candidates are checked on.
+     * @param maxAttempts The number of candidates to try before giving up.
+     * @param timeBudget  The time generating a board may take before giving up.
+     * @param unit        The unit of the time budget.
+     */
+    public NoGuessGenerator(ForkJoinPool pool, int maxAttempts, long timeBudget, TimeUnit unit) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("Max attempts must be positive");
+        } else if (timeBudget < 0) {
+            throw new IllegalArgumentException("Time budget must be non-negative");
+        }
+        this.pool = pool;
+        this.maxAttempts = maxAttempts;
+        this.timeBudgetNanos = unit.toNanos(timeBudget);
+    }
+
+    /**
+     * Finds a seed whose minefield can be cleared without guessing from the
+     * given first click.
+     *
+     * @param gridWidth  The width of the minefield in tiles.
+     * @param gridHeight The height of the minefield in tiles.
+     * @param mineCount  The number of mines in the minefield.
+     * @param i          The row of the first tile clicked.
+     * @param j          The column of the first tile clicked.
+     * @param seed       The seed the candidates are derived from.
+     * @return The seed of the board to play and how it was found.
+     */
+    public Result generate(int gridWidth, int gridHeight, int mineCount, int i, int j, long seed) {
+        long start = System.nanoTime();
+        long deadline = start + timeBudgetNanos;
+        AtomicLong next = new AtomicLong();
+        AtomicLong best = new AtomicLong(Long.MAX_VALUE);
+        AtomicLong checked = new AtomicLong();
+        AtomicBoolean timedOut = new AtomicBoolean();
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                List<RecursiveAction> workers = new ArrayList<>();
+                for (int w = 0; w < pool.getParallelism(); w++) {
+                    workers.add(new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            Minesweeper game = new Minesweeper(
+                                    gridWidth, gridHeight, mineCount, seed
+                            );
+                            game.setMetricsRecorded(false);
+                            ProbabilityEngine engine = new ProbabilityEngine(
+                                    pool, PROBABILITY_BUDGET_MILLIS, TimeUnit.MILLISECONDS
+                            );
+                            long k;
+                            while ((k = next.getAndIncrement()) < maxAttempts && k < best.get()) {
+                                if (System.nanoTime() - deadline >= 0) {
+                                    timedOut.set(true);
+                                    return;
+                                }
+                                checked.incrementAndGet();
+                                game.reset(candidateSeed(seed, k));
+                                if (isSolvable(game, engine, i, j, k, best, deadline)) {
+                                    best.accumulateAndGet(k, Math::min);
+                                } else if (System.nanoTime() - deadline >= 0 && k < best.get()) {
+                                    // the candidate may have been given up halfway
+                                    timedOut.set(true);
+                                    return;
+                                }
+                            }
+                        }
+                    });
+                }
+                invokeAll(workers);
+            }
+        });
+
+        long winner = best.get();
+        boolean solvable = winner != Long.MAX_VALUE;
+        long tried = timedOut.get() ? checked.get() : maxAttempts;
+        Result result = new Result(
+                solvable ? candidateSeed(seed, winner) : seed,
+                solvable ? winner + 1 : tried, checked.get(), System.nanoTime() - start,
+                solvable, timedOut.get()
+        );
+        boards.increment();
+        if (solvable) {
+            solvedBoards.increment();
+        }
+        if (result.timedOut()) {
+            timedOutBoards.increment();
+        }
+        attempts.add(result.attempts());
+        candidatesChecked.add(result.candidatesChecked());
+        generationNanos.add(result.elapsedNanos());
+        return result;
+    }
+
+    /**
+     * Gets the seed of a candidate.
+     *
+     * @param seed The seed the candidates are derived from.
+     * @param k    The number of the candidate.
+     * @return The seed of the candidate.
+     */
+    static long candidateSeed(long seed, long k) {
+        return Simulator.mix(seed + k);
+    }
+
+    /**
+     * Plays a candidate making only certain moves.
+     *
+     * @param game   The game to play, reset with the candidate's seed.
+     * @param engine The engine used when the solver finds no safe tile.
+     * @param i      The row of the first tile clicked.
+     * @param j      The column of the first tile clicked.
+     * @param k        The number of the candidate.
+     * @param best     The lowest solvable candidate found so far.
+     * @param deadline The time generation must stop by, from
+     *                 {@link System#nanoTime()}.
+     * @return True if the game was won, false if it needed a guess, a lower
+     *         candidate was found solvable first or the deadline passed.
+     */
+    private static boolean isSolvable(
+            Minesweeper game, ProbabilityEngine engine, int i, int j, long k, AtomicLong best,
+            long deadline
+    ) {
+        Board board = game.getBoard();
+        GameState state = game.playTurn(i, j);
+        while (state == GameState.IN_PROGRESS) {
+            if (best.get() < k || System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            int move = game.getHint();
+            if (move < 0) {
+                move = certainlySafeCell(game, engine, deadline);
+                if (move < 0) {
+                    return false;
+                }
+            }
+            state = game.playTurn(board.row(move), board.column(move));
+        }
+        return state == GameState.WON;
+    }
+
+    /**
+     * Finds a tile that cannot have a mine once the mine count is taken into
+     * account, such as when every remaining mine is accounted for on the
+     * frontier.
+     *
+     * @return The index of the tile, or -1 if there is none.
+     */
+    private static int certainlySafeCell(
+            Minesweeper game, ProbabilityEngine engine, long deadline
+    ) {
+        MineProbabilities probabilities = engine.compute(game, deadline);
+        if (!probabilities.isExact()) {
+            return -1;
+        }
+        int cell = probabilities.safestCell();
+        return cell >= 0 && probabilities.get(cell) == 0 ? cell : -1;
+    }
+
+    /**
+     * @return The number of boards generated.
+     */
+    public long getBoardsGenerated() {
+        return boards.sum();
+    }
+
+    /**
+     * @return The fraction of boards for which a solvable candidate was found.
+     */
+    public double getSolvedRate() {
+        long total = boards.sum();
+        return total == 0 ? 0 : (double) solvedBoards.sum() / total;
+    }
+
+    /**
+     * @return The number of boards whose generation ran out of time.
+     */
+    public long getBoardsTimedOut() {
+        return timedOutBoards.sum();
+    }
+
+    /**
+     * @return The average number of candidates needed per board.
+     */
+    public double getAverageAttempts() {
+        long total = boards.sum();
+        return total == 0 ? 0 : (double) attempts.sum() / total;
+    }
+
+    /**
+     * @return The average number of candidates checked per board, including those
+     *         cancelled.
+     */
+    public double getAverageCandidatesChecked() {
+        long total = boards.sum();
+        return total == 0 ? 0 : (double) candidatesChecked.sum() / total;
+    }
+
+    /**
+     * @return The average time taken to generate a board, in milliseconds.
+     */
+    public double getAverageGenerationMillis() {
+        long total = boards.sum();
+        return total == 0 ? 0 : generationNanos.sum() / 1e6 / total;
+    }
+}
@@ -0,0 +1,675 @@
+package org.minesweeper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This works out the chance of every covered tile having a mine from the clue
+ * numbers a player can see and the total mine count.
+ * <p>
+ * The covered tiles next to the frontier, which the solver has not decided,
+ * are split into components, where two tiles are in the same component if a
+ * clue touches both. The components are independent except through the total
+ * mine count, so the valid mine placements of each component are enumerated
+ * on their own, in parallel on a fork/join pool, counting the placements by the
+ * number of mines they use. The counts are then combined: a total of K mines
+ * on the frontier leaves the rest of the mines to be spread over the other
+ * covered tiles, which can be done in a binomial number of ways, worked out in
+ * log space so it does not overflow.
+ * <p>
+ * Enumeration stops when the time budget runs out, and the components it did
+ * not finish, or that are too large to enumerate, are estimated from their
+ * clues alone. When there are so many
+ * components that the exact combination would be slow, they are combined as
+ * if independent, weighting each mine by the odds of the tiles away from the
+ * frontier. Either way the result is marked as not exact.
+ */
+public class ProbabilityEngine {
+    public static final long DEFAULT_TIME_BUDGET_MILLIS = 100;
+
+    private static final int PARALLEL_THRESHOLD = 24; // fewer unknown tiles run inline
+    private static final int MAX_ENUMERATED_TILES = 256; // larger components are estimated
+    private static final int DEADLINE_CHECK_INTERVAL = 1 << 12; // nodes between clock reads
+    private static final long COMBINE_LIMIT = 1L << 24; // work allowed for the exact combination
+    private static final int ODDS_ITERATIONS = 8; // refinements of the independent weighting
+
+    private final ForkJoinPool pool;
+    private final long timeBudgetNanos;
+
+    /**
+     * Creates an engine that runs on the common fork/join pool with the default
+     * time budget.
+     */
+    public ProbabilityEngine() {
+        this(ForkJoinPool.commonPool(), DEFAULT_TIME_BUDGET_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates an engine.
+     *
+     * @param pool       The pool the components are enumerated on.
+     * @param timeBudget The time enumeration may take before falling back to
+     *                   estimates.
+     * @param unit       The unit of the time budget.
+     */
+    public ProbabilityEngine(ForkJoinPool pool, long timeBudget, TimeUnit unit) {
+        if (timeBudget < 0) {
+            throw new IllegalArgumentException("Time budget must be non-negative");
+        }
+        this.pool = pool;
+        this.timeBudgetNanos = unit.toNanos(timeBudget);
+    }
+
+    /**
+     * Works out the chance of every covered tile of a game having a mine.
+     *
+     * @param game The game to analyse.
+     * @return The chances of the tiles having mines.
+     */
+    public MineProbabilities compute(Minesweeper game) {
+        return compute(game, System.nanoTime() + timeBudgetNanos);
+    }
+
+    /**
+     * Works out the chance of every covered tile of a game having a mine,
+     * stopping enumeration by a deadline if it comes before the end of the time
+     * budget.
+     *
+     * @param game     The game to analyse.
+     * @param deadline The time enumeration must stop by, from
+     *                 {@link System#nanoTime()}.
+     * @return The chances of the tiles having mines.
+     */
+    MineProbabilities compute(Minesweeper game, long deadline) {
+        long budgetDeadline = System.nanoTime() + timeBudgetNanos;
+        if (deadline - budgetDeadline > 0) {
+            deadline = budgetDeadline;
+        }
+        Board board = game.getBoard();
+        Solver solver = game.getSolver();
+
+        // the unknown tiles next to a clue and the clues that constrain them
+        int[] frontier = solver.getFrontier();
+        IntList edge = new IntList();
+        int[][] clueCells = new int[frontier.length][];
+        int[] clueMines = new int[frontier.length];
+        int[] neighbours = new int[8];
+        for (int c = 0; c < frontier.length; c++) {
+            int count = 0, mines = board.getClueNumber(frontier[c]);
+            int i = board.row(frontier[c]), j = board.column(frontier[c]);
+            for (int x = Math.max(i - 1, 0); x <= Math.min(i + 1, board.getHeight() - 1); x++) {
+                for (int y = Math.max(j - 1, 0); y <= Math.min(j + 1, board.getWidth() - 1); y++) {
+                    int target = board.index(x, y);
+                    if (!board.isCovered(target) || solver.isKnownSafe(target)) {
+                        continue;
+                    }
+                    if (solver.isKnownMine(target)) {
+                        mines--;
+                    } else {
+                        neighbours[count++] = target;
+                        edge.add(target);
+                    }
+                }
+            }
+            clueCells[c] = Arrays.copyOf(neighbours, count);
+            clueMines[c] = mines;
+        }
+        int[] edgeCells = Arrays.stream(edge.toArray()).sorted().distinct().toArray();
+
+        // covered tiles away from the frontier and the mines not yet found
+        long covered = board.getCoveredSafeCellCount() + (long) game.getMineCount();
+        int knownMines = solver.getKnownMines().length;
+        long interior = covered - knownMines - solver.getSafeCells().length - edgeCells.length;
+        int remainingMines = game.getMineCount() - knownMines;
+
+        List<Component> components = split(edgeCells, clueCells, clueMines);
+        enumerate(components, deadline);
+        return combine(board, solver, edgeCells, components, interior, remainingMines);
+    }
+
+    /**
+     * Splits the edge tiles into components of tiles linked by shared clues.
+     *
+     * @param edgeCells The unknown tiles next to a clue, in ascending order.
+     * @param clueCells The unknown neighbours of each clue.
+     * @param clueMines The mines each clue still needs.
+     * @return The components.
+     */
+    private static List<Component> split(int[] edgeCells, int[][] clueCells, int[] clueMines) {
+        int[] parent = new int[edgeCells.length];
+        for (int v = 0; v < parent.length; v++) {
+            parent[v] = v;
+        }
+        int[][] clueVariables = new int[clueCells.length][];
+        for (int c = 0; c < clueCells.length; c++) {
+            clueVariables[c] = new int[clueCells[c].length];
+            for (int k = 0; k < clueCells[c].length; k++) {
+                clueVariables[c][k] = Arrays.binarySearch(edgeCells, clueCells[c][k]);
+                union(parent, clueVariables[c][0], clueVariables[c][k]);
+            }
+        }
+
+        // number the components by their first tile
+        int[] componentOf = new int[edgeCells.length];
+        List<IntList> variables = new ArrayList<>();
+        List<IntList> clues = new ArrayList<>();
+        Arrays.fill(componentOf, -1);
+        for (int v = 0; v < edgeCells.length; v++) {
+            int root = find(parent, v);
+            if (componentOf[root] < 0) {
+                componentOf[root] = variables.size();
+                variables.add(new IntList());
+                clues.add(new IntList());
+            }
+            variables.get(componentOf[root]).add(v);
+        }
+        for (int c = 0; c < clueCells.length; c++) {
+            if (clueVariables[c].length > 0) {
+                clues.get(componentOf[find(parent, clueVariables[c][0])]).add(c);
+            }
+        }
+
+        List<Component> components = new ArrayList<>(variables.size());
+        for (int k = 0; k < variables.size(); k++) {
+            components.add(new Component(
+                    edgeCells, variables.get(k).toArray(), clues.get(k).toArray(), clueVariables,
+                    clueMines
+            ));
+        }
+        return components;
+    }
+
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        parent[find(parent, a)] = find(parent, b);
+    }
+
+    /**
+     * Enumerates the components, in parallel if there is enough work.
+     *
+     * @param components The components to enumerate.
+     * @param deadline   The time enumeration must stop by, from
+     *                   {@link System#nanoTime()}.
+     */
+    private void enumerate(List<Component> components, long deadline) {
+        int variables = 0;
+        for (Component component : components) {
+            variables += component.size();
+        }
+        if (components.size() < 2 || variables < PARALLEL_THRESHOLD) {
+            for (Component component : components) {
+                component.enumerate(deadline);
+            }
+            return;
+        }
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                List<RecursiveAction> tasks = new ArrayList<>(components.size());
+                for (Component component : components) {
+                    tasks.add(new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            component.enumerate(deadline);
+                        }
+                    });
+                }
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    /**
+     * Combines the placement counts of the components with the ways of placing
+     * the rest of the mines away from the frontier.
+     */
+    private static MineProbabilities combine(
+            Board board, Solver solver, int[] edgeCells, List<Component> components,
+            long interior, int remainingMines
+    ) {
+        boolean exact = true;
+        long combineWork = 0;
+        for (Component component : components) {
+            exact &= component.exact;
+            combineWork += (long) components.size() * component.size() * edgeCells.length;
+        }
+
+        double[] edgeProbabilities = new double[edgeCells.length];
+        double interiorProbability;
+        if (combineWork <= COMBINE_LIMIT) {
+            interiorProbability = combineExactly(
+                    components, edgeProbabilities, edgeCells.length, interior, remainingMines
+            );
+        } else {
+            exact = false;
+            interiorProbability = combineIndependently(
+                    components, edgeProbabilities, interior, remainingMines
+            );
+        }
+        return new MineProbabilities(
+                board, solver, edgeCells, edgeProbabilities, interiorProbability, exact
+        );
+    }
+
+    /**
+     * Combines the components exactly. The placements of all components but one
+     * are convolved from prefix and suffix products, so each component is
+     * weighted by every way the others and the interior can hold the rest of the
+     * mines.
+     *
+     * @return The chance of an interior tile having a mine.
+     */
+    private static double combineExactly(
+            List<Component> components, double[] edgeProbabilities, int edgeCount,
+            long interior, int remainingMines
+    ) {
+        int m = components.size();
+        double[][] prefix = new double[m + 1][], suffix = new double[m + 1][];
+        prefix[0] = new double[] { 1 };
+        for (int k = 0; k < m; k++) {
+            prefix[k + 1] = convolve(prefix[k], components.get(k).counts);
+        }
+        suffix[m] = new double[] { 1 };
+        for (int k = m - 1; k >= 0; k--) {
+            suffix[k] = convolve(components.get(k).counts, suffix[k + 1]);
+        }
+
+        // log of the ways to place r mines in the interior, for every r needed
+        double[] logWays = logBinomials(interior, remainingMines, edgeCount);
+        int lowest = remainingMines - edgeCount; // r of logWays[0]
+
+        for (int k = 0; k < m; k++) {
+            Component component = components.get(k);
+            double[] others = convolve(prefix[k], suffix[k + 1]);
+
+            // weight[j]: ways for the rest of the board when this component holds j mines
+            double[] weight = new double[component.counts.length];
+            double[] logWeight = new double[weight.length];
+            double max = Double.NEGATIVE_INFINITY;
+            for (int j = 0; j < weight.length; j++) {
+                logWeight[j] = Double.NEGATIVE_INFINITY;
+                if (component.counts[j] == 0) {
+                    continue;
+                }
+                double best = Double.NEGATIVE_INFINITY;
+                for (int o = 0; o < others.length; o++) {
+                    int r = remainingMines - j - o;
+                    if (others[o] != 0 && r - lowest >= 0 && r - lowest < logWays.length) {
+                        best = Math.max(best, logWays[r - lowest]);
+                    }
+                }
+                if (best == Double.NEGATIVE_INFINITY) {
+                    continue;
+                }
+                double sum = 0;
+                for (int o = 0; o < others.length; o++) {
+                    int r = remainingMines - j - o;
+                    if (others[o] != 0 && r - lowest >= 0 && r - lowest < logWays.length) {
+                        sum += others[o] * Math.exp(logWays[r - lowest] - best);
+                    }
+                }
+                logWeight[j] = Math.log(sum) + best;
+                max = Math.max(max, logWeight[j]);
+            }
+            for (int j = 0; j < weight.length; j++) {
+                weight[j] = max == Double.NEGATIVE_INFINITY ? 0 : Math.exp(logWeight[j] - max);
+            }
+            component.apply(weight, edgeProbabilities);
+        }
+
+        // expected mines in the interior over every total on the frontier
+        if (interior <= 0) {
+            return 0;
+        }
+        double[] all = prefix[m];
+        double max = Double.NEGATIVE_INFINITY;
+        for (int total = 0; total < all.length; total++) {
+            int r = remainingMines - total;
+            if (all[total] != 0 && r - lowest >= 0 && r - lowest < logWays.length) {
+                max = Math.max(max, logWays[r - lowest]);
+            }
+        }
+        double weightSum = 0, minesSum = 0;
+        for (int total = 0; total < all.length; total++) {
+            int r = remainingMines - total;
+            if (all[total] != 0 && r - lowest >= 0 && r - lowest < logWays.length) {
+                double w = all[total] * Math.exp(logWays[r - lowest] - max);
+                weightSum += w;
+                minesSum += w * r;
+            }
+        }
+        return weightSum == 0 ? 0 : minesSum / weightSum / interior;
+    }
+
+    /**
+     * Works out the log of the number of ways to place r mines in the interior,
+     * relative to the smallest r that can be needed, for r from remainingMines
+     * less the number of edge tiles up to remainingMines. Impossible values of r
+     * are negative infinity. Consecutive binomials differ by a simple ratio, so
+     * no factorials are needed.
+     */
+    private static double[] logBinomials(long interior, int remainingMines, int edgeCount) {
+        double[] logWays = new double[edgeCount + 1];
+        Arrays.fill(logWays, Double.NEGATIVE_INFINITY);
+        int lowest = remainingMines - edgeCount;
+        int start = Math.max(lowest, 0);
+        double log = 0;
+        for (int r = start; r <= remainingMines && r <= interior; r++) {
+            logWays[r - lowest] = log;
+            log += Math.log((double) (interior - r) / (r + 1));
+        }
+        return logWays;
+    }
+
+    /**
+     * Combines the components as if each tile on the frontier had a mine
+     * independently of the other components, with odds matching the density of
+     * mines away from the frontier. The density is refined a few times from the
+     * expected number of mines on the frontier.
+     *
+     * @return The chance of an interior tile having a mine.
+     */
+    private static double combineIndependently(
+            List<Component> components, double[] edgeProbabilities, long interior,
+            int remainingMines
+    ) {
+        int edgeCount = edgeProbabilities.length;
+        double density = (double) remainingMines / Math.max(interior + edgeCount, 1);
+        for (int iteration = 0; iteration < ODDS_ITERATIONS; iteration++) {
+            double clamped = Math.min(Math.max(density, 1e-9), 1 - 1e-9);
+            double logOdds = Math.log(clamped / (1 - clamped));
+            double expected = 0;
+            for (Component component : components) {
+                double[] weight = new double[component.counts.length];
+                double max = Double.NEGATIVE_INFINITY;
+                for (int j = 0; j < weight.length; j++) {
+                    if (component.counts[j] != 0) {
+                        max = Math.max(max, j * logOdds);
+                    }
+                }
+                for (int j = 0; j < weight.length; j++) {
+                    weight[j] = Math.exp(j * logOdds - max);
+                }
+                expected += component.apply(weight, edgeProbabilities);
+            }
+            density = interior <= 0 ? 0 : (remainingMines - expected) / interior;
+        }
+        return Math.min(Math.max(density, 0), 1);
+    }
+
+    private static double[] convolve(double[] a, double[] b) {
+        double[] result = new double[a.length + b.length - 1];
+        for (int x = 0; x < a.length; x++) {
+            if (a[x] == 0) {
+                continue;
+            }
+            for (int y = 0; y < b.length; y++) {
+                result[x + y] += a[x] * b[y];
+            }
+        }
+
+        // keep the values in range, only their ratios matter
+        double max = 0;
+        for (double value : result) {
+            max = Math.max(max, value);
+        }
+        if (max > 0) {
+            for (int k = 0; k < result.length; k++) {
+                result[k] /= max;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * A set of edge tiles linked by shared clues, and the number of valid mine
+     * placements on them by the number of mines used.
+     */
+    private static final class Component {
+        private final int[] edgeIndices; // position of each tile in the edge tile array
+        private final int[][] variableClues; // the clues touching each tile
+        private final int[][] clueVariables; // the tiles each clue touches
+        private final int[] clueMines; // the mines each clue needs
+
+        double[] counts; // placements by number of mines, scaled
+        double[][] mineCounts; // placements with each tile holding a mine, by mines
+        double[] estimates; // chance of each tile having a mine, set instead if estimated
+        boolean exact = true;
+
+        // search state
+        private final boolean[] assigned;
+        private final int[] tried; // values tried for each tile on the search path
+        private final int[] clueAssignedMines, clueUnassigned;
+        private long nodes;
+        private boolean timedOut;
+
+        Component(
+                int[] edgeCells, int[] variables, int[] clues, int[][] allClueVariables,
+                int[] allClueMines
+        ) {
+            int n = variables.length;
+            int[] local = new int[edgeCells.length];
+            Arrays.fill(local, -1);
+
+            // order the tiles breadth first so clues are closed early in the search
+            clueVariables = new int[clues.length][];
+            clueMines = new int[clues.length];
+            int[][] touching = new int[n][];
+            int[] touchCount = new int[n];
+            for (int v = 0; v < n; v++) {
+                local[variables[v]] = v;
+            }
+            for (int c = 0; c < clues.length; c++) {
+                for (int v : allClueVariables[clues[c]]) {
+                    touchCount[local[v]]++;
+                }
+            }
+            for (int v = 0; v < n; v++) {
+                touching[v] = new int[touchCount[v]];
+                touchCount[v] = 0;
+            }
+            for (int c = 0; c < clues.length; c++) {
+                for (int v : allClueVariables[clues[c]]) {
+                    touching[local[v]][touchCount[local[v]]++] = c;
+                }
+            }
+            int[] order = new int[n];
+            boolean[] seen = new boolean[n];
+            int head = 0, tail = 0;
+            order[tail++] = 0;
+            seen[0] = true;
+            while (head < tail) {
+                int v = order[head++];
+                for (int c : touching[v]) {
+                    for (int w : allClueVariables[clues[c]]) {
+                        if (!seen[local[w]]) {
+                            seen[local[w]] = true;
+                            order[tail++] = local[w];
+                        }
+                    }
+                }
+            }
+
+            // renumber the tiles in search order
+            int[] rank = new int[n];
+            edgeIndices = new int[n];
+            for (int k = 0; k < n; k++) {
+                rank[order[k]] = k;
+                edgeIndices[k] = variables[order[k]];
+            }
+            variableClues = new int[n][];
+            for (int v = 0; v < n; v++) {
+                variableClues[rank[v]] = touching[v];
+            }
+            for (int c = 0; c < clues.length; c++) {
+                int[] touched = allClueVariables[clues[c]];
+                clueVariables[c] = new int[touched.length];
+                for (int k = 0; k < touched.length; k++) {
+                    clueVariables[c][k] = rank[local[touched[k]]];
+                }
+                clueMines[c] = allClueMines[clues[c]];
+            }
+
+            assigned = new boolean[n];
+            tried = new int[n];
+            clueAssignedMines = new int[clues.length];
+            clueUnassigned = new int[clues.length];
+        }
+
+        int size() {
+            return edgeIndices.length;
+        }
+
+        /**
+         * Counts the valid placements of mines on the component, or estimates
+         * them if the component is too large or the deadline passes first.
+         */
+        void enumerate(long deadline) {
+            int n = size();
+            if (n > MAX_ENUMERATED_TILES) {
+                estimate();
+                return;
+            }
+            counts = new double[n + 1];
+            mineCounts = new double[n][n + 1];
+            for (int c = 0; c < clueVariables.length; c++) {
+                clueUnassigned[c] = clueVariables[c].length;
+            }
+            search(deadline);
+            if (timedOut) {
+                estimate();
+            }
+        }
+
+        /**
+         * Tries every tile without and then with a mine, depth first. The tiles
+         * assigned so far form the stack, and backtracking pops the last tile
+         * whose values have all been tried.
+         */
+        private void search(long deadline) {
+            int n = size();
+            int v = 0, mines = 0;
+            while (true) {
+                if (++nodes % DEADLINE_CHECK_INTERVAL == 0 && System.nanoTime() > deadline) {
+                    timedOut = true;
+                    return;
+                }
+                if (v == n) {
+                    counts[mines]++;
+                    for (int k = 0; k < n; k++) {
+                        if (assigned[k]) {
+                            mineCounts[k][mines]++;
+                        }
+                    }
+                } else if (tried[v] < 2) {
+                    int mine = tried[v]++;
+                    if (place(v, mine)) {
+                        assigned[v] = mine == 1;
+                        mines += mine;
+                        if (++v < n) {
+                            tried[v] = 0;
+                        }
+                    } else {
+                        unplace(v, mine);
+                    }
+                    continue;
+                }
+
+                // every value of this tile has been tried, so go back to the last one
+                if (--v < 0) {
+                    return;
+                }
+                int mine = tried[v] - 1;
+                unplace(v, mine);
+                mines -= mine;
+                assigned[v] = false;
+            }
+        }
+
+        /**
+         * Gives a tile a value, updating the clues around it.
+         *
+         * @return True if every clue around the tile can still be satisfied.
+         */
+        private boolean place(int v, int mine) {
+            boolean valid = true;
+            for (int c : variableClues[v]) {
+                clueUnassigned[c]--;
+                clueAssignedMines[c] += mine;
+                int needed = clueMines[c] - clueAssignedMines[c];
+                valid &= needed >= 0 && needed <= clueUnassigned[c];
+            }
+            return valid;
+        }
+
+        private void unplace(int v, int mine) {
+            for (int c : variableClues[v]) {
+                clueUnassigned[c]++;
+                clueAssignedMines[c] -= mine;
+            }
+        }
+
+        /**
+         * Estimates the chance of each tile having a mine from the share of the
+         * remaining mines of the clues around it, as if the component always held
+         * the expected number of mines.
+         */
+        private void estimate() {
+            exact = false;
+            int n = size();
+            estimates = new double[n];
+            double expected = 0;
+            for (int v = 0; v < n; v++) {
+                double sum = 0;
+                for (int c : variableClues[v]) {
+                    sum += (double) clueMines[c] / clueVariables[c].length;
+                }
+                estimates[v] = Math.min(sum / variableClues[v].length, 1);
+                expected += estimates[v];
+            }
+            counts = new double[n + 1];
+            counts[(int) Math.round(expected)] = 1;
+            mineCounts = null;
+        }
+
+        /**
+         * Works out the chance of each tile having a mine given a weight for each
+         * number of mines the component can hold.
+         *
+         * @param weight            The weight of each number of mines.
+         * @param edgeProbabilities The chances of the edge tiles, written to.
+         * @return The expected number of mines in the component.
+         */
+        double apply(double[] weight, double[] edgeProbabilities) {
+            double total = 0, expected = 0;
+            for (int j = 0; j < counts.length; j++) {
+                total += counts[j] * weight[j];
+                expected += counts[j] * weight[j] * j;
+            }
+            for (int v = 0; v < size(); v++) {
+                double mine = 0;
+                if (mineCounts == null) {
+                    // every placement of an estimate holds the expected number of mines
+                    mine = total * estimates[v];
+                } else {
+                    for (int j = 0; j < counts.length; j++) {
+                        mine += mineCounts[v][j] * weight[j];
+                    }
+                }
+                edgeProbabilities[edgeIndices[v]] = total == 0 ? 0 : mine / total;
+            }
+            return total == 0 ? 0 : expected / total;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package org.minesweeper;
+
+import java.util.SplittableRandom;
+
+/**
+ * This strategy clicks a random covered tile every move, starting with the
+ * middle of the board. It is the baseline other strategies are compared to.
+ */
+public class RandomStrategy implements Strategy {
+    private static final int PROBES = 16; // random tries before scanning the board
+
+    @Override
+    public int nextMove(Minesweeper game, SplittableRandom random) {
+        Board board = game.getBoard();
+        if (!game.isFirstTurnTaken()) {
+            return board.index(board.getHeight() / 2, board.getWidth() / 2);
+        }
+
+        // most tiles are covered for most of the game, so a few tries usually hit one
+        int size = board.size();
+        for (int k = 0; k < PROBES; k++) {
+            int index = random.nextInt(size);
+            if (board.isCovered(index) && !board.hasFlag(index)) {
+                return index;
+            }
+        }
+
+        // scan from a random tile so late game clicks are still spread out
+        int start = random.nextInt(size);
+        for (int k = 0; k < size; k++) {
+            int index = start + k < size ? start + k : start + k - size;
+            if (board.isCovered(index) && !board.hasFlag(index)) {
+                return index;
+            }
+        }
+        throw new IllegalStateException("No covered tile left to click");
+    }
+}
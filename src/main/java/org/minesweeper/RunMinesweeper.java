@@ -22,9 +22,9 @@ public class RunMinesweeper implements Runnable {
         final JLabel status = new JLabel("Setting up...");
         status_panel.add(status);
 
-        // Add game board
+        // Add game board, scrolled when it is larger than the window
         final GameGrid gameGrid = new GameGrid(status);
-        frame.add(gameGrid, BorderLayout.CENTER);
+        frame.add(new JScrollPane(gameGrid), BorderLayout.CENTER);
 
         /* ==== Render buttons ==== */
 
@@ -37,6 +37,12 @@ public class RunMinesweeper implements Runnable {
         final JButton newGame = new JButton("New Game");
         newGame.addActionListener(e -> gameGrid.reset());
         controls.add(newGame);
+        final JButton undo = new JButton("Undo");
+        undo.addActionListener(e -> gameGrid.undo());
+        controls.add(undo);
+        final JButton redo = new JButton("Redo");
+        redo.addActionListener(e -> gameGrid.redo());
+        controls.add(redo);
         final JButton instructions = new JButton("How To Play");
         instructions.addActionListener(e -> MenuUtilities.displayInstructions());
         controls.add(instructions);
@@ -0,0 +1,326 @@
+package org.minesweeper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * This keeps the games of many sessions, holding the recently played ones in
+ * memory under a budget of bytes and spilling the rest to disk. When the games
+ * in memory go over the budget, the least recently played ones are written to
+ * the store's directory as {@link GameLog} files, which only take a few bytes
+ * per move, and dropped from the heap. The next move on a spilled game replays
+ * its log from the latest board snapshot first, so callers never see whether a
+ * game was in memory.
+ * <p>
+ * Moves are played through {@link #play}, which holds a lock of the session's
+ * own, so moves on different sessions run in parallel and a game is never
+ * spilled while a move is played on it. The size of a game is estimated after
+ * every move, since games grow as they are played. Spilled games keep their
+ * moves but not their undo history or board listeners.
+ */
+public class SessionStore implements AutoCloseable {
+    private final Path directory;
+    private final long budgetBytes;
+
+    // guarded by this
+    private final Map<String, Session> sessions = new HashMap<>();
+    private final LinkedHashMap<String, Session> resident = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentBytes;
+    private long nextFile;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rehydrationNanos = new LongAdder();
+    private final AtomicLong maxRehydrationNanos = new AtomicLong();
+
+    /**
+     * A game and where it is spilled to. The game is null while it is spilled.
+     */
+    private static final class Session {
+        final String id;
+        final Path file;
+        final ReentrantLock lock = new ReentrantLock();
+        Minesweeper game; // guarded by lock
+        long bytes; // guarded by the store, the estimate counted in the resident bytes
+        boolean removed; // guarded by lock
+
+        Session(String id, Path file, Minesweeper game) {
+            this.id = id;
+            this.file = file;
+            this.game = game;
+        }
+    }
+
+    /**
+     * Creates a store.
+     *
+     * @param directory   The directory spilled games are written to, which is
+     *                    created if it does not exist.
+     * @param budgetBytes The estimated bytes the games in memory may take up.
+     * @throws IOException If the directory cannot be created.
+     */
+    public SessionStore(Path directory, long budgetBytes) throws IOException {
+        if (budgetBytes < 0) {
+            throw new IllegalArgumentException("Budget must be non-negative");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Adds a game to the store, replacing any game the session had.
+     *
+     * @param id   The id of the session.
+     * @param game The game, which the store now owns.
+     * @throws IOException If games over the budget cannot be spilled.
+     */
+    public void put(String id, Minesweeper game) throws IOException {
+        remove(id);
+        synchronized (this) {
+            Session session = new Session(id, directory.resolve("session-" + nextFile++ + ".log"),
+                    game);
+            sessions.put(id, session);
+            resident.put(id, session);
+            session.bytes = game.estimateHeapBytes();
+            residentBytes += session.bytes;
+        }
+        evict();
+    }
+
+    /**
+     * Plays a move on the game of a session, first reading the game back from
+     * disk if it was spilled.
+     *
+     * @param id   The id of the session.
+     * @param move The move, which is given the game and may change it.
+     * @param <T>  The type of the result of the move.
+     * @return The result of the move.
+     * @throws IOException If the game was spilled and cannot be read back, or
+     *                     games over the budget cannot be spilled.
+     */
+    public <T> T play(String id, Function<Minesweeper, T> move) throws IOException {
+        T result;
+        while (true) {
+            Session session;
+            synchronized (this) {
+                session = sessions.get(id);
+                if (session == null) {
+                    throw new IllegalArgumentException("No such session: " + id);
+                }
+                resident.get(id); // marks it as most recently used if in memory
+            }
+
+            session.lock.lock();
+            try {
+                if (session.removed) {
+                    continue; // replaced or removed since it was looked up
+                }
+                if (session.game == null) {
+                    rehydrate(session);
+                } else {
+                    hits.increment();
+                }
+                result = move.apply(session.game);
+                long bytes = session.game.estimateHeapBytes();
+                synchronized (this) {
+                    residentBytes += bytes - session.bytes;
+                    session.bytes = bytes;
+                }
+            } finally {
+                session.lock.unlock();
+            }
+            break;
+        }
+        evict();
+        return result;
+    }
+
+    /**
+     * Replays the log of a spilled game from its latest snapshot and counts it
+     * as resident again.
+     *
+     * @param session The session, whose lock is held.
+     * @throws IOException If the log cannot be read.
+     */
+    private void rehydrate(Session session) throws IOException {
+        long start = System.nanoTime();
+        session.game = GameLog.read(session.file).replay();
+        Files.deleteIfExists(session.file);
+        long elapsed = System.nanoTime() - start;
+        misses.increment();
+        rehydrationNanos.add(elapsed);
+        maxRehydrationNanos.accumulateAndGet(elapsed, Math::max);
+
+        synchronized (this) {
+            session.bytes = 0;
+            resident.put(session.id, session);
+        }
+    }
+
+    /**
+     * Spills the least recently played games until the rest fit in the budget.
+     * Games with a move in progress are skipped. The games are chosen while
+     * holding the store's lock, but written after releasing it, so other
+     * sessions can be played while they are written.
+     *
+     * @throws IOException If a game cannot be written, in which case it is kept
+     *                     in memory.
+     */
+    private void evict() throws IOException {
+        List<Session> victims = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Session> eldest = resident.values().iterator();
+            while (residentBytes > budgetBytes && eldest.hasNext()) {
+                Session session = eldest.next();
+                if (session.lock.tryLock()) {
+                    eldest.remove();
+                    residentBytes -= session.bytes;
+                    session.bytes = 0;
+                    victims.add(session);
+                }
+            }
+        }
+
+        IOException failure = null;
+        for (Session session : victims) {
+            try {
+                if (!session.removed) {
+                    session.game.toGameLog().write(session.file);
+                    session.game = null;
+                    evictions.increment();
+                }
+            } catch (IOException e) {
+                // keep the game in memory rather than lose it
+                synchronized (this) {
+                    session.bytes = session.game.estimateHeapBytes();
+                    residentBytes += session.bytes;
+                    resident.put(session.id, session);
+                }
+                failure = e;
+            } finally {
+                session.lock.unlock();
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Removes the game of a session and deletes its spilled file, if any.
+     *
+     * @param id The id of the session.
+     * @return True if the session existed.
+     * @throws IOException If the spilled file cannot be deleted.
+     */
+    public boolean remove(String id) throws IOException {
+        Session session;
+        synchronized (this) {
+            session = sessions.remove(id);
+            if (session == null) {
+                return false;
+            }
+            if (resident.remove(id) != null) {
+                residentBytes -= session.bytes;
+                session.bytes = 0;
+            }
+        }
+        session.lock.lock();
+        try {
+            session.removed = true;
+            session.game = null;
+            Files.deleteIfExists(session.file);
+        } finally {
+            session.lock.unlock();
+        }
+        return true;
+    }
+
+    /**
+     * @return The number of sessions, in memory or spilled.
+     */
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+    /**
+     * @return The number of sessions whose game is in memory.
+     */
+    public synchronized int getResidentCount() {
+        return resident.size();
+    }
+
+    /**
+     * @return The estimated bytes taken up by the games in memory.
+     */
+    public synchronized long getResidentBytes() {
+        return residentBytes;
+    }
+
+    /**
+     * @return The number of moves played on a game that was in memory.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of moves that had to read their game back from disk.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of times a game was spilled to disk.
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return The average time taken to read a spilled game back, in
+     *         milliseconds.
+     */
+    public double getAverageRehydrationMillis() {
+        long total = misses.sum();
+        return total == 0 ? 0 : rehydrationNanos.sum() / 1e6 / total;
+    }
+
+    /**
+     * @return The longest time taken to read a spilled game back, in
+     *         milliseconds.
+     */
+    public double getMaxRehydrationMillis() {
+        return maxRehydrationNanos.get() / 1e6;
+    }
+
+    /**
+     * Removes every session and deletes the spilled files. The store's directory
+     * is left in place.
+     *
+     * @throws IOException If a spilled file cannot be deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        List<String> ids;
+        synchronized (this) {
+            ids = new ArrayList<>(sessions.keySet());
+        }
+        for (String id : ids) {
+            remove(id);
+        }
+    }
+}
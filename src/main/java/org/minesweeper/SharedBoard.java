@@ -0,0 +1,244 @@
+package org.minesweeper;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * This is a minefield that several players can play at once from their own
+ * threads. Cells use the same bit layout as a {@link Board}, packed four to an
+ * int word, and every change to a cell is a compare-and-set of its word, so no
+ * change is lost when players touch the same cells, and no locks are taken.
+ * <p>
+ * A tile is uncovered by exactly one call, whichever sets its uncovered bit
+ * first. Flood fills only spread from tiles they uncovered themselves, so flood
+ * fills that overlap split the tiles between them rather than uncovering any
+ * twice, and every tile the fills reach is still uncovered by one of them.
+ * Flags and reveals race the same way: a flag is only placed on a covered tile
+ * and a tile is only uncovered while it has no flag.
+ * <p>
+ * The mines are fixed when the shared board is created, typically from the
+ * board of a {@link Minesweeper} game after its first turn. The game ends when
+ * a mine is revealed or the last covered tile without a mine is uncovered.
+ * Moves that start after that are ignored, while moves already under way
+ * finish.
+ */
+public class SharedBoard {
+    private static final int CELL_SHIFT = 2; // four cells per word
+    private static final int CELL_MASK = (1 << CELL_SHIFT) - 1;
+
+    private final int width, height, size;
+    private final AtomicIntegerArray words;
+    private final AtomicInteger coveredSafeCells; // number of covered cells without a mine
+    private final AtomicReference<GameState> state;
+
+    /**
+     * Creates a shared board with the same cells as a board.
+     *
+     * @param board The board to copy the cells of. It must not be written while
+     *              it is copied.
+     */
+    public SharedBoard(Board board) {
+        this.width = board.getWidth();
+        this.height = board.getHeight();
+        this.size = board.size();
+        int[] packed = new int[(int) (((long) size + CELL_MASK) >>> CELL_SHIFT)];
+        for (int index = 0; index < size; index++) {
+            packed[index >>> CELL_SHIFT] |= (board.getCell(index) & 0xFF) << shift(index);
+        }
+        this.words = new AtomicIntegerArray(packed);
+        this.coveredSafeCells = new AtomicInteger(board.getCoveredSafeCellCount());
+        this.state = new AtomicReference<>(
+                board.hasCoveredSafeCell() ? GameState.IN_PROGRESS : GameState.WON
+        );
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return The total number of cells on the board.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the flat index of a cell.
+     *
+     * @param i The row of the cell, with the first row starting at i=0.
+     * @param j The column of the cell, with the first column starting at j=0.
+     * @return The index of the cell.
+     */
+    public int index(int i, int j) {
+        return i * width + j;
+    }
+
+    public boolean hasMine(int index) {
+        return (getCell(index) & Board.MINE) != 0;
+    }
+
+    public boolean isCovered(int index) {
+        return (getCell(index) & Board.UNCOVERED) == 0;
+    }
+
+    public boolean hasFlag(int index) {
+        return (getCell(index) & Board.FLAG) != 0;
+    }
+
+    public int getClueNumber(int index) {
+        return getCell(index) & Board.CLUE_MASK;
+    }
+
+    /**
+     * Gets the raw packed state of a cell.
+     *
+     * @param index The index of the cell.
+     * @return The packed cell, in the low byte.
+     */
+    int getCell(int index) {
+        return words.get(index >>> CELL_SHIFT) >>> shift(index) & 0xFF;
+    }
+
+    // position of a cell's byte within its word
+    private static int shift(int index) {
+        return (index & CELL_MASK) << 3;
+    }
+
+    /**
+     * @return The state of the game, which is in progress until a mine is
+     *         revealed or every tile without a mine is uncovered.
+     */
+    public GameState getState() {
+        return state.get();
+    }
+
+    /**
+     * @return The number of covered cells that do not have a mine.
+     */
+    public int getCoveredSafeCellCount() {
+        return coveredSafeCells.get();
+    }
+
+    /**
+     * Toggles the flag on a covered tile.
+     *
+     * @param index The index of the tile.
+     * @return True if the flag was toggled, false if the tile is uncovered or the
+     *         game has ended.
+     */
+    public boolean toggleFlag(int index) {
+        checkIndex(index);
+        if (state.get() != GameState.IN_PROGRESS) {
+            return false;
+        }
+        int word = index >>> CELL_SHIFT, shift = shift(index);
+        while (true) {
+            int current = words.get(word);
+            if ((current >>> shift & Board.UNCOVERED) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(word, current, current ^ Board.FLAG << shift)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Uncovers a tile, and the region around it if it has no mines around it.
+     * Nothing happens if the tile has a flag or is already uncovered, including
+     * when another player uncovers it first.
+     *
+     * @param index    The index of the tile.
+     * @param revealed The list to add the tiles uncovered by this call to.
+     * @return The state of the game after the move.
+     */
+    public GameState reveal(int index, IntList revealed) {
+        checkIndex(index);
+        if (state.get() != GameState.IN_PROGRESS) {
+            return state.get();
+        }
+        if (hasMine(index)) {
+            if (isCovered(index) && !hasFlag(index)) {
+                state.compareAndSet(GameState.IN_PROGRESS, GameState.LOST);
+            }
+            return state.get();
+        }
+
+        int start = revealed.size();
+        IntList stack = new IntList();
+        if (tryUncover(index)) {
+            revealed.add(index);
+            if (getClueNumber(index) == 0) {
+                stack.add(index);
+            }
+        }
+        while (!stack.isEmpty()) {
+            int current = stack.pop();
+            int i = current / width, j = current - i * width;
+            for (int x = Math.max(i - 1, 0); x <= Math.min(i + 1, height - 1); x++) {
+                for (int y = Math.max(j - 1, 0); y <= Math.min(j + 1, width - 1); y++) {
+                    // neighbours of a tile with no mines around it have no mines
+                    int target = x * width + y;
+                    if (tryUncover(target)) {
+                        revealed.add(target);
+                        if (getClueNumber(target) == 0) {
+                            stack.add(target);
+                        }
+                    }
+                }
+            }
+        }
+
+        // one update per move, and only the move uncovering the last tile sees zero
+        int uncovered = revealed.size() - start;
+        if (uncovered > 0 && coveredSafeCells.addAndGet(-uncovered) == 0) {
+            state.compareAndSet(GameState.IN_PROGRESS, GameState.WON);
+        }
+        return state.get();
+    }
+
+    /**
+     * Sets the uncovered bit of a covered tile without a flag.
+     *
+     * @param index The index of the tile.
+     * @return True if this call uncovered the tile.
+     */
+    private boolean tryUncover(int index) {
+        int word = index >>> CELL_SHIFT, shift = shift(index);
+        while (true) {
+            int current = words.get(word);
+            if ((current >>> shift & (Board.UNCOVERED | Board.FLAG)) != 0) {
+                return false;
+            }
+            if (words.compareAndSet(word, current, current | Board.UNCOVERED << shift)) {
+                return true;
+            }
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IllegalArgumentException("Tile index out of bounds: " + index);
+        }
+    }
+
+    /**
+     * Copies the cells into a board, such as for a view to paint. Cells changed
+     * during the copy may or may not be included.
+     *
+     * @return A new board with the cells of this one.
+     */
+    public Board toBoard() {
+        byte[] cells = new byte[size];
+        for (int index = 0; index < size; index++) {
+            cells[index] = (byte) getCell(index);
+        }
+        return new Board(width, height, cells);
+    }
+}
@@ -0,0 +1,51 @@
+package org.minesweeper;
+
+/**
+ * This is the outcome of a batch of simulated games.
+ *
+ * @param games        The number of games played.
+ * @param wins         The number of games won.
+ * @param clicks       The number of tiles clicked over every game.
+ * @param elapsedNanos The wall clock time the games took, in nanoseconds.
+ * @param parallelism  The number of threads the games were played on.
+ */
+public record SimulationResult(
+        long games, long wins, long clicks, long elapsedNanos, int parallelism
+) {
+    /**
+     * @return The fraction of games won.
+     */
+    public double winRate() {
+        return games == 0 ? 0 : (double) wins / games;
+    }
+
+    /**
+     * @return The average number of tiles clicked per game.
+     */
+    public double clicksPerGame() {
+        return games == 0 ? 0 : (double) clicks / games;
+    }
+
+    /**
+     * @return The number of games played per second of wall clock time.
+     */
+    public double gamesPerSecond() {
+        return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * @return The number of games played per second by each thread.
+     */
+    public double gamesPerSecondPerCore() {
+        return gamesPerSecond() / parallelism;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%d games, %.2f%% won, %.2f clicks per game, %.0f games/s (%.0f per core)",
+                games, 100 * winRate(), clicksPerGame(), gamesPerSecond(),
+                gamesPerSecondPerCore()
+        );
+    }
+}
@@ -0,0 +1,179 @@
+package org.minesweeper;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * This plays games of Minesweeper without a GUI to evaluate strategies. The
+ * games are split into batches that run in parallel on a fork/join pool. Each
+ * batch has its own game, whose board is reset and reused for every game in
+ * the batch, and its own strategy, so the threads share nothing but the final
+ * tally.
+ * <p>
+ * Game number g of a run is generated from a seed mixed from the base seed
+ * and g, and the strategy is given a random number generator seeded the same
+ * way. The results of a run therefore only depend on its settings and not on
+ * how the games are spread over threads.
+ */
+public class Simulator {
+    private static final int BATCHES_PER_THREAD = 8; // lets idle threads steal work
+    private static final long RANDOM_SALT = 0x9E3779B97F4A7C15L; // separates the two streams
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a simulator that runs on the common fork/join pool.
+     */
+    public Simulator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a simulator that runs on the given pool.
+     *
+     * @param pool The pool the games are played on.
+     */
+    public Simulator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Plays a number of games with a strategy.
+     *
+     * @param games      The number of games to play.
+     * @param gridWidth  The width of the minefield in tiles.
+     * @param gridHeight The height of the minefield in tiles.
+     * @param mineCount  The number of mines in the minefield.
+     * @param baseSeed   The seed every game's seed is derived from.
+     * @param strategies Creates a strategy for each batch of games.
+     * @return The tally of the games played.
+     */
+    public SimulationResult run(
+            long games, int gridWidth, int gridHeight, int mineCount, long baseSeed,
+            Supplier<? extends Strategy> strategies
+    ) {
+        if (games < 0) {
+            throw new IllegalArgumentException("Game count must be non-negative");
+        }
+        // fail on bad settings here rather than inside a batch
+        new Minesweeper(gridWidth, gridHeight, mineCount, baseSeed);
+
+        Settings settings = new Settings(gridWidth, gridHeight, mineCount, baseSeed, strategies);
+        long threshold = Math.max(1, games / ((long) pool.getParallelism() * BATCHES_PER_THREAD));
+
+        long start = System.nanoTime();
+        Tally tally = pool.invoke(new Batch(settings, 0, games, threshold));
+        long elapsed = System.nanoTime() - start;
+        return new SimulationResult(
+                games, tally.wins, tally.clicks, elapsed, pool.getParallelism()
+        );
+    }
+
+    /**
+     * Plays a single game with a strategy, as game number g of a run would be
+     * played.
+     *
+     * @param game     The game to reset and play, reused between games.
+     * @param strategy The strategy that picks the tiles to click.
+     * @param baseSeed The seed every game's seed is derived from.
+     * @param g        The number of the game in the run.
+     * @param tally    The tally to add the outcome of the game to.
+     */
+    static void play(Minesweeper game, Strategy strategy, long baseSeed, long g, Tally tally) {
+        long seed = mix(baseSeed + g);
+        game.reset(seed);
+        strategy.newGame(game);
+        SplittableRandom random = new SplittableRandom(mix(seed ^ RANDOM_SALT));
+
+        Board board = game.getBoard();
+        GameState state = GameState.IN_PROGRESS;
+        while (state == GameState.IN_PROGRESS) {
+            int index = strategy.nextMove(game, random);
+            if (!board.isCovered(index) || board.hasFlag(index)) {
+                // clicking it would do nothing, and the game would never end
+                throw new IllegalStateException("Strategy clicked an unplayable tile: " + index);
+            }
+            state = game.playTurn(board.row(index), board.column(index));
+            tally.clicks++;
+        }
+        if (state == GameState.WON) {
+            tally.wins++;
+        }
+    }
+
+    /**
+     * Spreads the bits of a seed, so that consecutive seeds give unrelated games.
+     *
+     * @param z The seed to mix.
+     * @return The mixed seed.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    private record Settings(
+            int gridWidth, int gridHeight, int mineCount, long baseSeed,
+            Supplier<? extends Strategy> strategies
+    ) {
+    }
+
+    /**
+     * The wins and clicks of a batch of games.
+     */
+    static final class Tally {
+        long wins, clicks;
+
+        Tally add(Tally other) {
+            wins += other.wins;
+            clicks += other.clicks;
+            return this;
+        }
+    }
+
+    /**
+     * Plays the games numbered from start up to end, splitting them in half until
+     * the batch is small enough to play on one thread.
+     */
+    @SuppressWarnings("serial") // batches are never serialized
+    private static final class Batch extends RecursiveTask<Tally> {
+        private final Settings settings;
+        private final long start, end, threshold;
+
+        Batch(Settings settings, long start, long end, long threshold) {
+            this.settings = settings;
+            this.start = start;
+            this.end = end;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Tally compute() {
+            if (end - start > threshold) {
+                long middle = (start + end) >>> 1;
+                Batch left = new Batch(settings, start, middle, threshold);
+                left.fork();
+                Tally right = new Batch(settings, middle, end, threshold).compute();
+                return right.add(left.join());
+            }
+
+            Tally tally = new Tally();
+            if (start == end) {
+                return tally;
+            }
+            Minesweeper game = new Minesweeper(
+                    settings.gridWidth(), settings.gridHeight(), settings.mineCount(),
+                    settings.baseSeed()
+            );
+            game.setMetricsRecorded(false);
+            Strategy strategy = settings.strategies().get();
+            for (long g = start; g < end; g++) {
+                play(game, strategy, settings.baseSeed(), g, tally);
+            }
+            return tally;
+        }
+    }
+}
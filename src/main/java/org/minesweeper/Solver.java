@@ -0,0 +1,371 @@
+package org.minesweeper;
+
+import java.util.Arrays;
+
+/**
+ * This deduces which covered tiles of a game certainly have mines and which are
+ * certainly safe, using only what a player can see: which tiles are uncovered
+ * and their clue numbers. Flags are ignored, since the player may have placed
+ * them wrongly.
+ * <p>
+ * The solver keeps the frontier, the uncovered tiles with a clue number that
+ * border covered tiles it knows nothing about, and applies two rules to it:
+ * <ul>
+ * <li>Single point: if a clue is already met by known mines, its other covered
+ * neighbours are safe, and if it needs every one of them, they are all
+ * mines.</li>
+ * <li>Subset: if the unknown neighbours of one clue are a subset of the
+ * unknown neighbours of a clue nearby, the tiles only next to the larger clue
+ * hold the difference of the two clues' remaining mines.</li>
+ * </ul>
+ * Only the clues whose unknown neighbours changed are examined again, so the
+ * work after a move is proportional to the number of tiles the move uncovered
+ * and the deductions that follow from them, not to the size of the board.
+ */
+public class Solver {
+    private static final byte SAFE = 1; // known not to have a mine
+    private static final byte MINE = 2; // known to have a mine
+    private static final byte KNOWN = SAFE | MINE;
+    private static final byte QUEUED = 4; // waiting to be examined
+    private static final byte FRONTIER = 8; // in the frontier list
+
+    private final Minesweeper game;
+    private Board board;
+    private int width, height;
+    private byte[] state; // what is known about each tile, and its bookkeeping bits
+
+    private final IntList work = new IntList(); // clues to examine
+    private final IntList frontier = new IntList(); // may hold tiles that left it
+    private final IntList safeCells = new IntList(); // safe tiles, some may be uncovered
+    private final IntList mineCells = new IntList();
+
+    // scratch space for the neighbours of the clues being compared
+    private final int[] unknownA = new int[8], unknownB = new int[8];
+    private final int[] difference = new int[8];
+
+    /**
+     * Creates a solver for a game, starting from the tiles already uncovered.
+     *
+     * @param game The game to solve.
+     */
+    public Solver(Minesweeper game) {
+        this.game = game;
+        reset();
+    }
+
+    /**
+     * Forgets everything deduced so far and reads the game's board again, such as
+     * after the game has been reset. This takes time proportional to the size of
+     * the board.
+     */
+    public void reset() {
+        board = game.getBoard();
+        width = board.getWidth();
+        height = board.getHeight();
+        if (state == null || state.length != board.size()) {
+            state = new byte[board.size()];
+        } else {
+            Arrays.fill(state, (byte) 0);
+        }
+        work.clear();
+        frontier.clear();
+        safeCells.clear();
+        mineCells.clear();
+
+        for (int index = 0; index < state.length; index++) {
+            if (!board.isCovered(index)) {
+                state[index] = SAFE;
+                enqueue(index);
+            }
+        }
+    }
+
+    /**
+     * Updates the solver with the tiles uncovered by a turn.
+     *
+     * @param cells The indices on the board of the tiles uncovered.
+     */
+    public void reveal(int[] cells) {
+        for (int cell : cells) {
+            state[cell] |= SAFE;
+
+            // the clue and its uncovered neighbours have one less unknown tile
+            enqueue(cell);
+            enqueueUncoveredNeighbours(cell);
+        }
+    }
+
+    /**
+     * Gets a covered tile that is certainly safe.
+     *
+     * @return The index on the board of a safe covered tile, or -1 if no covered
+     *         tile is certainly safe.
+     */
+    public int nextSafeCell() {
+        solve();
+        while (!safeCells.isEmpty()) {
+            int cell = safeCells.get(safeCells.size() - 1);
+            if (board.isCovered(cell)) {
+                return cell;
+            }
+            safeCells.pop();
+        }
+        return -1;
+    }
+
+    /**
+     * @param index The index of a tile on the board.
+     * @return True if the tile certainly does not have a mine.
+     */
+    public boolean isKnownSafe(int index) {
+        solve();
+        return (state[index] & KNOWN) == SAFE;
+    }
+
+    /**
+     * @param index The index of a tile on the board.
+     * @return True if the tile certainly has a mine.
+     */
+    public boolean isKnownMine(int index) {
+        solve();
+        return (state[index] & KNOWN) == MINE;
+    }
+
+    /**
+     * @return The indices on the board of every covered tile known to be safe.
+     */
+    public int[] getSafeCells() {
+        solve();
+
+        // drop the tiles uncovered since they were deduced
+        int kept = 0;
+        for (int k = 0; k < safeCells.size(); k++) {
+            int cell = safeCells.get(k);
+            if (board.isCovered(cell)) {
+                safeCells.set(kept++, cell);
+            }
+        }
+        safeCells.truncate(kept);
+        return safeCells.toArray();
+    }
+
+    /**
+     * @return The indices on the board of every tile known to have a mine.
+     */
+    public int[] getKnownMines() {
+        solve();
+        return mineCells.toArray();
+    }
+
+    /**
+     * Gets the frontier: the uncovered tiles whose clue numbers border covered
+     * tiles that are not known to be safe or mines.
+     *
+     * @return The indices on the board of the tiles in the frontier.
+     */
+    public int[] getFrontier() {
+        solve();
+
+        // drop the tiles that left the frontier since it was last compacted
+        int kept = 0;
+        for (int k = 0; k < frontier.size(); k++) {
+            int cell = frontier.get(k);
+            if (countUnknown(cell, unknownA) > 0) {
+                frontier.set(kept++, cell);
+            } else {
+                state[cell] &= ~FRONTIER;
+            }
+        }
+        frontier.truncate(kept);
+        return frontier.toArray();
+    }
+
+    /**
+     * Examines clues until no rule gives anything new.
+     */
+    private void solve() {
+        while (!work.isEmpty()) {
+            int cell = work.pop();
+            state[cell] &= ~QUEUED;
+            examine(cell);
+        }
+    }
+
+    /**
+     * Applies the rules to a clue.
+     *
+     * @param cell The index of the uncovered tile with the clue.
+     */
+    private void examine(int cell) {
+        int unknown = countUnknown(cell, unknownA);
+        if (unknown == 0) {
+            return;
+        }
+        if ((state[cell] & FRONTIER) == 0) {
+            state[cell] |= FRONTIER;
+            frontier.add(cell);
+        }
+
+        // single point rule
+        int remaining = remainingMines(cell);
+        if (remaining == 0) {
+            markAll(unknownA, unknown, SAFE);
+            return;
+        } else if (remaining == unknown) {
+            markAll(unknownA, unknown, MINE);
+            return;
+        }
+
+        // subset rule against the clues that can share a neighbour with this one
+        int i = cell / width, j = cell - i * width;
+        for (int x = Math.max(i - 2, 0); x <= Math.min(i + 2, height - 1); x++) {
+            for (int y = Math.max(j - 2, 0); y <= Math.min(j + 2, width - 1); y++) {
+                int other = x * width + y;
+                if (other == cell || board.isCovered(other)) {
+                    continue;
+                }
+                int otherUnknown = countUnknown(other, unknownB);
+                if (otherUnknown == 0) {
+                    continue;
+                }
+                int otherRemaining = remainingMines(other);
+                if (otherUnknown < unknown && isSubset(unknownB, otherUnknown, unknownA, unknown)) {
+                    // marking our own neighbours queues this clue again
+                    if (applyDifference(
+                            unknownA, unknown, unknownB, otherUnknown, remaining - otherRemaining
+                    )) {
+                        return;
+                    }
+                } else if (unknown < otherUnknown
+                        && isSubset(unknownA, unknown, unknownB, otherUnknown)) {
+                    applyDifference(
+                            unknownB, otherUnknown, unknownA, unknown, otherRemaining - remaining
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the tiles that are only next to the larger of two clues, given how
+     * many mines they hold between them.
+     *
+     * @param larger      The unknown neighbours of the larger clue.
+     * @param largerSize  The number of unknown neighbours of the larger clue.
+     * @param smaller     The unknown neighbours of the smaller clue, a subset of
+     *                    the larger clue's.
+     * @param smallerSize The number of unknown neighbours of the smaller clue.
+     * @param mines       The number of mines in the difference.
+     * @return True if any tile was marked.
+     */
+    private boolean applyDifference(
+            int[] larger, int largerSize, int[] smaller, int smallerSize, int mines
+    ) {
+        int size = 0;
+        for (int a = 0; a < largerSize; a++) {
+            if (!contains(smaller, smallerSize, larger[a])) {
+                difference[size++] = larger[a];
+            }
+        }
+        if (mines == 0) {
+            markAll(difference, size, SAFE);
+            return true;
+        } else if (mines == size) {
+            markAll(difference, size, MINE);
+            return true;
+        }
+        return false;
+    }
+
+    private void markAll(int[] cells, int count, byte knowledge) {
+        for (int k = 0; k < count; k++) {
+            int cell = cells[k];
+            if ((state[cell] & KNOWN) != 0) {
+                continue;
+            }
+            state[cell] |= knowledge;
+            if (knowledge == SAFE) {
+                safeCells.add(cell);
+            } else {
+                mineCells.add(cell);
+            }
+            enqueueUncoveredNeighbours(cell);
+        }
+    }
+
+    /**
+     * Finds the covered neighbours of a tile that are not known to be safe or
+     * mines.
+     *
+     * @param cell    The index of the tile.
+     * @param unknown The array to write the indices of the neighbours to.
+     * @return The number of unknown neighbours.
+     */
+    private int countUnknown(int cell, int[] unknown) {
+        int count = 0;
+        int i = cell / width, j = cell - i * width;
+        for (int x = Math.max(i - 1, 0); x <= Math.min(i + 1, height - 1); x++) {
+            for (int y = Math.max(j - 1, 0); y <= Math.min(j + 1, width - 1); y++) {
+                int target = x * width + y;
+                if ((state[target] & KNOWN) == 0 && board.isCovered(target)) {
+                    unknown[count++] = target;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param cell The index of an uncovered tile.
+     * @return The clue number of the tile less its neighbours known to be mines.
+     */
+    private int remainingMines(int cell) {
+        int remaining = board.getClueNumber(cell);
+        int i = cell / width, j = cell - i * width;
+        for (int x = Math.max(i - 1, 0); x <= Math.min(i + 1, height - 1); x++) {
+            for (int y = Math.max(j - 1, 0); y <= Math.min(j + 1, width - 1); y++) {
+                if ((state[x * width + y] & KNOWN) == MINE) {
+                    remaining--;
+                }
+            }
+        }
+        return remaining;
+    }
+
+    private static boolean isSubset(int[] subset, int subsetSize, int[] set, int setSize) {
+        for (int k = 0; k < subsetSize; k++) {
+            if (!contains(set, setSize, subset[k])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean contains(int[] cells, int count, int cell) {
+        for (int k = 0; k < count; k++) {
+            if (cells[k] == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void enqueue(int cell) {
+        if ((state[cell] & QUEUED) == 0) {
+            state[cell] |= QUEUED;
+            work.add(cell);
+        }
+    }
+
+    private void enqueueUncoveredNeighbours(int cell) {
+        int i = cell / width, j = cell - i * width;
+        for (int x = Math.max(i - 1, 0); x <= Math.min(i + 1, height - 1); x++) {
+            for (int y = Math.max(j - 1, 0); y <= Math.min(j + 1, width - 1); y++) {
+                int target = x * width + y;
+                if (target != cell && !board.isCovered(target)) {
+                    enqueue(target);
+                }
+            }
+        }
+    }
+}
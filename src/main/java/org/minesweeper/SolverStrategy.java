@@ -0,0 +1,41 @@
+package org.minesweeper;
+
+import java.util.SplittableRandom;
+
+/**
+ * This strategy clicks a tile the game's solver knows to be safe. When there is
+ * none, it guesses the tile least likely to have a mine according to a
+ * {@link ProbabilityEngine}.
+ */
+public class SolverStrategy implements Strategy {
+    private final ProbabilityEngine engine;
+
+    /**
+     * Creates a strategy that works out probabilities with the default engine.
+     */
+    public SolverStrategy() {
+        this(new ProbabilityEngine());
+    }
+
+    /**
+     * Creates a strategy that works out probabilities with the given engine.
+     *
+     * @param engine The engine used to pick guesses.
+     */
+    public SolverStrategy(ProbabilityEngine engine) {
+        this.engine = engine;
+    }
+
+    @Override
+    public int nextMove(Minesweeper game, SplittableRandom random) {
+        int hint = game.getHint();
+        if (hint >= 0) {
+            return hint;
+        }
+        int guess = engine.compute(game).safestCell();
+        if (guess < 0) {
+            throw new IllegalStateException("No covered tile left to click");
+        }
+        return guess;
+    }
+}
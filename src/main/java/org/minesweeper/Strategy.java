@@ -0,0 +1,31 @@
+package org.minesweeper;
+
+import java.util.SplittableRandom;
+
+/**
+ * This picks the tiles a simulated player clicks. A strategy is only used by
+ * one thread at a time, so it may keep state about the game it is playing
+ * between moves.
+ */
+public interface Strategy {
+    /**
+     * Called before the first move of every game. The game's board is reused
+     * between games, so any state kept about the previous game should be
+     * cleared here.
+     *
+     * @param game The game about to be played.
+     */
+    default void newGame(Minesweeper game) {
+    }
+
+    /**
+     * Picks the next tile to uncover. The tiles uncovered by the previous move
+     * are available from {@link Minesweeper#getRevealedCells()}.
+     *
+     * @param game   The game being played.
+     * @param random The random number generator of the game, for strategies that
+     *               guess.
+     * @return The index on the board of a covered tile without a flag.
+     */
+    int nextMove(Minesweeper game, SplittableRandom random);
+}
@@ -1,91 +1,72 @@
 package org.minesweeper;
 
 /**
- * This is the class for a tile in minesweeper.
+ * This is the class for a tile in minesweeper. A tile is a view of a single
+ * cell of a {@link Board}, so changes made through a tile are made to the board
+ * it belongs to.
  */
 public class Tile {
-    private int clueNumber;
-    private boolean hasMine, isCovered, hasFlag;
+    private final Board board;
+    private final int index;
 
     /**
      * Creates a new, empty, covered tile.
      */
     public Tile() {
-        this.hasMine = false;
-        this.isCovered = true;
-        this.hasFlag = false;
-        this.clueNumber = 0;
+        this(new Board(1, 1), 0);
+    }
+
+    /**
+     * Creates a view of a cell on a board.
+     *
+     * @param board The board that stores the cell.
+     * @param index The index of the cell on the board.
+     */
+    Tile(Board board, int index) {
+        this.board = board;
+        this.index = index;
     }
 
     public int getClueNumber() {
-        return clueNumber;
+        return board.getClueNumber(index);
     }
 
     public boolean hasFlag() {
-        return hasFlag;
+        return board.hasFlag(index);
     }
 
     public boolean isCovered() {
-        return isCovered;
+        return board.isCovered(index);
     }
 
     public boolean hasMine() {
-        return hasMine;
+        return board.hasMine(index);
     }
 
     /**
      * Sets clue number of tile.
-     * 
+     *
      * @param clueNumber number to be displayed on tile. Must be between 1 and 8.
      */
     public void setClueNumber(int clueNumber) {
-        if (clueNumber < 1 || clueNumber > 8) {
-            throw new IllegalArgumentException("clueNumber must be between 1 and 8");
-        } else if (hasMine) {
-            throw new IllegalCallerException("target tile has mine");
-        }
-        this.clueNumber = clueNumber;
+        board.setClueNumber(index, clueNumber);
     }
 
     public void placeMine() {
-        if (hasMine) {
-            throw new IllegalCallerException("target tile already has mine");
-        }
-        hasMine = true;
+        board.placeMine(index);
     }
 
     public void toggleFlag() {
-        if (!isCovered) {
-            throw new IllegalCallerException("uncovered tile cannot be flagged");
-        }
-        hasFlag = !hasFlag;
+        board.toggleFlag(index);
     }
 
     public void uncover() {
-        if (!isCovered) {
-            throw new IllegalCallerException("target tile is already uncovered");
-        } else if (hasFlag) {
-            throw new IllegalCallerException("target tile has flag");
-        }
-        isCovered = false;
+        board.uncover(index);
     }
 
     // override toString method to properly save tile state
     @Override
     public String toString() {
-        StringBuilder sb = new StringBuilder();
-        if (!isCovered) {
-            sb.append("u");
-        }
-        if (hasMine) {
-            sb.append("m");
-        }
-        if (hasFlag) {
-            sb.append("f");
-        }
-        if (getClueNumber() != 0) {
-            sb.append(clueNumber);
-        }
-        return sb.toString();
+        return board.cellToString(index);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,166 @@
+package org.minesweeper;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * This holds every way a tile can look, drawn once side by side into a single
+ * image, so the game grid paints each tile by copying part of the image rather
+ * than drawing shapes and text. The image is made compatible with the screen
+ * when there is one, which lets Java2D keep a copy of it in video memory.
+ * <p>
+ * Covered tiles and uncovered tiles without a clue number are a single color,
+ * and filling them is faster than copying them when drawing in software, so
+ * only the other appearances are copied from the image.
+ */
+final class TileSprites {
+    // appearances 0 to 8 are uncovered tiles with that clue number
+    static final int COVERED = 9;
+    static final int FLAGGED = 10;
+    static final int MINE = 11; // shown on every mine once the game is lost
+    static final int APPEARANCES = 12;
+
+    private static final Color COVERED_COLOR = new Color(0xBDBDBD);
+    private static final Color UNCOVERED_COLOR = new Color(0x949494);
+    private static final Color[] CLUE_COLORS = {
+            null, Color.BLUE, new Color(0x417F24), Color.RED, new Color(0x12087E),
+            new Color(0x72150D), new Color(0x458083), new Color(0x74197F), Color.ORANGE
+    };
+
+    // the color of each appearance that is a single color, otherwise null
+    private static final Color[] FILLS = new Color[APPEARANCES];
+
+    static {
+        FILLS[0] = UNCOVERED_COLOR;
+        FILLS[COVERED] = COVERED_COLOR;
+    }
+
+    private final int tileSize;
+    private final BufferedImage atlas;
+    private final BufferedImage[] sprites; // views of the atlas, one per appearance
+
+    /**
+     * Draws the appearances of tiles of the given size.
+     *
+     * @param tileSize The width and height of a tile in pixels.
+     */
+    TileSprites(int tileSize) {
+        this.tileSize = tileSize;
+        atlas = createImage(tileSize * APPEARANCES, tileSize);
+        Graphics2D g = atlas.createGraphics();
+        try {
+            for (int appearance = 0; appearance < APPEARANCES; appearance++) {
+                drawTile(g, appearance, appearance * tileSize, 0, tileSize);
+            }
+        } finally {
+            g.dispose();
+        }
+
+        // unscaled copies of whole images take the fastest blit loops
+        sprites = new BufferedImage[APPEARANCES];
+        for (int appearance = 0; appearance < APPEARANCES; appearance++) {
+            sprites[appearance] = atlas.getSubimage(appearance * tileSize, 0, tileSize, tileSize);
+        }
+    }
+
+    private static BufferedImage createImage(int width, int height) {
+        if (GraphicsEnvironment.isHeadless()) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        return GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                .getDefaultConfiguration().createCompatibleImage(width, height);
+    }
+
+    /**
+     * Gets how a tile looks.
+     *
+     * @param board The board the tile is on.
+     * @param cell  The index of the tile on the board.
+     * @param lost  True if the game is lost, which shows every mine.
+     * @return The appearance of the tile.
+     */
+    static int appearance(Board board, int cell, boolean lost) {
+        if (!board.isCovered(cell)) {
+            return board.getClueNumber(cell);
+        } else if (lost && board.hasMine(cell)) {
+            return MINE;
+        }
+        return board.hasFlag(cell) ? FLAGGED : COVERED;
+    }
+
+    /**
+     * Draws a tile with shapes and text. This is only used to fill the atlas, and
+     * by the benchmarks to compare against copying from it.
+     *
+     * @param g          The graphics to draw with.
+     * @param appearance The appearance of the tile.
+     * @param xStart     The x coordinate of the left edge of the tile.
+     * @param yStart     The y coordinate of the top edge of the tile.
+     * @param size       The width and height of the tile in pixels.
+     */
+    static void drawTile(Graphics g, int appearance, int xStart, int yStart, int size) {
+        switch (appearance) {
+            case COVERED -> {
+                g.setColor(COVERED_COLOR);
+                g.fillRect(xStart, yStart, size, size);
+            }
+            case FLAGGED -> {
+                g.setColor(COVERED_COLOR);
+                g.fillRect(xStart, yStart, size, size);
+
+                // Draw flag
+                g.setColor(Color.RED);
+                g.drawLine(xStart + 1, yStart + 1, xStart + size - 1, yStart + size - 1);
+                g.drawLine(xStart + 1, yStart + size - 1, xStart + size - 1, yStart + 1);
+            }
+            case MINE -> {
+                g.setColor(Color.RED);
+                g.fillRect(xStart, yStart, size, size);
+
+                // Draw mine
+                g.setColor(Color.BLACK);
+                g.fillOval(xStart + 2, yStart + 2, size - 4, size - 4);
+            }
+            default -> {
+                g.setColor(UNCOVERED_COLOR);
+                g.fillRect(xStart, yStart, size, size);
+
+                // Draw clue number, scaled from a 16 point font on 20 pixel tiles
+                if (appearance != 0) {
+                    g.setColor(CLUE_COLORS[appearance]);
+                    g.setFont(new Font("TimesRoman", Font.BOLD, size * 4 / 5));
+                    g.drawString(
+                            String.valueOf(appearance), xStart + size * 7 / 20,
+                            yStart + size - size / 5
+                    );
+                }
+            }
+        }
+    }
+
+    /**
+     * Paints a tile by copying its appearance from the atlas, or by filling it if
+     * it is a single color.
+     *
+     * @param g          The graphics to paint with.
+     * @param appearance The appearance of the tile.
+     * @param xStart     The x coordinate of the left edge of the tile.
+     * @param yStart     The y coordinate of the top edge of the tile.
+     */
+    void paintTile(Graphics g, int appearance, int xStart, int yStart) {
+        Color fill = FILLS[appearance];
+        if (fill != null) {
+            g.setColor(fill);
+            g.fillRect(xStart, yStart, tileSize, tileSize);
+        } else {
+            g.drawImage(sprites[appearance], xStart, yStart, null);
+        }
+    }
+
+    /**
+     * @return The width and height of a tile in pixels.
+     */
+    int getTileSize() {
+        return tileSize;
+    }
+}
@@ -0,0 +1,128 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardPoolTest {
+
+    /**
+     * Waits for the pool to have a board ready and takes it.
+     */
+    private static BoardPool.PreparedBoard take(BoardPool pool) throws InterruptedException {
+        BoardPool.PreparedBoard prepared;
+        while ((prepared = pool.poll()) == null) {
+            Thread.sleep(1);
+        }
+        return prepared;
+    }
+
+    @Test
+    public void testPooledBoardMatchesGeneratedBoard() throws InterruptedException {
+        try (BoardPool pool = new BoardPool(30, 16, 99)) {
+            BoardPool.PreparedBoard prepared = take(pool);
+            Minesweeper pooled = new Minesweeper(30, 16, 99);
+            assertTrue(pooled.reset(prepared));
+            assertEquals(prepared.seed(), pooled.getSeed());
+            assertFalse(pooled.isFirstTurnTaken());
+
+            Minesweeper generated = new Minesweeper(30, 16, 99, prepared.seed());
+            assertEquals(GameState.IN_PROGRESS, pooled.playTurn(0, 29));
+            generated.playTurn(0, 29);
+            assertEquals(generated.asciiGameState(true), pooled.asciiGameState(true));
+        }
+    }
+
+    @Test
+    public void testFirstTurnIsSafe() throws InterruptedException {
+        try (BoardPool pool = new BoardPool(9, 9, 72)) {
+            for (int k = 0; k < 20; k++) {
+                Minesweeper game = new Minesweeper(9, 9, 72);
+                assertTrue(game.reset(take(pool)));
+                assertNotEquals(GameState.LOST, game.playTurn(4, 4));
+
+                Board board = game.getBoard();
+                int mines = 0;
+                for (int index = 0; index < board.size(); index++) {
+                    mines += board.hasMine(index) ? 1 : 0;
+                    if (!board.hasMine(index)) {
+                        assertEquals(countAdjacentMines(board, index), board.getClueNumber(index));
+                    }
+                }
+                assertEquals(72, mines);
+            }
+        }
+    }
+
+    private static int countAdjacentMines(Board board, int index) {
+        int count = 0, i = board.row(index), j = board.column(index);
+        for (int x = Math.max(i - 1, 0); x <= Math.min(i + 1, board.getHeight() - 1); x++) {
+            for (int y = Math.max(j - 1, 0); y <= Math.min(j + 1, board.getWidth() - 1); y++) {
+                count += board.hasMine(board.index(x, y)) ? 1 : 0;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testConfigureDiscardsOldBoards() throws InterruptedException {
+        try (BoardPool pool = new BoardPool(9, 9, 10)) {
+            take(pool);
+            pool.configure(16, 16, 40);
+            BoardPool.PreparedBoard prepared = take(pool);
+            assertEquals(16, prepared.board().getWidth());
+            assertEquals(40, prepared.mineCount());
+            assertFalse(new Minesweeper(9, 9, 10).reset(prepared));
+            assertThrows(IllegalArgumentException.class, () -> pool.configure(3, 3, 5));
+        }
+    }
+
+    @Test
+    public void testLargeBoardsFillByteBudget() throws InterruptedException {
+        // two boards of 100x100 fit in 25000 bytes, a third does not
+        try (BoardPool pool = new BoardPool(100, 100, 10, 4, 25_000)) {
+            while (pool.size() < 2) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(50);
+            assertEquals(2, pool.size());
+
+            // a board larger than the budget is still kept ready
+            pool.configure(200, 200, 10);
+            BoardPool.PreparedBoard prepared = take(pool);
+            assertEquals(200, prepared.board().getWidth());
+            Thread.sleep(50);
+            assertEquals(1, pool.size());
+        }
+    }
+
+    @Test
+    public void testConfigureStopsBoardForOldSettings() throws InterruptedException {
+        // placing a million mines takes long enough to be caught halfway
+        try (BoardPool pool = new BoardPool(2000, 1000, 1_000_000, 1)) {
+            Thread.sleep(5);
+            pool.configure(9, 9, 10);
+            while (pool.size() < 1) {
+                Thread.sleep(1);
+            }
+            // the large board was given up and the first small one was kept, so
+            // at most the one waiting for room was made besides it
+            assertTrue(pool.getBoardsProduced() <= 2);
+            assertEquals(9, take(pool).board().getWidth());
+        }
+    }
+
+    @Test
+    public void testPoolIsBounded() throws InterruptedException {
+        try (BoardPool pool = new BoardPool(9, 9, 10, 2)) {
+            while (pool.size() < 2) {
+                Thread.sleep(1);
+            }
+            Thread.sleep(50);
+            assertEquals(2, pool.size());
+            assertTrue(pool.getBoardsProduced() <= 3);
+            take(pool);
+            assertEquals(1, pool.getHits());
+        }
+    }
+}
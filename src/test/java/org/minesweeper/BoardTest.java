@@ -0,0 +1,135 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+import java.util.Random;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BoardTest {
+    @Test
+    public void testEmptyBoard() {
+        Board board = new Board(3, 2);
+        assertEquals(board.size(), 6);
+        for (int index = 0; index < board.size(); index++) {
+            assertTrue(board.isCovered(index));
+            assertFalse(board.hasMine(index));
+            assertFalse(board.hasFlag(index));
+            assertEquals(board.getClueNumber(index), 0);
+        }
+    }
+
+    @Test
+    public void testIndexIsRowMajor() {
+        Board board = new Board(4, 3);
+        assertEquals(board.index(2, 1), 9);
+        assertEquals(board.row(9), 2);
+        assertEquals(board.column(9), 1);
+    }
+
+    @Test
+    public void testCellStatesArePackedIndependently() {
+        Board board = new Board(2, 2);
+        board.placeMine(0);
+        board.setClueNumber(1, 8);
+        board.toggleFlag(2);
+        board.uncover(3);
+
+        assertTrue(board.hasMine(0));
+        assertEquals(board.getClueNumber(0), 0);
+        assertEquals(board.getClueNumber(1), 8);
+        assertFalse(board.hasMine(1));
+        assertTrue(board.hasFlag(2));
+        assertTrue(board.isCovered(2));
+        assertFalse(board.isCovered(3));
+        assertEquals(board.cellToString(0), "m");
+        assertEquals(board.cellToString(1), "8");
+        assertEquals(board.cellToString(2), "f");
+        assertEquals(board.cellToString(3), "u");
+    }
+
+    @Test
+    public void testTileIsViewOfBoard() {
+        Minesweeper test = new Minesweeper(4, 4, 1);
+        test.getTile(1, 2).toggleFlag();
+        assertTrue(test.getBoard().hasFlag(test.getBoard().index(1, 2)));
+        assertTrue(test.getTiles()[1][2].hasFlag());
+    }
+
+    @Test
+    public void testInvalidTransitions() {
+        Board board = new Board(1, 1);
+        board.placeMine(0);
+        assertThrows(IllegalCallerException.class, () -> board.placeMine(0));
+        assertThrows(IllegalCallerException.class, () -> board.setClueNumber(0, 1));
+        board.toggleFlag(0);
+        assertThrows(IllegalCallerException.class, () -> board.uncover(0));
+    }
+
+    @Test
+    public void testClearResetsAllCells() {
+        Board board = new Board(2, 1);
+        board.placeMine(0);
+        board.uncover(1);
+        board.clear();
+        assertEquals(board.cellToString(0), "");
+        assertEquals(board.cellToString(1), "");
+        assertTrue(board.hasCoveredSafeCell());
+    }
+
+    @Test
+    public void testCoveredSafeCountMatchesScan() {
+        Board board = new Board(7, 5);
+        assertEquals(board.countCoveredSafeCells(), board.getCoveredSafeCellCount());
+
+        // mines placed on uncovered cells must not change the count twice
+        Random random = new Random(42);
+        for (int k = 0; k < 200; k++) {
+            int index = random.nextInt(board.size());
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    if (!board.hasMine(index)) {
+                        board.placeMine(index);
+                    }
+                }
+                case 1 -> {
+                    if (board.isCovered(index) && !board.hasFlag(index)) {
+                        board.uncover(index);
+                    }
+                }
+                default -> {
+                    if (board.isCovered(index)) {
+                        board.toggleFlag(index);
+                    }
+                }
+            }
+            assertEquals(board.countCoveredSafeCells(), board.getCoveredSafeCellCount());
+        }
+
+        board.clear();
+        assertEquals(board.size(), board.getCoveredSafeCellCount());
+    }
+
+    @Test
+    public void testCopySharesChunksUntilWritten() {
+        Board board = new Board(200, 100); // spans several chunks
+        board.placeMine(0);
+        board.recomputeClueNumbers();
+        Board copy = board.copy();
+        assertEquals(0, board.countOwnedChunks());
+        assertEquals(0, copy.countOwnedChunks());
+
+        // each board copies only the chunk it writes
+        copy.uncover(board.size() - 1);
+        board.toggleFlag(Board.CHUNK_SIZE + 1);
+        assertEquals(1, copy.countOwnedChunks());
+        assertEquals(1, board.countOwnedChunks());
+        assertTrue(board.isCovered(board.size() - 1));
+        assertFalse(copy.isCovered(copy.size() - 1));
+        assertFalse(copy.hasFlag(Board.CHUNK_SIZE + 1));
+        assertEquals(board.getCoveredSafeCellCount() - 1, copy.getCoveredSafeCellCount());
+        assertEquals(1, copy.getClueNumber(1));
+
+        copy.clear();
+        assertTrue(board.hasMine(0));
+        assertEquals(copy.size(), copy.getCoveredSafeCellCount());
+    }
+}
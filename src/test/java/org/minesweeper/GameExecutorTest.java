@@ -0,0 +1,153 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameExecutorTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * Applies batches to a board the way the grid does.
+     */
+    private static Board show(Board view, List<GameExecutor.ChangeBatch> batches) {
+        for (GameExecutor.ChangeBatch batch : batches) {
+            if (batch.board() != null) {
+                view = batch.board();
+            }
+            for (int k = 0; k < batch.cells().length; k++) {
+                view.setCell(batch.cells()[k], batch.states()[k]);
+            }
+        }
+        return view;
+    }
+
+    private GameJournal newJournal(String name) {
+        return new GameJournal(dir.resolve(name + ".bin"), dir.resolve(name + ".journal"));
+    }
+
+    @Test
+    public void testMatchesPlayingDirectly() {
+        for (long seed = 0; seed < 20; seed++) {
+            Minesweeper direct = new Minesweeper(16, 16, 40, seed);
+            Minesweeper played = new Minesweeper(16, 16, 40, seed);
+            List<GameExecutor.ChangeBatch> batches = new ArrayList<>();
+            GameJournal journal = newJournal("game" + seed);
+            GameExecutor executor = new GameExecutor(played, journal, null, batches::add);
+
+            // the same moves, skipping those after the game ends as the grid does
+            SplittableRandom random = new SplittableRandom(seed);
+            GameState state = GameState.NOT_STARTED;
+            for (int move = 0; move < 60; move++) {
+                int i = random.nextInt(16), j = random.nextInt(16);
+                boolean flag = random.nextInt(4) == 0;
+                if (flag) {
+                    executor.toggleFlag(i, j);
+                } else {
+                    executor.reveal(i, j);
+                }
+                if (state == GameState.WON || state == GameState.LOST) {
+                    continue;
+                }
+                if (flag) {
+                    direct.toggleTileFlag(i, j);
+                } else {
+                    state = direct.playTurn(i, j);
+                }
+            }
+            executor.close();
+            journal.close();
+
+            assertEquals(direct.asciiGameState(true), played.asciiGameState(true));
+            assertEquals(state, batches.get(batches.size() - 1).state());
+
+            // the batches rebuild what the player can see
+            Board view = show(new Board(16, 16), batches);
+            Board board = played.getBoard();
+            for (int index = 0; index < board.size(); index++) {
+                assertEquals(board.isCovered(index), view.isCovered(index));
+                assertEquals(board.hasFlag(index), view.hasFlag(index));
+                if (!board.isCovered(index)) {
+                    assertEquals(board.getClueNumber(index), view.getClueNumber(index));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testResetStartsNewGame() {
+        Minesweeper game = new Minesweeper(30, 16, 99, 3L);
+        List<GameExecutor.ChangeBatch> batches = new ArrayList<>();
+        GameJournal journal = newJournal("reset");
+        GameExecutor executor = new GameExecutor(game, journal, null, batches::add);
+        executor.reveal(8, 15);
+        executor.toggleFlag(0, 0);
+        executor.reset();
+        executor.close();
+        journal.close();
+
+        assertFalse(game.isFirstTurnTaken());
+        GameExecutor.ChangeBatch last = batches.get(batches.size() - 1);
+        assertEquals(GameState.NOT_STARTED, last.state());
+        Board view = show(new Board(30, 16), batches);
+        for (int index = 0; index < view.size(); index++) {
+            assertTrue(view.isCovered(index));
+            assertFalse(view.hasFlag(index));
+        }
+    }
+
+    @Test
+    public void testLargeRevealIsPublished() {
+        Minesweeper game = new Minesweeper(1000, 1000, 1, 5L);
+        List<GameExecutor.ChangeBatch> batches = new ArrayList<>();
+        GameJournal journal = newJournal("large");
+        GameExecutor executor = new GameExecutor(game, journal, null, batches::add);
+        executor.reveal(0, 0);
+        executor.close();
+        journal.close();
+
+        GameExecutor.ChangeBatch last = batches.get(batches.size() - 1);
+        assertEquals(GameState.WON, last.state());
+        Board view = show(new Board(1000, 1000), batches);
+        assertEquals(1, countCovered(view));
+    }
+
+    @Test
+    public void testUndoAfterLoss() {
+        Minesweeper game = new Minesweeper(30, 16, 99, 3L);
+        game.setUndoEnabled(true);
+        game.playTurn(8, 15);
+        int mine = 0;
+        while (!game.getBoard().hasMine(mine)) {
+            mine++;
+        }
+        List<GameExecutor.ChangeBatch> batches = new ArrayList<>();
+        GameJournal journal = newJournal("undo");
+        GameExecutor executor = new GameExecutor(game, journal, null, batches::add);
+        executor.reveal(game.getBoard().row(mine), game.getBoard().column(mine));
+        executor.undo();
+        executor.redo();
+        executor.undo();
+        executor.close();
+        journal.close();
+
+        assertEquals(GameState.IN_PROGRESS, batches.get(batches.size() - 1).state());
+        assertTrue(game.canRedo());
+        Board view = show(new Board(30, 16), batches);
+        assertEquals(game.getBoard().getCoveredSafeCellCount(), view.countCoveredSafeCells());
+    }
+
+    private static int countCovered(Board board) {
+        int covered = 0;
+        for (int index = 0; index < board.size(); index++) {
+            covered += board.isCovered(index) ? 1 : 0;
+        }
+        return covered;
+    }
+}
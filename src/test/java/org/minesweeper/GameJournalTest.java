@@ -0,0 +1,177 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameJournalTest {
+    @TempDir
+    Path dir;
+
+    private Path snapshot() {
+        return dir.resolve("save.bin");
+    }
+
+    private Path journalFile() {
+        return dir.resolve("save.journal");
+    }
+
+    /**
+     * Plays the first turn in the middle of the board, then flags and uncovers
+     * tiles without mines, recording every move.
+     */
+    private static void play(Minesweeper game, GameJournal journal, int moves) {
+        journal.begin(game);
+        game.playTurn(game.getGridHeight() / 2, game.getGridWidth() / 2);
+        journal.recordTurn(game, game.getGridHeight() / 2, game.getGridWidth() / 2);
+
+        Board board = game.getBoard();
+        int played = 1;
+        for (int index = 0; index < board.size() && played < moves; index++) {
+            if (!board.isCovered(index)) {
+                continue;
+            }
+            int i = board.row(index), j = board.column(index);
+            if (board.hasMine(index)) {
+                game.toggleTileFlag(i, j);
+                journal.recordFlag(game, i, j);
+            } else {
+                game.playTurn(i, j);
+                journal.recordTurn(game, i, j);
+            }
+            played++;
+        }
+    }
+
+    @Test
+    public void testRecoverFromSnapshotAndJournal() {
+        Minesweeper game = new Minesweeper(30, 16, 99, 11L);
+        GameJournal journal = new GameJournal(snapshot(), journalFile());
+        play(game, journal, 20);
+        journal.close();
+
+        GameJournal recovering = new GameJournal(snapshot(), journalFile());
+        Minesweeper recovered = recovering.recover();
+        recovering.close();
+        assertNotNull(recovered);
+        assertEquals(game.asciiGameState(true), recovered.asciiGameState(true));
+        assertEquals(game.asciiGameState(false), recovered.asciiGameState(false));
+    }
+
+    @Test
+    public void testCompactionFoldsJournalIntoSnapshot() throws IOException {
+        Minesweeper game = new Minesweeper(30, 16, 99, 12L);
+        GameJournal journal = new GameJournal(snapshot(), journalFile(), 4);
+        play(game, journal, 10);
+        journal.close();
+
+        // 10 moves with a snapshot every 4 leaves 2 moves in the journal
+        assertEquals(
+                GameJournal.HEADER_SIZE + 2 * GameJournal.RECORD_SIZE, Files.size(journalFile())
+        );
+        GameJournal recovering = new GameJournal(snapshot(), journalFile());
+        Minesweeper recovered = recovering.recover();
+        recovering.close();
+        assertEquals(game.asciiGameState(false), recovered.asciiGameState(false));
+    }
+
+    @Test
+    public void testCompactionMovesBaseForward() throws IOException {
+        // a 100x80 board takes a snapshot every 1024 moves
+        Minesweeper game = new Minesweeper(100, 80, 800, 16L);
+        GameJournal journal = new GameJournal(snapshot(), journalFile(), 4);
+        journal.begin(game);
+        game.playTurn(40, 50);
+        journal.recordTurn(game, 40, 50);
+        Board board = game.getBoard();
+        int covered = 0;
+        while (!board.isCovered(covered)) {
+            covered++;
+        }
+        int i = board.row(covered), j = board.column(covered);
+        for (int played = 1; played < 2500; played++) {
+            game.toggleTileFlag(i, j);
+            journal.recordFlag(game, i, j);
+        }
+        journal.close();
+
+        // the snapshot starts from the board after 2048 moves, not the first move
+        GameLog log = GameLog.read(snapshot());
+        assertNotNull(log.base());
+        assertEquals(2500 - 2048, log.moves().length);
+        GameJournal recovering = new GameJournal(snapshot(), journalFile());
+        Minesweeper recovered = recovering.recover();
+        recovering.close();
+        assertEquals(game.asciiGameState(true), recovered.asciiGameState(true));
+        assertEquals(game.asciiGameState(false), recovered.asciiGameState(false));
+    }
+
+    @Test
+    public void testTornRecordIsIgnored() throws IOException {
+        Minesweeper game = new Minesweeper(30, 16, 99, 13L);
+        GameJournal journal = new GameJournal(snapshot(), journalFile());
+        play(game, journal, 5);
+        journal.close();
+
+        // cut the last record in half as if the process crashed mid write
+        long size = Files.size(journalFile());
+        try (FileChannel channel = FileChannel.open(journalFile(), StandardOpenOption.WRITE)) {
+            channel.truncate(size - GameJournal.RECORD_SIZE / 2);
+        }
+        GameJournal recovering = new GameJournal(snapshot(), journalFile());
+        Minesweeper recovered = recovering.recover();
+        assertNotNull(recovered);
+
+        // the torn record is dropped before new records are appended
+        recovering.recordFlag(recovered, 0, 0);
+        recovering.close();
+        assertEquals(
+                GameJournal.HEADER_SIZE + 5 * GameJournal.RECORD_SIZE, Files.size(journalFile())
+        );
+    }
+
+    @Test
+    public void testJournalOfOlderSnapshotIsIgnored() throws IOException {
+        Minesweeper game = new Minesweeper(30, 16, 99, 14L);
+        GameJournal journal = new GameJournal(snapshot(), journalFile());
+        play(game, journal, 5);
+        journal.close();
+        Path oldJournal = dir.resolve("old.journal");
+        Files.copy(journalFile(), oldJournal);
+
+        // compact, then restore the old journal as if the crash came before its reset
+        GameJournal compacting = new GameJournal(snapshot(), journalFile(), 1);
+        Minesweeper recovered = compacting.recover();
+        compacting.recordFlag(recovered, 0, 0);
+        compacting.close();
+        Files.copy(oldJournal, journalFile(), StandardCopyOption.REPLACE_EXISTING);
+
+        GameJournal recovering = new GameJournal(snapshot(), journalFile());
+        Minesweeper again = recovering.recover();
+        recovering.close();
+        assertEquals(recovered.asciiGameState(false), again.asciiGameState(false));
+    }
+
+    @Test
+    public void testDiscardDeletesSave() {
+        Minesweeper game = new Minesweeper(9, 9, 10, 15L);
+        GameJournal journal = new GameJournal(snapshot(), journalFile());
+        play(game, journal, 3);
+        journal.flush();
+        assertTrue(Files.exists(snapshot()));
+
+        journal.discard();
+        journal.close();
+        assertFalse(journal.isRecording());
+        assertFalse(Files.exists(snapshot()));
+        assertFalse(Files.exists(journalFile()));
+        assertNull(new GameJournal(snapshot(), journalFile()).recover());
+    }
+}
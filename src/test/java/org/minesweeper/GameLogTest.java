@@ -0,0 +1,228 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameLogTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * Plays the first turn in the middle of the board, then flags mines and
+     * uncovers safe tiles in order.
+     */
+    private static void play(Minesweeper game, int moves) {
+        game.playTurn(game.getGridHeight() / 2, game.getGridWidth() / 2);
+        Board board = game.getBoard();
+        int played = 1;
+        for (int index = 0; index < board.size() && played < moves; index++) {
+            if (board.isCovered(index) && !board.hasFlag(index)) {
+                if (board.hasMine(index)) {
+                    game.toggleTileFlag(board.row(index), board.column(index));
+                } else {
+                    game.playTurn(board.row(index), board.column(index));
+                }
+                played++;
+            }
+        }
+    }
+
+    @Test
+    public void testSaveAndReplayLog() throws IOException {
+        Minesweeper game = new Minesweeper(30, 16, 99, 7L);
+        play(game, 25);
+        Path save = dir.resolve("save.log");
+        game.saveGameLog(save.toString());
+        assertTrue(GameLog.isGameLog(save));
+        assertTrue(GameSave.isBinarySave(save));
+
+        Minesweeper loaded = new Minesweeper(save.toString());
+        assertEquals(game.asciiGameState(false), loaded.asciiGameState(false));
+        assertEquals(game.asciiGameState(true), loaded.asciiGameState(true));
+        for (int index = 0; index < game.getBoard().size(); index++) {
+            assertEquals(game.getBoard().getCell(index), loaded.getBoard().getCell(index));
+        }
+        assertTrue(loaded.isFirstTurnTaken());
+    }
+
+    @Test
+    public void testLogIsSmallerThanSnapshot() throws IOException {
+        Minesweeper game = new Minesweeper(1000, 1000, 150_000, 3L);
+        play(game, 50);
+        Path log = dir.resolve("save.log");
+        Path snapshot = dir.resolve("save.bin");
+        game.saveGameLog(log.toString());
+        game.saveGame(snapshot.toString());
+        // the moves and an empty list of snapshots
+        assertEquals(GameSave.HEADER_SIZE + 4 + 4 * 50 + 4, Files.size(log));
+        assertTrue(Files.size(log) * 1000 < Files.size(snapshot));
+    }
+
+    @Test
+    public void testReplayUpToMove() {
+        Minesweeper game = new Minesweeper(16, 16, 40, 21L);
+        game.toggleTileFlag(0, 0);
+        game.playTurn(8, 8);
+        String afterFirstTurn = game.asciiGameState(false);
+        play(game, 10);
+
+        GameLog log = game.toGameLog();
+        Minesweeper flagged = log.replay(1);
+        assertTrue(flagged.getBoard().hasFlag(0));
+        assertFalse(flagged.isFirstTurnTaken());
+        assertEquals(afterFirstTurn, log.replay(2).asciiGameState(false));
+        assertEquals(game.asciiGameState(false), log.replay().asciiGameState(false));
+        assertThrows(IllegalArgumentException.class, () -> log.replay(log.moves().length + 1));
+    }
+
+    /**
+     * Plays the first turn, then toggles a flag on a covered tile until the
+     * game has played the given number of moves.
+     */
+    private static Minesweeper playLong(int moves) {
+        Minesweeper game = new Minesweeper(100, 80, 800, 4L);
+        game.playTurn(40, 50);
+        Board board = game.getBoard();
+        int covered = 0;
+        while (!board.isCovered(covered)) {
+            covered++;
+        }
+        for (int played = 1; played < moves; played++) {
+            game.toggleTileFlag(board.row(covered), board.column(covered));
+        }
+        return game;
+    }
+
+    @Test
+    public void testReplayStartsFromNearestSnapshot() throws IOException {
+        // a 100x80 board is small enough to take a snapshot every 1024 moves
+        Minesweeper game = playLong(2500);
+        GameLog log = game.toGameLog();
+        assertEquals(2, log.snapshots().size());
+        assertEquals(1024, log.snapshots().get(0).moveCount());
+        assertEquals(2048, log.snapshots().get(1).moveCount());
+        assertEquals(1024, log.nearestSnapshot(1500).moveCount());
+        assertNull(log.nearestSnapshot(1023));
+
+        GameLog withoutSnapshots = new GameLog(
+                log.base(), log.width(), log.height(), log.mineCount(), log.seed(),
+                log.noGuess(), log.moves(), List.of()
+        );
+        for (int moves : new int[] {0, 1, 1023, 1024, 1025, 2047, 2048, 2500}) {
+            Minesweeper replayed = log.replay(moves);
+            assertEquals(withoutSnapshots.replay(moves).asciiGameState(false),
+                    replayed.asciiGameState(false));
+            assertEquals(moves, replayed.toGameLog().moves().length);
+        }
+
+        Path save = dir.resolve("save.log");
+        game.saveGameLog(save.toString());
+        assertEquals(GameSave.HEADER_SIZE + 4 + 4 * 2500 + 4 + 2 * (5 + 100 * 80 / 2),
+                Files.size(save));
+        GameLog read = GameLog.read(save);
+        assertEquals(2, read.snapshots().size());
+        assertEquals(game.asciiGameState(false), read.replay().asciiGameState(false));
+        assertEquals(game.asciiGameState(false), read.replay(1500).toGameLog().replay()
+                .asciiGameState(false));
+    }
+
+    @Test
+    public void testCompactStartsFromLatestSnapshot() {
+        Minesweeper game = playLong(2500);
+        GameLog compacted = game.toGameLog().compact();
+        assertNotNull(compacted.base());
+        assertTrue(compacted.snapshots().isEmpty());
+        assertEquals(2500 - 2048, compacted.moves().length);
+        assertEquals(game.asciiGameState(false), compacted.replay().asciiGameState(false));
+        assertEquals(game.asciiGameState(true), compacted.replay().asciiGameState(true));
+
+        Minesweeper small = new Minesweeper(9, 9, 10, 5L);
+        small.playTurn(4, 4);
+        GameLog log = small.toGameLog();
+        assertSame(log, log.compact());
+    }
+
+    @Test
+    public void testUndoDropsLaterSnapshots() {
+        Minesweeper game = new Minesweeper(100, 80, 800, 4L);
+        game.setUndoEnabled(true);
+        game.playTurn(40, 50);
+        for (int played = 1; played < 1026; played++) {
+            game.toggleTileFlag(0, 0);
+        }
+        assertEquals(1, game.toGameLog().snapshots().size());
+
+        // the snapshot after 1024 moves stays until the 1024th move is undone
+        game.undo();
+        game.undo();
+        assertEquals(1, game.toGameLog().snapshots().size());
+        game.undo();
+        assertTrue(game.toGameLog().snapshots().isEmpty());
+        assertEquals(game.asciiGameState(false), game.toGameLog().replay().asciiGameState(false));
+    }
+
+    @Test
+    public void testLoggedMovesSkipNoOps() {
+        Minesweeper game = new Minesweeper(9, 9, 10, 5L);
+        game.playTurn(4, 4);
+        game.playTurn(4, 4); // already uncovered
+        game.toggleTileFlag(4, 4); // cannot flag uncovered tiles
+        assertEquals(1, game.toGameLog().moves().length);
+
+        game.reset(6L);
+        assertEquals(0, game.toGameLog().moves().length);
+    }
+
+    @Test
+    public void testRestoredGameLogsOntoItsBase() throws IOException {
+        Minesweeper game = new Minesweeper(30, 16, 99, 13L);
+        play(game, 10);
+        Path snapshot = dir.resolve("save.bin");
+        game.saveGame(snapshot.toString());
+
+        Minesweeper restored = new Minesweeper(snapshot.toString());
+        play(restored, 5);
+        Path log = dir.resolve("save.log");
+        restored.saveGameLog(log.toString());
+
+        GameLog read = GameLog.read(log);
+        assertNotNull(read.base());
+        assertEquals(restored.toGameLog().moves().length, read.moves().length);
+        assertEquals(restored.asciiGameState(false), read.replay().asciiGameState(false));
+        assertEquals(game.asciiGameState(false), read.replay(0).asciiGameState(false));
+    }
+
+    @Test
+    public void testNoGuessGameReplaysWithoutGenerating() throws IOException {
+        Minesweeper game = new Minesweeper(16, 16, 40, 12L);
+        NoGuessGenerator generator = new NoGuessGenerator();
+        game.setNoGuessGenerator(generator);
+        game.playTurn(8, 8);
+        Path log = dir.resolve("save.log");
+        game.saveGameLog(log.toString());
+
+        Minesweeper loaded = new Minesweeper(log.toString());
+        assertTrue(loaded.isNoGuess());
+        assertEquals(game.getSeed(), loaded.getSeed());
+        assertEquals(game.asciiGameState(true), loaded.asciiGameState(true));
+        assertEquals(1, generator.getBoardsGenerated());
+    }
+
+    @Test
+    public void testCorruptLogIsRejected() throws IOException {
+        Minesweeper game = new Minesweeper(9, 9, 10, 5L);
+        play(game, 5);
+        Path log = dir.resolve("save.log");
+        game.saveGameLog(log.toString());
+        byte[] bytes = Files.readAllBytes(log);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(log, bytes);
+        assertThrows(IOException.class, () -> GameLog.read(log));
+    }
+}
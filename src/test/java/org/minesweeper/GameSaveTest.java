@@ -0,0 +1,129 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameSaveTest {
+    @Test
+    public void testSaveAndLoadGame(@TempDir Path dir) throws IOException {
+        Minesweeper game = new Minesweeper(9, 7, 10, 2024L);
+        game.playTurn(3, 3);
+        flagFirstCoveredTile(game);
+
+        Path save = dir.resolve("save.bin");
+        game.saveGame(save.toString());
+        assertTrue(GameSave.isBinarySave(save));
+
+        Minesweeper loaded = new Minesweeper(save.toString());
+        assertEquals(game.asciiGameState(true), loaded.asciiGameState(true));
+        assertEquals(game.asciiGameState(false), loaded.asciiGameState(false));
+        assertEquals(2024L, loaded.getSeed());
+        assertEquals(10, loaded.getMineCount());
+        for (int index = 0; index < game.getBoard().size(); index++) {
+            assertEquals(game.getBoard().getCell(index), loaded.getBoard().getCell(index));
+        }
+        assertEquals(
+                game.getBoard().getCoveredSafeCellCount(),
+                loaded.getBoard().getCoveredSafeCellCount()
+        );
+    }
+
+    @Test
+    public void testLoadedGameContinues(@TempDir Path dir) {
+        Minesweeper game = new Minesweeper(16, 16, 40, 5L);
+        game.playTurn(8, 8);
+        Path save = dir.resolve("save.bin");
+        game.saveGame(save.toString());
+
+        Minesweeper loaded = new Minesweeper(save.toString());
+        for (int i = 0; i < 16; i++) {
+            for (int j = 0; j < 16; j++) {
+                if (!game.getBoard().hasMine(game.getBoard().index(i, j))) {
+                    assertEquals(game.playTurn(i, j), loaded.playTurn(i, j));
+                }
+            }
+        }
+        assertEquals(game.asciiGameState(false), loaded.asciiGameState(false));
+    }
+
+    @Test
+    public void testSaveUnstartedGame(@TempDir Path dir) throws IOException {
+        Minesweeper game = new Minesweeper(5, 5, 3, 77L);
+        Path save = dir.resolve("nested/save.bin");
+        game.saveGame(save.toString());
+
+        GameSave loaded = GameSave.read(save);
+        assertFalse(loaded.firstTurnTaken());
+        assertEquals(77L, loaded.seed());
+        assertEquals(GameSave.HEADER_SIZE + 13, Files.size(save));
+    }
+
+    @Test
+    public void testSaveKeepsFlagsBeforeFirstTurn(@TempDir Path dir) {
+        Minesweeper game = new Minesweeper(9, 9, 10, 12L);
+        game.toggleTileFlag(0, 0);
+        game.toggleTileFlag(8, 8);
+        Path save = dir.resolve("save.bin");
+        game.saveGame(save.toString());
+
+        Minesweeper loaded = new Minesweeper(save.toString());
+        assertTrue(loaded.getBoard().hasFlag(loaded.getBoard().index(0, 0)));
+        assertTrue(loaded.getBoard().hasFlag(loaded.getBoard().index(8, 8)));
+        assertEquals(game.asciiGameState(false), loaded.asciiGameState(false));
+
+        // the first turn generates the same mines and keeps the flags
+        assertEquals(game.playTurn(4, 4), loaded.playTurn(4, 4));
+        assertEquals(game.asciiGameState(true), loaded.asciiGameState(true));
+        assertTrue(loaded.getBoard().hasFlag(loaded.getBoard().index(0, 0)));
+    }
+
+    @Test
+    public void testLargeSaveIsMapped(@TempDir Path dir) throws IOException {
+        Minesweeper game = new Minesweeper(3001, 1000, 500000, 3L);
+        game.playTurn(500, 1500);
+        Path save = dir.resolve("large.bin");
+        game.saveGame(save.toString());
+
+        Minesweeper loaded = new Minesweeper(save.toString());
+        assertEquals(game.asciiGameState(true), loaded.asciiGameState(true));
+    }
+
+    @Test
+    public void testCorruptSaveIsRejected(@TempDir Path dir) throws IOException {
+        Minesweeper game = new Minesweeper(8, 8, 10, 1L);
+        game.playTurn(4, 4);
+        Path save = dir.resolve("save.bin");
+        game.saveGame(save.toString());
+
+        try (FileChannel channel = FileChannel.open(save, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[] { 0x77 }), GameSave.HEADER_SIZE + 3);
+        }
+        assertThrows(IOException.class, () -> GameSave.read(save));
+    }
+
+    @Test
+    public void testLegacySaveIsNotBinary(@TempDir Path dir) throws IOException {
+        Path save = dir.resolve("save.csv");
+        Files.writeString(save, "2,2,1,\nm,1,\n1,1,\n");
+        assertFalse(GameSave.isBinarySave(save));
+        assertThrows(IOException.class, () -> GameSave.read(save));
+    }
+
+    private static void flagFirstCoveredTile(Minesweeper game) {
+        Board board = game.getBoard();
+        for (int index = 0; index < board.size(); index++) {
+            if (board.isCovered(index)) {
+                game.toggleTileFlag(board.row(index), board.column(index));
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GameServerTest {
+    private GameServer server;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = new GameServer(0);
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close();
+    }
+
+    /**
+     * A connection to the server that sends one command at a time.
+     */
+    private static class Client implements AutoCloseable {
+        private final Socket socket;
+        private final BufferedReader in;
+        private final PrintWriter out;
+
+        Client(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            in = new BufferedReader(new InputStreamReader(
+                    socket.getInputStream(), StandardCharsets.US_ASCII));
+            out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.US_ASCII);
+        }
+
+        String send(String command) throws IOException {
+            out.println(command);
+            return in.readLine();
+        }
+
+        String readLine() throws IOException {
+            return in.readLine();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    @Test
+    public void testPlaysMovesOnTheModel() throws IOException {
+        Minesweeper local = new Minesweeper(9, 9, 10, 5L);
+        try (Client client = new Client(server.getPort())) {
+            assertEquals("OK", client.send("NEW 9 9 10 5"));
+            GameState state = local.playTurn(4, 4);
+            assertEquals("OK " + state + " " + local.getRevealedCells().length,
+                    client.send("REVEAL 4 4"));
+            local.toggleTileFlag(0, 0);
+            assertEquals("OK IN_PROGRESS", client.send("flag 0 0"));
+
+            assertEquals("BOARD 9", client.send("SHOW"));
+            StringBuilder board = new StringBuilder();
+            for (int i = 0; i < 9; i++) {
+                board.append(client.readLine()).append('\n');
+            }
+            assertEquals(local.asciiGameState(false), board.toString());
+
+            assertEquals("BYE", client.send("QUIT"));
+            assertNull(client.readLine());
+        }
+        assertEquals(2, server.getMovesPlayed());
+    }
+
+    @Test
+    public void testBadCommandsKeepSessionOpen() throws IOException {
+        try (Client client = new Client(server.getPort())) {
+            assertEquals("ERROR no game started", client.send("REVEAL 0 0"));
+            assertTrue(client.send("JUMP").startsWith("ERROR"));
+            assertTrue(client.send("NEW 9 9").startsWith("ERROR"));
+            assertTrue(client.send("NEW 9 9 100").startsWith("ERROR"));
+            assertTrue(client.send("NEW 9 nine 10").startsWith("ERROR"));
+            assertTrue(client.send("NEW 10000 10000 10").startsWith("ERROR"));
+            assertEquals("OK", client.send("NEW 9 9 10 5"));
+            assertTrue(client.send("REVEAL 9 0").startsWith("ERROR"));
+            assertTrue(client.send("FLAG 0").startsWith("ERROR"));
+
+            // play until the game ends, after which moves are refused
+            String reply = "OK IN_PROGRESS";
+            for (int index = 0; index < 81 && reply.startsWith("OK IN_PROGRESS"); index++) {
+                reply = client.send("REVEAL " + index / 9 + " " + index % 9);
+            }
+            assertTrue(reply.startsWith("OK LOST") || reply.startsWith("OK WON"), reply);
+            assertEquals("ERROR game is over", client.send("FLAG 0 0"));
+            assertEquals("OK", client.send("NEW 9 9 10"));
+        }
+    }
+
+    @Test
+    public void testEndlessLineClosesConnection() throws IOException {
+        try (Client client = new Client(server.getPort())) {
+            client.out.print("REVEAL " + "0".repeat(100_000));
+            client.out.flush();
+            assertEquals("ERROR line too long", client.readLine());
+            assertNull(client.readLine());
+        }
+        try (Client client = new Client(server.getPort())) {
+            assertEquals("OK", client.send("NEW 9 9 10 5"));
+        }
+    }
+
+    @Test
+    public void testSessionsAreIndependent() throws Exception {
+        int sessions = 100;
+        ExecutorService clients = Executors.newFixedThreadPool(sessions);
+        try {
+            List<Future<String>> boards = new ArrayList<>();
+            for (int s = 0; s < sessions; s++) {
+                long seed = s;
+                boards.add(clients.submit(() -> {
+                    try (Client client = new Client(server.getPort())) {
+                        client.send("NEW 16 16 40 " + seed);
+                        String reply = "OK IN_PROGRESS";
+                        for (int index = 0; index < 256 && reply.startsWith("OK IN_PROGRESS");
+                                index += 7) {
+                            reply = client.send("REVEAL " + index / 16 + " " + index % 16);
+                        }
+                        client.send("SHOW");
+                        StringBuilder board = new StringBuilder();
+                        for (int i = 0; i < 16; i++) {
+                            board.append(client.readLine()).append('\n');
+                        }
+                        return board.toString();
+                    }
+                }));
+            }
+
+            for (int s = 0; s < sessions; s++) {
+                Minesweeper local = new Minesweeper(16, 16, 40, s);
+                GameState state = GameState.IN_PROGRESS;
+                for (int index = 0; index < 256 && state == GameState.IN_PROGRESS; index += 7) {
+                    state = local.playTurn(index / 16, index % 16);
+                }
+                assertEquals(local.asciiGameState(false), boards.get(s).get());
+            }
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HistogramTest {
+    @Test
+    public void testBucketsCoverEveryValue() {
+        for (int bucket = 1; Histogram.lowestValue(bucket) > 0; bucket++) {
+            long lowest = Histogram.lowestValue(bucket);
+            assertTrue(lowest > Histogram.lowestValue(bucket - 1));
+            assertEquals(bucket, Histogram.bucket(lowest));
+            assertEquals(bucket - 1, Histogram.bucket(lowest - 1));
+            if (lowest >= Long.MAX_VALUE / 2) {
+                break;
+            }
+        }
+        assertEquals(0, Histogram.bucket(-5));
+        assertEquals(Histogram.bucket(Long.MAX_VALUE), Histogram.bucket(Long.MAX_VALUE - 1));
+    }
+
+    @Test
+    public void testPercentilesWithinAnEighth() {
+        Histogram histogram = new Histogram("test", "ns");
+        Random random = new Random(1);
+        long[] values = new long[100_000];
+        for (int k = 0; k < values.length; k++) {
+            values[k] = (long) Math.exp(random.nextDouble() * 25); // up to about 7e10
+            histogram.record(values[k]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, histogram.getCount());
+        assertEquals(values[values.length - 1], histogram.getMax());
+        assertEquals(values[values.length - 1], histogram.getPercentile(1));
+        for (double fraction : new double[] {0.5, 0.9, 0.99, 0.999}) {
+            long exact = values[(int) Math.ceil(fraction * values.length) - 1];
+            long estimate = histogram.getPercentile(fraction);
+            assertTrue(estimate >= exact && estimate <= exact + exact / 8 + 1,
+                    fraction + ": " + estimate + " for " + exact);
+        }
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(0.99));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(1.5));
+    }
+
+    @Test
+    public void testConcurrentRecordsAreCounted() throws InterruptedException {
+        Histogram histogram = new Histogram("test", "tiles");
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int k = 0; k < 100_000; k++) {
+                    histogram.record(k % 1000);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(800_000, histogram.getCount());
+        assertEquals(999, histogram.getMax());
+        assertEquals(499.5, histogram.getMean(), 1e-9);
+    }
+}
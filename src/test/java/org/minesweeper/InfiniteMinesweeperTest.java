@@ -0,0 +1,192 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InfiniteMinesweeperTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testFirstTurnIsSafe() {
+        for (long seed = 0; seed < 20; seed++) {
+            InfiniteMinesweeper test = new InfiniteMinesweeper(seed, 0.2, 1 << 20, dir);
+            assertEquals(GameState.IN_PROGRESS, test.playTurn(-3, 70));
+            assertTrue(test.getRevealedCells().length >= 18);
+            for (int x = -1; x < 2; x++) {
+                for (int y = -1; y < 2; y++) {
+                    assertFalse(test.hasMine(-3 + x, 70 + y));
+                    assertFalse(test.isCovered(-3 + x, 70 + y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMinesAreDeterministic() {
+        InfiniteMinesweeper first = new InfiniteMinesweeper(99L, 0.15, 1 << 20, dir);
+        InfiniteMinesweeper second = new InfiniteMinesweeper(99L, 0.15, 1 << 20, dir);
+        first.playTurn(0, 0);
+        second.playTurn(0, 0);
+        assertArrayEquals(first.getRevealedCells(), second.getRevealedCells());
+        for (int i = -100; i < 100; i += 7) {
+            for (int j = -100; j < 100; j += 3) {
+                assertEquals(first.hasMine(i, j), second.hasMine(i, j));
+            }
+        }
+    }
+
+    @Test
+    public void testCluesAcrossChunkBoundaries() {
+        InfiniteMinesweeper test = new InfiniteMinesweeper(5L, 0.12, 1 << 20, dir);
+        test.playTurn(63, 63);
+        int[] revealed = test.getRevealedCells();
+        for (int k = 0; k < revealed.length; k += 2) {
+            int i = revealed[k], j = revealed[k + 1];
+            int mines = 0;
+            for (int x = -1; x < 2; x++) {
+                for (int y = -1; y < 2; y++) {
+                    if ((x != 0 || y != 0) && test.hasMine(i + x, j + y)) {
+                        mines++;
+                    }
+                }
+            }
+            assertEquals(mines, test.getClueNumber(i, j));
+
+            // tiles without clues open every neighbour
+            if (mines == 0) {
+                for (int x = -1; x < 2; x++) {
+                    for (int y = -1; y < 2; y++) {
+                        assertFalse(test.isCovered(i + x, j + y));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testEvictedChunksAreRestored() throws IOException {
+        long smallBudget = 2 * InfiniteMinesweeper.CHUNK_BYTES;
+        InfiniteMinesweeper evicting = new InfiniteMinesweeper(7L, 0.18, smallBudget, dir);
+        InfiniteMinesweeper resident = new InfiniteMinesweeper(
+                7L, 0.18, 1L << 30, dir.resolve("resident")
+        );
+
+        Random random = new Random(3);
+        evicting.playTurn(0, 0);
+        resident.playTurn(0, 0);
+        for (int move = 0; move < 300; move++) {
+            int i = random.nextInt(600) - 300, j = random.nextInt(600) - 300;
+            if (random.nextInt(4) == 0) {
+                evicting.toggleTileFlag(i, j);
+                resident.toggleTileFlag(i, j);
+            } else if (!resident.hasMine(i, j)) {
+                evicting.playTurn(i, j);
+                resident.playTurn(i, j);
+            }
+        }
+        assertTrue(evicting.getSpilledChunkCount() > 0);
+
+        for (int i = -300; i < 300; i++) {
+            for (int j = -300; j < 300; j++) {
+                assertEquals(resident.isCovered(i, j), evicting.isCovered(i, j));
+                assertEquals(resident.hasFlag(i, j), evicting.hasFlag(i, j));
+                assertEquals(resident.getClueNumber(i, j), evicting.getClueNumber(i, j));
+            }
+        }
+        assertTrue(evicting.getResidentChunkCount() <= 2);
+
+        evicting.close();
+        assertEquals(0, evicting.getSpilledChunkCount());
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    public void testLeastRecentlyUsedChunkIsEvicted() {
+        long budget = 2 * InfiniteMinesweeper.CHUNK_BYTES;
+        InfiniteMinesweeper test = new InfiniteMinesweeper(3L, 0.1, budget, dir);
+        int size = InfiniteMinesweeper.CHUNK_SIZE;
+        test.toggleTileFlag(0, 0);
+        test.toggleTileFlag(0, size);
+        test.hasFlag(1, 1);
+        test.hasFlag(0, 0);
+
+        // the chunk at column 0 was used last, so the one at column size goes
+        test.toggleTileFlag(0, 2 * size);
+        assertEquals(1, test.getSpilledChunkCount());
+        assertTrue(test.hasFlag(0, 0));
+        assertEquals(1, test.getSpilledChunkCount());
+        assertTrue(test.hasFlag(0, size));
+        test.close();
+    }
+
+    @Test
+    public void testGamesCanShareSpillDirectory() {
+        long budget = InfiniteMinesweeper.CHUNK_BYTES;
+        InfiniteMinesweeper first = new InfiniteMinesweeper(3L, 0.1, budget, dir);
+        InfiniteMinesweeper second = new InfiniteMinesweeper(3L, 0.1, budget, dir);
+        first.toggleTileFlag(0, 0);
+        second.toggleTileFlag(1, 1);
+        first.toggleTileFlag(0, InfiniteMinesweeper.CHUNK_SIZE);
+        second.toggleTileFlag(0, InfiniteMinesweeper.CHUNK_SIZE);
+        assertEquals(1, first.getSpilledChunkCount());
+        assertEquals(1, second.getSpilledChunkCount());
+
+        // each game reads back its own copy of the spilled chunk
+        assertTrue(first.hasFlag(0, 0));
+        assertFalse(first.hasFlag(1, 1));
+        assertTrue(second.hasFlag(1, 1));
+        assertFalse(second.hasFlag(0, 0));
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void testCappedRevealContinuesNextTurn() {
+        // mines are so sparse that the first opening is cut off at the cap
+        InfiniteMinesweeper test = new InfiniteMinesweeper(1L, 1e-5, 1L << 30, dir);
+        assertEquals(GameState.IN_PROGRESS, test.playTurn(0, 0));
+        int first = test.getRevealedCells().length / 2;
+        assertTrue(first >= InfiniteMinesweeper.MAX_REVEAL);
+        assertTrue(first <= InfiniteMinesweeper.MAX_REVEAL + 8);
+        assertTrue(test.hasPendingReveal());
+
+        // clicking an uncovered tile carries on with the tiles left covered
+        assertEquals(GameState.IN_PROGRESS, test.playTurn(0, 0));
+        int[] more = test.getRevealedCells();
+        assertTrue(more.length / 2 >= InfiniteMinesweeper.MAX_REVEAL);
+        for (int k = 0; k < more.length; k += 2) {
+            assertFalse(test.isCovered(more[k], more[k + 1]));
+        }
+        test.close();
+    }
+
+    @Test
+    public void testSmallRevealLeavesNothingPending() {
+        InfiniteMinesweeper test = new InfiniteMinesweeper(5L, 0.12, 1 << 20, dir);
+        test.playTurn(63, 63);
+        assertFalse(test.hasPendingReveal());
+        test.playTurn(63, 63);
+        assertEquals(0, test.getRevealedCells().length);
+    }
+
+    @Test
+    public void testRevealingMineLoses() {
+        InfiniteMinesweeper test = new InfiniteMinesweeper(11L, 0.3, 1 << 20, dir);
+        test.playTurn(0, 0);
+        for (int j = 2; ; j++) {
+            if (test.hasMine(0, j)) {
+                assertEquals(GameState.LOST, test.playTurn(0, j));
+                return;
+            }
+        }
+    }
+}
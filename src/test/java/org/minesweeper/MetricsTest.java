@@ -0,0 +1,57 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    public void resetMetrics() {
+        Metrics.reset();
+    }
+
+    @Test
+    public void testSnapshotListsEveryPath() throws IOException {
+        Metrics.reset();
+        Metrics.turnPlayed(System.nanoTime(), 10, GameState.WON);
+        Metrics.turnPlayed(System.nanoTime(), 0, GameState.LOST);
+        Metrics.tilesRevealed(10);
+        Metrics.minesPlaced(System.nanoTime(), 480, 99);
+        Metrics.gameSaved(System.nanoTime(), "save.bin", 480);
+        Metrics.framePainted(System.nanoTime(), 480);
+
+        assertEquals(2, Metrics.TURN_NANOS.getCount());
+        assertEquals(10, Metrics.REVEAL_TILES.getMax());
+        assertEquals(1, Metrics.getGamesWon());
+        assertEquals(1, Metrics.getGamesLost());
+
+        Path file = dir.resolve("metrics.txt");
+        Metrics.dump(file);
+        String snapshot = Files.readString(file);
+        for (String name : new String[] {
+                "playTurn count=2", "reveal count=1", "randomMineMap count=1",
+                "saveGame count=1", "paintComponent count=1", "games won=1 lost=1"}) {
+            assertTrue(snapshot.contains(name), name);
+        }
+        assertFalse(Files.exists(GameJournal.temporaryPath(file)));
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        // the test run does not turn metrics on, so playing records nothing
+        assertFalse(Metrics.ENABLED);
+        assertEquals(0, Metrics.start());
+        Minesweeper game = new Minesweeper(9, 9, 10, 1L);
+        game.playTurn(4, 4);
+        assertEquals(0, Metrics.TURN_NANOS.getCount());
+        assertEquals(0, Metrics.REVEAL_TILES.getCount());
+    }
+}
@@ -1,11 +1,18 @@
 package org.minesweeper;
 
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
 import java.awt.*;
 import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -127,4 +134,365 @@ public class MinesweeperTest {
         }
     }
 
+    @Test
+    public void testUncoverTileReturnsRevealedCells(@TempDir Path dir) throws IOException {
+        Path save = dir.resolve("testFile.csv");
+        Files.writeString(save, """
+                4,4,1,
+                ,,1,m,
+                ,,1,1,
+                ,,,,
+                ,,,,
+                """);
+        Minesweeper test = new Minesweeper(save.toString());
+
+        int[] single = test.uncoverTile(0, 2);
+        assertArrayEquals(new int[] { 2 }, single);
+
+        int[] opening = test.uncoverTile(3, 0);
+        Arrays.sort(opening);
+        int[] expected = { 0, 1, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15 };
+        assertArrayEquals(expected, opening);
+        assertEquals("""
+                --1%
+                --11
+                ----
+                ----
+                """, test.asciiGameState(false));
+    }
+
+    @Test
+    public void testPlayTurnRecordsRevealedCells() {
+        Minesweeper test = new Minesweeper(9, 9, 10);
+        test.playTurn(4, 4);
+        int[] revealed = test.getRevealedCells();
+        assertTrue(revealed.length >= 9);
+        for (int index : revealed) {
+            assertFalse(test.getBoard().isCovered(index));
+        }
+
+        // clicking an uncovered tile reveals nothing
+        test.playTurn(4, 4);
+        assertEquals(0, test.getRevealedCells().length);
+    }
+
+    @Test
+    public void testListenersReceiveChangedCells() {
+        Minesweeper test = new Minesweeper(16, 16, 40, 4L);
+        List<ChangeSet> changes = new ArrayList<>();
+        test.addBoardListener(changes::add);
+
+        test.playTurn(8, 8);
+        assertEquals(1, changes.size());
+        ChangeSet turn = changes.get(0);
+        assertArrayEquals(test.getRevealedCells(), turn.toArray());
+        Board board = test.getBoard();
+        for (int k = 0; k < turn.size(); k++) {
+            int row = board.row(turn.get(k)), column = board.column(turn.get(k));
+            assertTrue(row >= turn.getTop() && row <= turn.getBottom());
+            assertTrue(column >= turn.getLeft() && column <= turn.getRight());
+        }
+
+        // flagging changes one tile, and clicking an uncovered tile changes none
+        int covered = 0;
+        while (!board.isCovered(covered)) {
+            covered++;
+        }
+        test.toggleTileFlag(board.row(covered), board.column(covered));
+        test.playTurn(8, 8);
+        assertEquals(2, changes.size());
+        assertArrayEquals(new int[] {covered}, changes.get(1).toArray());
+        assertEquals(board.row(covered), changes.get(1).getTop());
+        assertEquals(board.row(covered), changes.get(1).getBottom());
+
+        test.reset();
+        assertTrue(changes.get(2).isWholeBoard());
+        assertFalse(changes.get(2).isEmpty());
+    }
+
+    @Test
+    public void testLargeOpeningDoesNotOverflowStack() {
+        Minesweeper test = new Minesweeper(1500, 1500, 1);
+        assertEquals(GameState.WON, test.playTurn(0, 0));
+        assertEquals(1500 * 1500 - 1, test.getRevealedCells().length);
+    }
+
+    @Test
+    public void testCoveredSafeCountRestoredFromFile(@TempDir Path dir) throws IOException {
+        Path save = dir.resolve("testFile.csv");
+        Files.writeString(save, """
+                4,4,4,
+                2u,m,2,,
+                3u,m,3,,
+                3,um,3,,
+                2,m,2f,,
+                """);
+        Minesweeper test = new Minesweeper(save.toString());
+        Board board = test.getBoard();
+        assertEquals(10, board.getCoveredSafeCellCount());
+        assertEquals(board.countCoveredSafeCells(), board.getCoveredSafeCellCount());
+    }
+
+    @Test
+    public void testWinDetectionMatchesFullScan() {
+        Random random = new Random(7);
+        for (int game = 0; game < 20; game++) {
+            Minesweeper test = new Minesweeper(12, 9, 20);
+            Board board = test.getBoard();
+            GameState state = GameState.IN_PROGRESS;
+            while (state == GameState.IN_PROGRESS) {
+                state = test.playTurn(random.nextInt(9), random.nextInt(12));
+                assertEquals(board.countCoveredSafeCells(), board.getCoveredSafeCellCount());
+                if (state != GameState.LOST) {
+                    assertEquals(state == GameState.WON, board.countCoveredSafeCells() == 0);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSameSeedAndClickGiveSameBoard() {
+        Minesweeper first = new Minesweeper(30, 16, 99, 12345L);
+        Minesweeper second = new Minesweeper(30, 16, 99, 12345L);
+        first.playTurn(7, 20);
+        second.playTurn(7, 20);
+        assertEquals(first.asciiGameState(true), second.asciiGameState(true));
+
+        second.reset(12345L);
+        second.playTurn(7, 20);
+        assertEquals(first.asciiGameState(true), second.asciiGameState(true));
+
+        Minesweeper other = new Minesweeper(30, 16, 99, 54321L);
+        other.playTurn(7, 20);
+        assertNotEquals(first.asciiGameState(true), other.asciiGameState(true));
+    }
+
+    @Test
+    public void testMinePlacementAvoidsSafeArea() {
+        for (long seed = 0; seed < 50; seed++) {
+            int i = (int) (seed % 4), j = (int) (seed % 3);
+            Minesweeper test = new Minesweeper(4, 4, 7, seed);
+            test.playTurn(i, j);
+            Board board = test.getBoard();
+
+            int mines = 0;
+            for (int index = 0; index < board.size(); index++) {
+                if (board.hasMine(index)) {
+                    mines++;
+                    assertTrue(
+                            Math.abs(board.row(index) - i) > 1
+                                    || Math.abs(board.column(index) - j) > 1
+                    );
+                }
+            }
+            assertEquals(7, mines);
+        }
+    }
+
+    @Test
+    public void testDenseMinePlacement() {
+        Minesweeper test = new Minesweeper(2000, 2000, 2000 * 2000 - 9, 99L);
+        assertEquals(GameState.WON, test.playTurn(1000, 1000));
+        assertEquals(0, test.getBoard().countCoveredSafeCells());
+        assertEquals(9, test.getRevealedCells().length);
+    }
+
+    @Test
+    public void testUndoAndRedo() {
+        Minesweeper game = new Minesweeper(30, 16, 99, 8L);
+        game.setUndoEnabled(true);
+        String fresh = game.asciiGameState(true);
+        assertEquals(GameState.IN_PROGRESS, game.playTurn(8, 15));
+        String afterTurn = game.asciiGameState(false);
+        int flagged = game.getBoard().size() - 1;
+        while (!game.getBoard().isCovered(flagged)) {
+            flagged--;
+        }
+        game.toggleTileFlag(game.getBoard().row(flagged), game.getBoard().column(flagged));
+        String afterFlag = game.asciiGameState(false);
+
+        assertEquals(GameState.IN_PROGRESS, game.undo());
+        assertEquals(afterTurn, game.asciiGameState(false));
+        assertEquals(GameState.NOT_STARTED, game.undo());
+        assertEquals(fresh, game.asciiGameState(true));
+        assertFalse(game.isFirstTurnTaken());
+        assertFalse(game.canUndo());
+
+        assertEquals(GameState.IN_PROGRESS, game.redo());
+        assertEquals(afterTurn, game.asciiGameState(false));
+        game.redo();
+        assertEquals(afterFlag, game.asciiGameState(false));
+        assertFalse(game.canRedo());
+        assertEquals(2, game.toGameLog().moves().length);
+
+        // a new move drops the moves that could be redone
+        game.undo();
+        game.playTurn(0, 0);
+        assertFalse(game.canRedo());
+    }
+
+    @Test
+    public void testForkIsIndependent() {
+        Minesweeper game = new Minesweeper(200, 200, 4000, 4L);
+        game.playTurn(100, 100);
+        Minesweeper fork = game.fork();
+        String before = game.asciiGameState(false);
+
+        int cell = fork.getBoard().size() - 1;
+        while (!fork.getBoard().isCovered(cell) || fork.getBoard().hasMine(cell)) {
+            cell--;
+        }
+        fork.playTurn(fork.getBoard().row(cell), fork.getBoard().column(cell));
+        assertEquals(before, game.asciiGameState(false));
+        assertNotEquals(before, fork.asciiGameState(false));
+        assertTrue(fork.getBoard().countOwnedChunks() < fork.getBoard().size() / Board.CHUNK_SIZE);
+        assertEquals(fork.asciiGameState(false), fork.toGameLog().replay().asciiGameState(false));
+    }
+
+    @Test
+    public void testChordUncoversAroundFlaggedClue() {
+        Minesweeper game = new Minesweeper(30, 16, 99, 6L);
+        game.playTurn(8, 15);
+        Board board = game.getBoard();
+
+        // find an uncovered clue with a covered tile around it that is safe
+        for (int cell = 0; cell < board.size(); cell++) {
+            if (board.isCovered(cell) || board.getClueNumber(cell) == 0) {
+                continue;
+            }
+            int i = board.row(cell), j = board.column(cell);
+            assertEquals(GameState.IN_PROGRESS, game.chordTile(i, j)); // no flags yet
+            assertEquals(0, game.getRevealedCells().length);
+            int safe = -1;
+            for (int x = Math.max(i - 1, 0); x <= Math.min(i + 1, 15); x++) {
+                for (int y = Math.max(j - 1, 0); y <= Math.min(j + 1, 29); y++) {
+                    int tile = board.index(x, y);
+                    if (board.hasMine(tile)) {
+                        game.toggleTileFlag(x, y);
+                    } else if (board.isCovered(tile)) {
+                        safe = tile;
+                    }
+                }
+            }
+            if (safe < 0) {
+                continue;
+            }
+            assertNotEquals(GameState.LOST, game.chordTile(i, j));
+            assertFalse(board.isCovered(safe));
+            assertTrue(game.getRevealedCells().length > 0);
+            return;
+        }
+        fail("No clue to chord");
+    }
+
+    @Test
+    public void testBatchMatchesSingleMoves() {
+        for (long seed = 0; seed < 10; seed++) {
+            Minesweeper single = new Minesweeper(16, 16, 40, seed);
+            Minesweeper batched = new Minesweeper(16, 16, 40, seed);
+            Random random = new Random(seed);
+            int[] moves = new int[80];
+            GameState expected = GameState.NOT_STARTED;
+            int played = 0;
+            for (int k = 0; k < moves.length; k++) {
+                int type = k == 0 ? Minesweeper.REVEAL : random.nextInt(3);
+                int cell = random.nextInt(256);
+                moves[k] = Minesweeper.encodeMove(type, cell);
+                if (expected == GameState.LOST || expected == GameState.WON) {
+                    continue;
+                }
+                int i = cell / 16, j = cell % 16;
+                switch (type) {
+                    case Minesweeper.REVEAL -> expected = single.playTurn(i, j);
+                    case Minesweeper.FLAG -> single.toggleTileFlag(i, j);
+                    default -> expected = single.chordTile(i, j);
+                }
+                played++;
+            }
+
+            List<ChangeSet> heard = new ArrayList<>();
+            batched.addBoardListener(heard::add);
+            Minesweeper.BatchResult result = batched.playMoves(moves);
+            if (expected != GameState.LOST) {
+                expected = single.getBoard().hasCoveredSafeCell() ? GameState.IN_PROGRESS
+                        : GameState.WON;
+            }
+            assertEquals(expected, result.state());
+            assertEquals(played, result.played());
+            assertEquals(single.asciiGameState(true), batched.asciiGameState(true));
+            assertEquals(single.asciiGameState(false), batched.asciiGameState(false));
+            assertTrue(heard.size() <= 1);
+            assertEquals(single.toGameLog().moves().length, batched.toGameLog().moves().length);
+        }
+    }
+
+    @Test
+    public void testBatchStopsAtLoss() {
+        Minesweeper game = new Minesweeper(30, 16, 99, 2L);
+        game.playTurn(8, 15);
+        int mine = 0;
+        while (!game.getBoard().hasMine(mine)) {
+            mine++;
+        }
+        int[] moves = {
+                Minesweeper.encodeMove(Minesweeper.FLAG, mine),
+                Minesweeper.encodeMove(Minesweeper.FLAG, mine),
+                Minesweeper.encodeMove(Minesweeper.REVEAL, mine),
+                Minesweeper.encodeMove(Minesweeper.FLAG, 0)
+        };
+        Minesweeper.BatchResult result = game.playMoves(moves);
+        assertEquals(GameState.LOST, result.state());
+        assertEquals(3, result.played());
+        assertEquals(1, result.changes().size());
+        assertThrows(IndexOutOfBoundsException.class, () -> game.playMoves(
+                new int[] {Minesweeper.encodeMove(Minesweeper.REVEAL, 30 * 16)}
+        ));
+    }
+
+    @Test
+    public void testBadBatchPlaysNothing() {
+        Minesweeper game = new Minesweeper(30, 16, 99, 2L);
+        game.playTurn(8, 15);
+        String before = game.asciiGameState(false);
+        int moves = game.toGameLog().moves().length;
+        List<ChangeSet> heard = new ArrayList<>();
+        game.addBoardListener(heard::add);
+
+        int covered = 0;
+        while (!game.getBoard().isCovered(covered) || game.getBoard().hasMine(covered)) {
+            covered++;
+        }
+        int[] batch = {
+                Minesweeper.encodeMove(Minesweeper.FLAG, 0),
+                Minesweeper.encodeMove(Minesweeper.REVEAL, covered),
+                Minesweeper.encodeMove(Minesweeper.REVEAL, 30 * 16)
+        };
+        assertThrows(IndexOutOfBoundsException.class, () -> game.playMoves(batch));
+        batch[2] = 3 << 30;
+        assertThrows(IllegalArgumentException.class, () -> game.playMoves(batch));
+        assertEquals(before, game.asciiGameState(false));
+        assertEquals(moves, game.toGameLog().moves().length);
+        assertTrue(heard.isEmpty());
+    }
+
+    @Test
+    public void testBatchListsEachTileOnce() {
+        Minesweeper game = new Minesweeper(30, 16, 99, 2L);
+        game.playTurn(8, 15);
+        Board board = game.getBoard();
+        int safe = 0;
+        while (!board.isCovered(safe) || board.hasMine(safe)) {
+            safe++;
+        }
+        int[] batch = {
+                Minesweeper.encodeMove(Minesweeper.FLAG, safe),
+                Minesweeper.encodeMove(Minesweeper.FLAG, safe),
+                Minesweeper.encodeMove(Minesweeper.REVEAL, safe)
+        };
+        Minesweeper.BatchResult result = game.playMoves(batch);
+        int[] cells = result.changes().toArray();
+        assertEquals(cells.length, Arrays.stream(cells).distinct().count());
+        assertTrue(Arrays.stream(cells).anyMatch(cell -> cell == batch[2]));
+        assertEquals(game.getRevealedCells().length, cells.length);
+    }
 }
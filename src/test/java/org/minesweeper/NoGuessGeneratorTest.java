@@ -0,0 +1,120 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NoGuessGeneratorTest {
+    @TempDir
+    Path dir;
+
+    /**
+     * Plays a game making only moves that are certainly safe.
+     */
+    private static GameState playWithoutGuessing(Minesweeper game, int i, int j) {
+        Board board = game.getBoard();
+        GameState state = game.playTurn(i, j);
+        while (state == GameState.IN_PROGRESS) {
+            int move = game.getHint();
+            if (move < 0) {
+                MineProbabilities probabilities = game.getMineProbabilities();
+                move = probabilities.safestCell();
+                assertEquals(0, probabilities.get(move));
+            }
+            state = game.playTurn(board.row(move), board.column(move));
+        }
+        return state;
+    }
+
+    @Test
+    public void testGeneratedBoardsNeedNoGuessing() {
+        NoGuessGenerator generator = new NoGuessGenerator();
+        for (long seed = 0; seed < 5; seed++) {
+            Minesweeper game = new Minesweeper(16, 16, 40, seed);
+            game.setNoGuessGenerator(generator);
+            assertEquals(GameState.WON, playWithoutGuessing(game, 3, 12));
+        }
+        assertEquals(5, generator.getBoardsGenerated());
+        assertEquals(1.0, generator.getSolvedRate());
+        assertTrue(generator.getAverageAttempts() >= 1);
+        assertTrue(generator.getAverageCandidatesChecked() >= generator.getAverageAttempts());
+    }
+
+    @Test
+    public void testResultDoesNotDependOnThreads() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(4);
+        NoGuessGenerator.Result first = new NoGuessGenerator(single, 1000)
+                .generate(30, 16, 99, 8, 15, 77L);
+        NoGuessGenerator.Result second = new NoGuessGenerator(several, 1000)
+                .generate(30, 16, 99, 8, 15, 77L);
+        single.shutdown();
+        several.shutdown();
+
+        assertTrue(first.solvable());
+        assertEquals(first.seed(), second.seed());
+        assertEquals(first.attempts(), second.attempts());
+        assertEquals(first.attempts(), first.candidatesChecked());
+    }
+
+    @Test
+    public void testSameSeedAndClickGiveSameBoard() {
+        Minesweeper first = new Minesweeper(30, 16, 99, 5L);
+        Minesweeper second = new Minesweeper(30, 16, 99, 5L);
+        first.setNoGuessGenerator(new NoGuessGenerator());
+        second.setNoGuessGenerator(new NoGuessGenerator());
+        first.playTurn(2, 2);
+        second.playTurn(2, 2);
+        assertEquals(first.asciiGameState(true), second.asciiGameState(true));
+        assertEquals(first.getSeed(), second.getSeed());
+    }
+
+    @Test
+    public void testUnsolvableDensityFallsBack() {
+        NoGuessGenerator generator = new NoGuessGenerator(ForkJoinPool.commonPool(), 3);
+        NoGuessGenerator.Result result = generator.generate(30, 16, 200, 8, 15, 9L);
+        assertFalse(result.solvable());
+        assertEquals(9L, result.seed());
+        assertEquals(3, result.attempts());
+        assertEquals(0.0, generator.getSolvedRate());
+    }
+
+    @Test
+    public void testTimeBudgetStopsGeneration() {
+        NoGuessGenerator generator = new NoGuessGenerator(
+                ForkJoinPool.commonPool(), Integer.MAX_VALUE, 200, TimeUnit.MILLISECONDS
+        );
+        NoGuessGenerator.Result result = generator.generate(30, 16, 200, 8, 15, 9L);
+        assertFalse(result.solvable());
+        assertTrue(result.timedOut());
+        assertEquals(9L, result.seed());
+        assertEquals(result.candidatesChecked(), result.attempts());
+        assertTrue(result.elapsedNanos() < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(1, generator.getBoardsTimedOut());
+
+        NoGuessGenerator.Result untimed = new NoGuessGenerator(ForkJoinPool.commonPool(), 1000)
+                .generate(30, 16, 99, 8, 15, 77L);
+        assertTrue(untimed.solvable());
+        assertFalse(untimed.timedOut());
+    }
+
+    @Test
+    public void testNoGuessSurvivesSave() throws IOException {
+        Minesweeper game = new Minesweeper(16, 16, 40, 12L);
+        game.setNoGuessGenerator(new NoGuessGenerator());
+        Path save = dir.resolve("save.bin");
+        game.saveGame(save.toString());
+
+        Minesweeper loaded = new Minesweeper(save.toString());
+        assertTrue(loaded.isNoGuess());
+        loaded.playTurn(8, 8);
+        game.playTurn(8, 8);
+        assertEquals(game.asciiGameState(true), loaded.asciiGameState(true));
+        assertThrows(IllegalStateException.class, () -> game.setNoGuessGenerator(null));
+    }
+}
@@ -0,0 +1,210 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+import java.time.Duration;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProbabilityEngineTest {
+
+    /**
+     * Plays a game with hints and random guesses until no tile is certainly safe
+     * and at most a number of tiles are covered.
+     *
+     * @return True if the game reached such a position before it ended.
+     */
+    private static boolean playUntilStuck(Minesweeper game, long seed, int maxCovered) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Board board = game.getBoard();
+        GameState state = game.playTurn(board.getHeight() / 2, board.getWidth() / 2);
+        while (state == GameState.IN_PROGRESS) {
+            int hint = game.getHint();
+            if (hint < 0) {
+                if (countCovered(board) <= maxCovered) {
+                    return true;
+                }
+                do {
+                    hint = random.nextInt(board.size());
+                } while (!board.isCovered(hint) || board.hasMine(hint));
+            }
+            state = game.playTurn(board.row(hint), board.column(hint));
+        }
+        return false;
+    }
+
+    private static int countCovered(Board board) {
+        int covered = 0;
+        for (int index = 0; index < board.size(); index++) {
+            covered += board.isCovered(index) ? 1 : 0;
+        }
+        return covered;
+    }
+
+    /**
+     * Works out the chance of each tile having a mine by trying every way of
+     * placing the mines on the covered tiles.
+     */
+    private static double[] bruteForce(Minesweeper game) {
+        Board board = game.getBoard();
+        int[] covered = new int[countCovered(board)];
+        for (int index = 0, k = 0; index < board.size(); index++) {
+            if (board.isCovered(index)) {
+                covered[k++] = index;
+            }
+        }
+
+        double[] mines = new double[board.size()];
+        long valid = 0;
+        for (long placement = 0; placement < 1L << covered.length; placement++) {
+            if (Long.bitCount(placement) != game.getMineCount()) {
+                continue;
+            }
+            boolean[] mine = new boolean[board.size()];
+            for (int k = 0; k < covered.length; k++) {
+                mine[covered[k]] = (placement >>> k & 1) != 0;
+            }
+            if (matchesClues(board, mine)) {
+                valid++;
+                for (int k = 0; k < covered.length; k++) {
+                    mines[covered[k]] += mine[covered[k]] ? 1 : 0;
+                }
+            }
+        }
+        for (int index = 0; index < mines.length; index++) {
+            mines[index] /= valid;
+        }
+        return mines;
+    }
+
+    private static boolean matchesClues(Board board, boolean[] mine) {
+        for (int index = 0; index < board.size(); index++) {
+            if (board.isCovered(index)) {
+                continue;
+            }
+            int count = 0, i = board.row(index), j = board.column(index);
+            for (int x = Math.max(i - 1, 0); x <= Math.min(i + 1, board.getHeight() - 1); x++) {
+                for (int y = Math.max(j - 1, 0); y <= Math.min(j + 1, board.getWidth() - 1); y++) {
+                    count += mine[board.index(x, y)] ? 1 : 0;
+                }
+            }
+            if (count != board.getClueNumber(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        int checked = 0;
+        for (long seed = 0; seed < 200 && checked < 20; seed++) {
+            Minesweeper game = new Minesweeper(8, 8, 10, seed);
+            if (!playUntilStuck(game, seed, 18)) {
+                continue;
+            }
+            checked++;
+            MineProbabilities probabilities = new ProbabilityEngine().compute(game);
+            assertTrue(probabilities.isExact());
+
+            double[] expected = bruteForce(game);
+            for (int index = 0; index < expected.length; index++) {
+                assertEquals(expected[index], probabilities.get(index), 1e-9);
+            }
+        }
+        assertTrue(checked > 5);
+    }
+
+    @Test
+    public void testProbabilitiesAddUpToMineCount() {
+        for (long seed = 0; seed < 20; seed++) {
+            Minesweeper game = new Minesweeper(30, 16, 99, seed);
+            if (!playUntilStuck(game, seed, 480)) {
+                continue;
+            }
+            MineProbabilities probabilities = game.getMineProbabilities();
+            double sum = 0;
+            for (int index = 0; index < game.getBoard().size(); index++) {
+                double probability = probabilities.get(index);
+                assertTrue(probability >= 0 && probability <= 1);
+                sum += probability;
+            }
+            if (probabilities.isExact()) {
+                assertEquals(99, sum, 1e-6);
+            }
+
+            int safest = probabilities.safestCell();
+            assertTrue(game.getBoard().isCovered(safest));
+        }
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(4);
+        for (long seed = 0; seed < 10; seed++) {
+            Minesweeper game = new Minesweeper(30, 16, 99, seed);
+            if (!playUntilStuck(game, seed, 480)) {
+                continue;
+            }
+            MineProbabilities first = new ProbabilityEngine(single, 10, TimeUnit.SECONDS)
+                    .compute(game);
+            MineProbabilities second = new ProbabilityEngine(several, 10, TimeUnit.SECONDS)
+                    .compute(game);
+            for (int index = 0; index < game.getBoard().size(); index++) {
+                assertEquals(first.get(index), second.get(index), 1e-12);
+            }
+        }
+        single.shutdown();
+        several.shutdown();
+    }
+
+    @Test
+    public void testNoTimeBudgetFallsBack() {
+        Minesweeper game = new Minesweeper(500, 500, 50000, 3L);
+        game.playTurn(250, 250);
+        MineProbabilities probabilities = new ProbabilityEngine(
+                ForkJoinPool.commonPool(), 0, TimeUnit.MILLISECONDS
+        ).compute(game);
+        for (int index = 0; index < game.getBoard().size(); index += 97) {
+            double probability = probabilities.get(index);
+            assertTrue(probability >= 0 && probability <= 1);
+        }
+        assertTrue(game.getBoard().isCovered(probabilities.safestCell()));
+    }
+
+    @Test
+    public void testLargeComponentIsEstimated() {
+        // a long row of ones under a covered row links every covered tile by its clues
+        int width = 3000;
+        Board board = new Board(width, 3);
+        int mines = 0;
+        for (int j = 0; j < width; j += 3) {
+            board.placeMine(board.index(0, j));
+            mines++;
+        }
+        board.recomputeClueNumbers();
+        for (int j = 1; j < width - 1; j++) {
+            board.uncover(board.index(1, j));
+            board.uncover(board.index(2, j));
+        }
+        Minesweeper game = new Minesweeper(new GameSave(board, mines, 1L, true));
+
+        MineProbabilities probabilities = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> new ProbabilityEngine(ForkJoinPool.commonPool(), 1, TimeUnit.HOURS)
+                        .compute(game));
+        assertFalse(probabilities.isExact());
+        for (int j = 0; j < width; j++) {
+            double probability = probabilities.get(board.index(0, j));
+            assertTrue(probability >= 0 && probability <= 1);
+        }
+    }
+
+    @Test
+    public void testSolverStrategyWinsExpertGames() {
+        SimulationResult solver = new Simulator().run(500, 30, 16, 99, 2L, SolverStrategy::new);
+        assertTrue(solver.winRate() > 0.15);
+    }
+}
@@ -0,0 +1,136 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SessionStoreTest {
+    @TempDir
+    Path dir;
+
+    private static long countFiles(Path dir) throws IOException {
+        try (var files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyPlayed() throws IOException {
+        long gameBytes = new Minesweeper(30, 16, 99, 1L).estimateHeapBytes();
+        try (SessionStore store = new SessionStore(dir, 2 * gameBytes + gameBytes / 2)) {
+            store.put("a", new Minesweeper(30, 16, 99, 1L));
+            store.put("b", new Minesweeper(30, 16, 99, 2L));
+            store.play("a", game -> game.playTurn(8, 15));
+            store.put("c", new Minesweeper(30, 16, 99, 3L));
+
+            // b was played least recently, so it is the one spilled
+            assertEquals(3, store.size());
+            assertEquals(2, store.getResidentCount());
+            assertEquals(1, store.getEvictions());
+            assertEquals(1, countFiles(dir));
+            assertTrue(store.getResidentBytes() <= 2 * gameBytes + gameBytes / 2);
+
+            assertEquals(GameState.IN_PROGRESS, store.play("b", game -> game.playTurn(8, 15)));
+            assertEquals(1, store.getHits());
+            assertEquals(1, store.getMisses());
+            assertTrue(store.getMaxRehydrationMillis() > 0);
+            assertTrue(store.getAverageRehydrationMillis() > 0);
+        }
+        assertEquals(0, countFiles(dir));
+    }
+
+    @Test
+    public void testSpilledGameContinuesWhereItLeftOff() throws IOException {
+        Minesweeper local = new Minesweeper(16, 16, 40, 9L);
+        try (SessionStore store = new SessionStore(dir, 0)) {
+            store.put("game", new Minesweeper(16, 16, 40, 9L));
+
+            // with no budget, the game is spilled after every move
+            GameState state = GameState.IN_PROGRESS;
+            for (int index = 0; index < 256 && state == GameState.IN_PROGRESS; index += 5) {
+                int i = index / 16, j = index % 16;
+                if (index % 3 == 0) {
+                    local.toggleTileFlag(i, j);
+                    store.play("game", game -> {
+                        game.toggleTileFlag(i, j);
+                        return null;
+                    });
+                } else {
+                    state = local.playTurn(i, j);
+                    assertEquals(state, store.play("game", game -> game.playTurn(i, j)));
+                }
+                assertEquals(0, store.getResidentCount());
+                assertEquals(local.asciiGameState(true),
+                        store.play("game", game -> game.asciiGameState(true)));
+            }
+            assertEquals(0, store.getHits());
+            assertEquals(store.getMisses() + 1, store.getEvictions()); // spilled when put
+        }
+    }
+
+    @Test
+    public void testRemoveDeletesSpilledGame() throws IOException {
+        try (SessionStore store = new SessionStore(dir, 0)) {
+            store.put("game", new Minesweeper(9, 9, 10, 1L));
+            assertEquals(1, countFiles(dir));
+            assertTrue(store.remove("game"));
+            assertFalse(store.remove("game"));
+            assertEquals(0, countFiles(dir));
+            assertThrows(IllegalArgumentException.class,
+                    () -> store.play("game", game -> game.playTurn(0, 0)));
+        }
+    }
+
+    @Test
+    public void testConcurrentSessionsUnderSmallBudget() throws Exception {
+        int sessions = 32;
+        long gameBytes = new Minesweeper(16, 16, 40, 1L).estimateHeapBytes();
+        ExecutorService players = Executors.newFixedThreadPool(8);
+        try (SessionStore store = new SessionStore(dir, 4 * gameBytes)) {
+            for (int s = 0; s < sessions; s++) {
+                store.put("s" + s, new Minesweeper(16, 16, 40, s));
+            }
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int s = 0; s < sessions; s++) {
+                String id = "s" + s;
+                futures.add(players.submit(() -> {
+                    GameState state = GameState.IN_PROGRESS;
+                    for (int index = 0; index < 256 && state == GameState.IN_PROGRESS;
+                            index += 11) {
+                        int i = index / 16, j = index % 16;
+                        state = store.play(id, game -> game.playTurn(i, j));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+
+            assertTrue(store.getEvictions() > 0);
+            assertTrue(store.getResidentBytes() <= 4 * gameBytes + gameBytes);
+            for (int s = 0; s < sessions; s++) {
+                Minesweeper local = new Minesweeper(16, 16, 40, s);
+                GameState state = GameState.IN_PROGRESS;
+                for (int index = 0; index < 256 && state == GameState.IN_PROGRESS; index += 11) {
+                    state = local.playTurn(index / 16, index % 16);
+                }
+                assertEquals(local.asciiGameState(false),
+                        store.play("s" + s, game -> game.asciiGameState(false)));
+            }
+        } finally {
+            players.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SharedBoardTest {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 20;
+
+    /**
+     * Creates a covered board with mines placed at random, sparse enough that
+     * most reveals flood large regions.
+     */
+    private static Board minedBoard(int width, int height, double density, long seed) {
+        Board board = new Board(width, height);
+        Random random = new Random(seed);
+        for (int index = 0; index < board.size(); index++) {
+            if (random.nextDouble() < density) {
+                board.placeMine(index);
+            }
+        }
+        board.recomputeClueNumbers();
+        return board;
+    }
+
+    /**
+     * Runs a task on several threads that start together, and returns what each
+     * thread returned, rethrowing anything a thread threw.
+     */
+    private static <T> List<T> runTogether(IntFunction<T> task) throws Exception {
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return task.apply(thread);
+                }));
+            }
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Checks that no tile was uncovered by more than one call, and that the tiles
+     * uncovered are exactly the ones the board shows as newly uncovered.
+     */
+    private static int assertRevealedOnce(Board before, SharedBoard board, List<IntList> lists) {
+        int[] reveals = new int[board.size()];
+        int total = 0;
+        for (IntList list : lists) {
+            for (int k = 0; k < list.size(); k++) {
+                reveals[list.get(k)]++;
+                total++;
+            }
+        }
+        for (int index = 0; index < board.size(); index++) {
+            int expected = before.isCovered(index) && !board.isCovered(index) ? 1 : 0;
+            assertEquals(expected, reveals[index], "reveals of tile " + index);
+            assertFalse(board.hasFlag(index) && !board.isCovered(index));
+        }
+        assertEquals(board.toBoard().countCoveredSafeCells(), board.getCoveredSafeCellCount());
+        return total;
+    }
+
+    @Test
+    public void testOverlappingFloodFillsRevealEachTileOnce() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Board before = minedBoard(200, 200, 0.04, round);
+            SharedBoard board = new SharedBoard(before);
+            IntList openings = new IntList();
+            for (int index = 0; index < before.size(); index++) {
+                if (!before.hasMine(index) && before.getClueNumber(index) == 0) {
+                    openings.add(index);
+                }
+            }
+
+            // every thread floods from the same openings, starting at different ones
+            List<IntList> lists = runTogether(thread -> {
+                IntList revealed = new IntList();
+                for (int k = 0; k < openings.size(); k++) {
+                    int opening = openings.get((k + thread * openings.size() / THREADS)
+                            % openings.size());
+                    board.reveal(opening, revealed);
+                }
+                return revealed;
+            });
+
+            assertRevealedOnce(before, board, lists);
+            SharedBoard sequential = new SharedBoard(before);
+            IntList revealed = new IntList();
+            for (int k = 0; k < openings.size(); k++) {
+                sequential.reveal(openings.get(k), revealed);
+            }
+            for (int index = 0; index < before.size(); index++) {
+                assertEquals(sequential.getCell(index), board.getCell(index));
+            }
+        }
+    }
+
+    @Test
+    public void testEverySafeTileRevealedOnceUnderContention() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Board before = minedBoard(64, 64, 0.15, round);
+            SharedBoard board = new SharedBoard(before);
+            int safeTiles = before.getCoveredSafeCellCount();
+
+            // every thread reveals every safe tile, in its own order
+            List<IntList> lists = runTogether(thread -> {
+                IntList revealed = new IntList();
+                Random random = new Random(thread);
+                int[] order = new int[before.size()];
+                for (int index = 0; index < order.length; index++) {
+                    int swap = random.nextInt(index + 1);
+                    order[index] = order[swap];
+                    order[swap] = index;
+                }
+                for (int index : order) {
+                    if (!before.hasMine(index)) {
+                        board.reveal(index, revealed);
+                    }
+                }
+                return revealed;
+            });
+
+            assertEquals(safeTiles, assertRevealedOnce(before, board, lists));
+            assertEquals(0, board.getCoveredSafeCellCount());
+            assertEquals(GameState.WON, board.getState());
+        }
+    }
+
+    @Test
+    public void testFlagTogglesAreNotLost() throws Exception {
+        Board before = minedBoard(4, 4, 0, 1L);
+        SharedBoard board = new SharedBoard(before);
+
+        // tiles sharing a word are toggled by every thread at once
+        int toggles = 2001;
+        List<Integer> counts = runTogether(thread -> {
+            int toggled = 0;
+            for (int k = 0; k < toggles; k++) {
+                for (int index = 0; index < 8; index++) {
+                    toggled += board.toggleFlag(index) ? 1 : 0;
+                }
+            }
+            return toggled;
+        });
+
+        for (int count : counts) {
+            assertEquals(8 * toggles, count);
+        }
+        for (int index = 0; index < board.size(); index++) {
+            // an odd total number of toggles leaves each flag placed
+            assertEquals(index < 8 && THREADS * toggles % 2 == 1, board.hasFlag(index));
+            assertTrue(board.isCovered(index));
+        }
+    }
+
+    @Test
+    public void testFlagsAndRevealsNeverOverlap() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Board before = minedBoard(64, 64, 0.1, round);
+            SharedBoard board = new SharedBoard(before);
+
+            // half the threads flag tiles while the other half reveal them
+            List<IntList> lists = runTogether(thread -> {
+                IntList revealed = new IntList();
+                for (int index = 0; index < before.size(); index++) {
+                    int target = (index * 31 + thread * 257) % before.size();
+                    if (before.hasMine(target)) {
+                        continue;
+                    }
+                    if (thread % 2 == 0) {
+                        board.toggleFlag(target);
+                    } else {
+                        board.reveal(target, revealed);
+                    }
+                }
+                return revealed;
+            });
+
+            assertRevealedOnce(before, board, lists);
+            assertNotEquals(GameState.LOST, board.getState());
+        }
+    }
+
+    @Test
+    public void testRevealingMineEndsGame() {
+        Board before = minedBoard(9, 9, 0, 1L);
+        before.placeMine(40);
+        before.recomputeClueNumbers();
+        SharedBoard board = new SharedBoard(before);
+
+        assertTrue(board.toggleFlag(40));
+        IntList revealed = new IntList();
+        assertEquals(GameState.IN_PROGRESS, board.reveal(40, revealed));
+        assertTrue(board.toggleFlag(40));
+        assertEquals(GameState.LOST, board.reveal(40, revealed));
+        assertTrue(revealed.isEmpty());
+
+        // moves after the game ends are ignored
+        assertEquals(GameState.LOST, board.reveal(0, revealed));
+        assertFalse(board.toggleFlag(0));
+        assertTrue(revealed.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> board.reveal(81, revealed));
+    }
+}
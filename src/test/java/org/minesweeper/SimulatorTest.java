@@ -0,0 +1,91 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SimulatorTest {
+
+    /**
+     * Clicks the middle of the board first, then any covered tile without a
+     * mine.
+     */
+    private static final class CheatingStrategy implements Strategy {
+        private int next;
+
+        @Override
+        public void newGame(Minesweeper game) {
+            next = 0;
+        }
+
+        @Override
+        public int nextMove(Minesweeper game, SplittableRandom random) {
+            Board board = game.getBoard();
+            if (!game.isFirstTurnTaken()) {
+                return board.index(board.getHeight() / 2, board.getWidth() / 2);
+            }
+            while (!board.isCovered(next) || board.hasMine(next)) {
+                next++;
+            }
+            return next;
+        }
+    }
+
+    @Test
+    public void testResultsDoNotDependOnThreads() {
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool several = new ForkJoinPool(4);
+        SimulationResult first = new Simulator(single)
+                .run(2000, 9, 9, 10, 42L, RandomStrategy::new);
+        SimulationResult second = new Simulator(several)
+                .run(2000, 9, 9, 10, 42L, RandomStrategy::new);
+        single.shutdown();
+        several.shutdown();
+
+        assertEquals(2000, first.games());
+        assertEquals(first.wins(), second.wins());
+        assertEquals(first.clicks(), second.clicks());
+        assertTrue(first.wins() < 2000);
+        assertTrue(first.clicksPerGame() > 1);
+        assertEquals(4, second.parallelism());
+    }
+
+    @Test
+    public void testPerfectStrategyWinsEveryGame() {
+        SimulationResult result = new Simulator().run(500, 30, 16, 99, 7L, CheatingStrategy::new);
+        assertEquals(500, result.wins());
+        assertEquals(1.0, result.winRate());
+        assertTrue(result.gamesPerSecond() > 0);
+    }
+
+    @Test
+    public void testSingleGameMatchesRun() {
+        Simulator.Tally tally = new Simulator.Tally();
+        Minesweeper game = new Minesweeper(9, 9, 10);
+        for (long g = 0; g < 100; g++) {
+            Simulator.play(game, new RandomStrategy(), 3L, g, tally);
+        }
+        SimulationResult result = new Simulator().run(100, 9, 9, 10, 3L, RandomStrategy::new);
+        assertEquals(tally.wins, result.wins());
+        assertEquals(tally.clicks, result.clicks());
+    }
+
+    @Test
+    public void testUnplayableMoveIsRejected() {
+        Strategy stuck = (game, random) -> 0;
+        assertThrows(
+                IllegalStateException.class,
+                () -> new Simulator().run(10, 9, 9, 10, 1L, () -> stuck)
+        );
+    }
+
+    @Test
+    public void testInvalidSettings() {
+        assertThrows(
+                IllegalArgumentException.class,
+                () -> new Simulator().run(10, 3, 3, 5, 1L, RandomStrategy::new)
+        );
+    }
+}
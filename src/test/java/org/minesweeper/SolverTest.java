@@ -0,0 +1,107 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SolverTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testSubsetRule() throws IOException {
+        // the 1 on the left is a subset of the 2, so the top right tile is a mine
+        Path save = dir.resolve("pattern.csv");
+        Files.writeString(save, """
+                3,4,2,
+                m,,m,
+                u1,u2,u1,
+                u,u,u,
+                u,u,u,
+                """);
+        Minesweeper test = new Minesweeper(save.toString());
+        Solver solver = test.getSolver();
+
+        assertEquals(1, test.getHint());
+        assertTrue(solver.isKnownMine(0));
+        assertTrue(solver.isKnownMine(2));
+        assertTrue(solver.isKnownSafe(1));
+        assertArrayEquals(new int[] { 0, 2 }, sorted(solver.getKnownMines()));
+        assertEquals(0, solver.getFrontier().length);
+    }
+
+    @Test
+    public void testDeductionsAreCorrect() {
+        SplittableRandom random = new SplittableRandom(5);
+        for (long seed = 0; seed < 50; seed++) {
+            Minesweeper test = new Minesweeper(30, 16, 99, seed);
+            SolverStrategy strategy = new SolverStrategy();
+            GameState state = GameState.IN_PROGRESS;
+            while (state == GameState.IN_PROGRESS) {
+                int hint = test.getHint();
+                if (hint >= 0) {
+                    assertFalse(test.getBoard().hasMine(hint));
+                }
+                for (int mine : test.getSolver().getKnownMines()) {
+                    assertTrue(test.getBoard().hasMine(mine));
+                }
+                int move = strategy.nextMove(test, random);
+                state = test.playTurn(test.getBoard().row(move), test.getBoard().column(move));
+            }
+        }
+    }
+
+    @Test
+    public void testIncrementalMatchesFreshSolver() {
+        SplittableRandom random = new SplittableRandom(8);
+        Minesweeper test = new Minesweeper(30, 16, 99, 21L);
+        SolverStrategy strategy = new SolverStrategy();
+        for (int move = 0; move < 40; move++) {
+            int next = strategy.nextMove(test, random);
+            if (test.playTurn(test.getBoard().row(next), test.getBoard().column(next))
+                    != GameState.IN_PROGRESS) {
+                break;
+            }
+
+            // a solver that reads the whole board must reach the same conclusions
+            Solver incremental = test.getSolver();
+            Solver fresh = new Solver(test);
+            assertArrayEquals(sorted(fresh.getKnownMines()), sorted(incremental.getKnownMines()));
+            assertArrayEquals(sorted(fresh.getFrontier()), sorted(incremental.getFrontier()));
+            for (int index = 0; index < test.getBoard().size(); index++) {
+                assertEquals(fresh.isKnownSafe(index), incremental.isKnownSafe(index));
+            }
+        }
+    }
+
+    @Test
+    public void testHintBeforeFirstTurnAndAfterReset() {
+        Minesweeper test = new Minesweeper(9, 9, 10, 3L);
+        assertEquals(test.getBoard().index(4, 4), test.getHint());
+        test.playTurn(4, 4);
+        test.getHint();
+        test.reset(4L);
+        assertEquals(0, test.getSolver().getFrontier().length);
+        assertEquals(0, test.getSolver().getKnownMines().length);
+    }
+
+    @Test
+    public void testSolverStrategyBeatsRandom() {
+        SimulationResult solver = new Simulator().run(1000, 9, 9, 10, 1L, SolverStrategy::new);
+        SimulationResult random = new Simulator().run(1000, 9, 9, 10, 1L, RandomStrategy::new);
+        assertTrue(solver.winRate() > 0.5);
+        assertTrue(solver.winRate() > random.winRate());
+    }
+
+    private static int[] sorted(int[] cells) {
+        int[] copy = cells.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+}
@@ -0,0 +1,45 @@
+package org.minesweeper;
+
+import org.junit.jupiter.api.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TileSpritesTest {
+
+    @Test
+    public void testSpritesMatchDrawnTiles() {
+        TileSprites sprites = new TileSprites(20);
+        for (int appearance = 0; appearance < TileSprites.APPEARANCES; appearance++) {
+            BufferedImage drawn = new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB);
+            BufferedImage copied = new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = drawn.createGraphics();
+            TileSprites.drawTile(g, appearance, 0, 0, 20);
+            g.dispose();
+            g = copied.createGraphics();
+            sprites.paintTile(g, appearance, 0, 0);
+            g.dispose();
+
+            for (int x = 0; x < 20; x++) {
+                for (int y = 0; y < 20; y++) {
+                    assertEquals(drawn.getRGB(x, y), copied.getRGB(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAppearance() {
+        Board board = new Board(3, 1);
+        board.placeMine(0);
+        board.setClueNumber(1, 1);
+        board.uncover(1);
+        board.toggleFlag(2);
+
+        assertEquals(TileSprites.COVERED, TileSprites.appearance(board, 0, false));
+        assertEquals(TileSprites.MINE, TileSprites.appearance(board, 0, true));
+        assertEquals(1, TileSprites.appearance(board, 1, true));
+        assertEquals(TileSprites.FLAGGED, TileSprites.appearance(board, 2, false));
+    }
+}